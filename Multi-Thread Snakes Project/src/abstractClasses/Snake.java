@@ -2,22 +2,29 @@ package abstractClasses;
 
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import exceptions.EmptyBufferException;
 import server.GameServer;
-import server.GameState;
+import server.GameSnapshot;
 
 /**
  * Abstract class for snakes in the multiplayer snake game. Contains methods for
  * producing to and consuming from a buffer that stores snake direction
  * commands. Also has setters and getters for the snakes score in the game.
+ * <p>
+ * The server tells a snake about its lifecycle through callbacks - spawned,
+ * died, round started and game over - so clients react to events instead of
+ * polling isAlive(). Callbacks run on server threads, the ticking thread for
+ * deaths and round starts, so they must return quickly and never block.
  */
 public abstract class Snake implements Runnable {
 	public static final int BUFFER_SIZE = 5;
     protected int snakeId;
 	private volatile LinkedBlockingDeque<Direction> directionBuffer;
-	private volatile int score;
-	protected Boolean alive;
+	private final AtomicInteger score;
+	private volatile String playerName; // authenticated player name, null for unranked snakes
+	protected volatile boolean alive;
 	protected GameServer gameServer;
 	private Direction currentHeading;
 
@@ -35,7 +42,7 @@ public abstract class Snake implements Runnable {
 		this.snakeId = snakeId;
 		this.gameServer = gameServer;
 		directionBuffer = new LinkedBlockingDeque<>();
-		score = 0;
+		score = new AtomicInteger(0);
 		currentHeading = null;
 		alive = true;
 	}
@@ -60,17 +67,27 @@ public abstract class Snake implements Runnable {
 	 *                              empty
 	 */
 	public synchronized Direction directionBufferConsume() throws EmptyBufferException {
-		Direction direction;
 		if (directionBuffer.isEmpty()) {
 			throw new EmptyBufferException(Thread.currentThread().getName());
 		}
-		
+		return directionBufferPoll();
+	}
+
+	/**
+	 * A thread-safe method to get a direction from the directionBuffer without
+	 * throwing when it is empty. Used by the server tick, which must not allocate.
+	 *
+	 * @return Direction enum type (UP, DOWN, LEFT, RIGHT), or null if the buffer
+	 *         is currently empty
+	 */
+	public synchronized Direction directionBufferPoll() {
+		Direction direction;
+
 		// stack implementation
-		direction = directionBuffer.pollLast();   // get top of stack
+		direction = directionBuffer.pollLast();   // get top of stack, null if empty
 		// clear stack if more than 3 saved user inputs in stack
 		if(directionBuffer.size() > 3) {
 			directionBuffer.clear();
-			System.out.println("@@@@@@@@@@@@@@@ CLEARED BUFFER FOR SNAKE " + snakeId);
 		}		                  
 		
 		// queue implementation
@@ -96,8 +113,16 @@ public abstract class Snake implements Runnable {
 		}
 	}
 	
+	/**
+	 * Atomically adjust the snakes score and report the change to the game server.
+	 * 
+	 * @param scoreChange the amount to add to the score (may be negative)
+	 */
 	public void adjustScore(int scoreChange) {
-		score += scoreChange;		
+		score.addAndGet(scoreChange);
+		if (gameServer != null) {
+			gameServer.scoreChanged(this, scoreChange);
+		}
 	}
 	
 	// ============ SETTER & GETTER METHODS ============
@@ -108,7 +133,7 @@ public abstract class Snake implements Runnable {
 	 * @return integer of snakes score
 	 */
 	public int getScore() {
-		return score;
+		return score.get();
 	}
 
 	/**
@@ -117,20 +142,38 @@ public abstract class Snake implements Runnable {
 	 * @param score
 	 */
 	public void setScore(int score) {
-		this.score = score;
+		this.score.set(score);
+	}
+
+	/**
+	 * Set the name of the authenticated player controlling this snake.
+	 * 
+	 * @param playerName the players name
+	 */
+	public void setPlayerName(String playerName) {
+		this.playerName = playerName;
+	}
+
+	/**
+	 * Get the name of the authenticated player controlling this snake.
+	 * 
+	 * @return the players name, or null if the snake is not controlled by a ranked player
+	 */
+	public String getPlayerName() {
+		return playerName;
 	}
 
 	/**
 	 * @param alive
 	 */
-	public void setAlive(Boolean alive) {
+	public void setAlive(boolean alive) {
 		this.alive = alive;
 	}
 
 	/**
 	 * @return
 	 */
-	public Boolean isAlive() {
+	public boolean isAlive() {
 		return alive;
 	}
 
@@ -153,6 +196,38 @@ public abstract class Snake implements Runnable {
 	/**
 	 * Method for the GameServer to submit gamestate updates to the client. Launches a
 	 * client thread to produce a gameBoardModel and submits it to the view-controller.
+	 * The client owns one reference to the snapshot and must release() it once it
+	 * has finished with it.
+	 */
+	public abstract void submitGameState(GameSnapshot serverSnapshot);
+
+	// ============ LIFECYCLE CALLBACKS ============
+
+	/**
+	 * Called by the server when the snake is placed on the game board, on joining
+	 * or rejoining a game.
+	 */
+	public void onSpawn() {
+	}
+
+	/**
+	 * Called by the server on the ticking thread when the snake dies.
 	 */
-	public abstract void submitGameState(GameState serverGamestate);
+	public void onDeath() {
+	}
+
+	/**
+	 * Called by the server on the ticking thread before the first tick of a round.
+	 * 
+	 * @param round the round number, counting from 1
+	 */
+	public void onRoundStart(int round) {
+	}
+
+	/**
+	 * Called by the server once the game has ended. No more game state is sent to
+	 * the snake.
+	 */
+	public void onGameOver() {
+	}
 }
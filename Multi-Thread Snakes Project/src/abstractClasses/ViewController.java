@@ -6,7 +6,6 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Graphics;
-import java.awt.Point;
 import java.awt.Toolkit;
 import java.util.ArrayList;
 import java.util.List;
@@ -15,6 +14,8 @@ import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 
+import abstractClasses.Snake.Direction;
+
 /**
  * Abstract class for View and Control in the multiplayer snake game. Contains
  * methods for drawing the gamestate to the screen (VIEW) and capturing input
@@ -50,6 +51,7 @@ public abstract class ViewController extends JPanel {
 					displayPanel.fillCell(row, col, gameBoardModel[row][col]);			
 			}
 		}
+		displayPanel.clearCellParts();
 		displayPanel.repaint();
 	}
 
@@ -103,15 +105,19 @@ public abstract class ViewController extends JPanel {
 //	=================================== INNER CLASS =====================================
 	
 	/**
-	 * TODO write doc.
+	 * Panel drawing the game board as a grid of coloured cells, 10 pixels square.
+	 * Cells can also be partly filled from one edge, for snakes drawn part way
+	 * between two tiles. Only used on the event dispatch thread.
 	 */
 	public static final class DisplayPanel extends JPanel {
+		private static final int CELL_SIZE = 10;
 		private int panelWidth;
 		private int panelHeight;
 		private int xBorder;
 
-		private List<Point> colorCells;
 		private Color[][] colorMatrix;
+		private List<CellPart> cellParts; // drawn over the cells, reused between frames
+		private int cellPartCount;
 
 		/**
 		 * CONSTRUCTOR for a display panel.
@@ -121,24 +127,29 @@ public abstract class ViewController extends JPanel {
 		 * @param panelHeight
 		 */
 		public DisplayPanel(int xBorder, int panelWidth, int panelHeight) {
-			colorCells = new ArrayList<>(GAME_SIZE);
 			colorMatrix = new Color[GAME_SIZE][GAME_SIZE];
+			cellParts = new ArrayList<>();
 			this.panelWidth = panelWidth;
 			this.panelHeight = panelHeight;
 			this.xBorder = xBorder;
 		}
 
 		/**
-		 * Draws the background game grid??
+		 * Draws the filled cells, then the partly filled cells, then the game grid.
 		 */
 		@Override
 		protected void paintComponent(Graphics g) {
 			super.paintComponent(g);
-			for (Point colorCell : colorCells) {
-				int cellX = xBorder / 2 + (colorCell.x * 10);
-				int cellY = (colorCell.y * 10);
-				g.setColor(colorMatrix[colorCell.x][colorCell.y]);
-				g.fillRect(cellX, cellY, 10, 10);
+			for (int x = 0; x < colorMatrix.length; x++) {
+				for (int y = 0; y < colorMatrix[x].length; y++) {
+					if (colorMatrix[x][y] != null) {
+						g.setColor(colorMatrix[x][y]);
+						g.fillRect(xBorder / 2 + x * CELL_SIZE, y * CELL_SIZE, CELL_SIZE, CELL_SIZE);
+					}
+				}
+			}
+			for (int i = 0; i < cellPartCount; i++) {
+				cellParts.get(i).paint(g, xBorder / 2);
 			}
 			g.setColor(Color.BLACK);
 			g.drawRect(xBorder / 2, 0, panelWidth, panelHeight);
@@ -153,15 +164,94 @@ public abstract class ViewController extends JPanel {
 		}
 
 		/**
-		 * TODO write doc.
+		 * Fill a cell with a colour.
 		 * 
-		 * @param x
-		 * @param y
-		 * @param color
+		 * @param x     cell column on screen (game board row)
+		 * @param y     cell row on screen (game board column)
+		 * @param color the colour to fill the cell
 		 */
 		public void fillCell(int x, int y, Color color) {
 			colorMatrix[x][y] = color;
-			colorCells.add(new Point(x, y));
+		}
+
+		/**
+		 * Get the colour a cell is filled with.
+		 *
+		 * @param x cell column on screen (game board row)
+		 * @param y cell row on screen (game board column)
+		 * @return the colour, or null if the cell has not been filled
+		 */
+		public Color getCellColor(int x, int y) {
+			return colorMatrix[x][y];
+		}
+
+		/**
+		 * Fill part of a cell with a colour, over the colour of the whole cell.
+		 * 
+		 * @param x        cell column on screen (game board row)
+		 * @param y        cell row on screen (game board column)
+		 * @param color    the colour to fill the part
+		 * @param edge     the edge of the cell the part is anchored to
+		 * @param fraction the fraction (0 to 1) of the cell to fill from the edge
+		 */
+		public void fillCellPart(int x, int y, Color color, Direction edge, double fraction) {
+			if (cellPartCount == cellParts.size()) {
+				cellParts.add(new CellPart());
+			}
+			cellParts.get(cellPartCount++).set(x, y, color, edge, fraction);
+		}
+
+		/**
+		 * Remove all partly filled cells.
+		 */
+		public void clearCellParts() {
+			cellPartCount = 0;
+		}
+
+		/**
+		 * Part of a cell filled from one edge.
+		 */
+		private static final class CellPart {
+			private int x;
+			private int y;
+			private Color color;
+			private Direction edge;
+			private int size; // pixels from the edge
+
+			void set(int x, int y, Color color, Direction edge, double fraction) {
+				this.x = x;
+				this.y = y;
+				this.color = color;
+				this.edge = edge;
+				size = (int) Math.round(fraction * CELL_SIZE);
+			}
+
+			void paint(Graphics g, int xOffset) {
+				int cellX = xOffset + x * CELL_SIZE;
+				int cellY = y * CELL_SIZE;
+				g.setColor(color);
+				switch (edge) {
+
+				case LEFT:
+					g.fillRect(cellX, cellY, size, CELL_SIZE);
+					break;
+
+				case RIGHT:
+					g.fillRect(cellX + CELL_SIZE - size, cellY, size, CELL_SIZE);
+					break;
+
+				case UP:
+					g.fillRect(cellX, cellY, CELL_SIZE, size);
+					break;
+
+				case DOWN:
+					g.fillRect(cellX, cellY + CELL_SIZE - size, CELL_SIZE, size);
+					break;
+
+				default:
+					// cannot get here
+				}
+			}
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import server.AuthenticationService;
+import server.PlayerDetails;
+import server.SessionToken;
+import server.UserDatabase;
+
+/**
+ * Benchmark for a burst of logins at match start. Submits every login to the
+ * asynchronous authentication pipeline at once while a simulated game tick runs
+ * on its own thread, then reports burst completion time and the worst tick
+ * overrun seen during the burst.
+ * <p>
+ * Usage: AuthenticationBenchmark [logins] [tickMillis]
+ */
+public final class AuthenticationBenchmark {
+	private static final int ENCRYPTION_KEY = 5;
+
+	public static void main(String[] args) throws InterruptedException {
+		int logins = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		long tickMillis = args.length > 1 ? Long.parseLong(args[1]) : 120;
+
+		UserDatabase userDB = new UserDatabase();
+		List<PlayerDetails> accounts = new ArrayList<>(logins);
+		for (int i = 0; i < logins; i++) {
+			accounts.add(new PlayerDetails("player" + i, "[" + i + "]"));
+		}
+		userDB.importPlayers(accounts.iterator());
+		AuthenticationService authService = new AuthenticationService(userDB);
+
+		// simulated tick loop measuring how late each tick starts
+		AtomicLong worstOverrun = new AtomicLong();
+		Thread tickThread = new Thread(() -> {
+			long nextTick = System.nanoTime();
+			while (!Thread.currentThread().isInterrupted()) {
+				nextTick += tickMillis * 1_000_000;
+				long sleep = nextTick - System.nanoTime();
+				if (sleep > 0) {
+					try {
+						Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				long overrun = System.nanoTime() - nextTick;
+				worstOverrun.accumulateAndGet(overrun, Math::max);
+			}
+		}, "Bench-Tick");
+		tickThread.start();
+		Thread.sleep(2 * tickMillis);
+
+		// login burst
+		long start = System.nanoTime();
+		List<CompletableFuture<SessionToken>> futures = new ArrayList<>(logins);
+		for (PlayerDetails account : accounts) {
+			futures.add(authService.authenticate(account.encrypt(ENCRYPTION_KEY), ENCRYPTION_KEY));
+		}
+		long submitted = System.nanoTime();
+		int authenticated = 0;
+		for (CompletableFuture<SessionToken> future : futures) {
+			if (future.join() != null) {
+				authenticated++;
+			}
+		}
+		long finished = System.nanoTime();
+		Thread.sleep(2 * tickMillis);
+		tickThread.interrupt();
+
+		System.out.println(authenticated + "/" + logins + " logins authenticated");
+		System.out.println("burst submitted in " + (submitted - start) / 1_000_000 + " ms, completed in "
+				+ (finished - start) / 1_000_000 + " ms");
+		System.out.println("worst tick overrun during burst: " + worstOverrun.get() / 1_000_000 + " ms");
+		userDB.close();
+	}
+}
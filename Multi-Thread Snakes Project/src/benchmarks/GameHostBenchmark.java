@@ -0,0 +1,93 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import abstractClasses.Snake.Direction;
+import client.NPCSnake;
+import server.GameHost;
+import server.GameServer;
+import server.GameSnapshot;
+import server.Leaderboard;
+import server.UserDatabase;
+
+/**
+ * Benchmark for hosting many games in one JVM. Doubles the number of hosted
+ * games until the host can no longer hold the target tick rate, then reports
+ * the games per core that were sustained.
+ * <p>
+ * Usage: GameHostBenchmark [snakesPerGame] [tickMillis] [seconds]
+ */
+public final class GameHostBenchmark {
+	private static final double SUSTAINED_RATIO = 0.95; // fraction of target ticks a step must achieve
+
+	public static void main(String[] args) throws InterruptedException {
+		int snakesPerGame = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		long tickMillis = args.length > 1 ? Long.parseLong(args[1]) : GameServer.TICK_MILLIS;
+		int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		int cores = Runtime.getRuntime().availableProcessors();
+
+		int sustained = 0;
+		for (int gameCount = 64;; gameCount *= 2) {
+			GameHost host = new GameHost(new UserDatabase(), new Leaderboard(), tickMillis, cores);
+			List<GameServer> games = new ArrayList<>(gameCount);
+			for (int g = 0; g < gameCount; g++) {
+				GameServer game = host.createGame(0, 1);
+				for (int s = 1; s <= snakesPerGame; s++) {
+					game.npcLogin(new BenchSnake(game, s));
+				}
+				games.add(game);
+			}
+
+			// warm up then measure ticks run by games still alive at the end
+			Thread.sleep(1000);
+			long[] startTicks = new long[gameCount];
+			for (int g = 0; g < gameCount; g++) {
+				startTicks[g] = games.get(g).getTickCount();
+			}
+			Thread.sleep(seconds * 1000L);
+			long ticks = 0;
+			int alive = 0;
+			for (int g = 0; g < gameCount; g++) {
+				if (!games.get(g).isGameEnded()) {
+					ticks += games.get(g).getTickCount() - startTicks[g];
+					alive++;
+				}
+			}
+			host.shutdown();
+
+			double expected = alive * (seconds * 1000.0 / tickMillis);
+			double ratio = alive == 0 ? 0 : ticks / expected;
+			System.out.printf("%d games (%d alive): %.0f ticks/sec, %.1f%% of target%n", gameCount, alive,
+					ticks / (double) seconds, ratio * 100);
+			if (ratio < SUSTAINED_RATIO) {
+				break;
+			}
+			sustained = gameCount;
+		}
+		System.out.printf("sustained %d games at %d ms ticks on %d cores: %.1f games/core%n", sustained,
+				tickMillis, cores, sustained / (double) cores);
+	}
+
+	/**
+	 * Snake that turns at random whenever it is sent the game state, so the
+	 * benchmark needs no thread per snake.
+	 */
+	private static final class BenchSnake extends NPCSnake {
+
+		BenchSnake(GameServer gameServer, int snakeId) {
+			super(gameServer, snakeId);
+		}
+
+		@Override
+		public void submitGameState(GameSnapshot serverSnapshot) {
+			serverSnapshot.release();
+			try {
+				directionBufferProduce(Direction.values()[ThreadLocalRandom.current().nextInt(4)]);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package benchmarks;
+
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import abstractClasses.Snake.Direction;
+import client.NPCSnake;
+import server.GameState;
+
+/**
+ * Benchmark for game state reads. Runs concurrent reader threads against a game
+ * state first while it is idle, then while a writer thread ticks it every tick
+ * period, and reports reads per second for both. With the front buffer read lock
+ * free the two should match. A tick period of 0 ticks back to back, which only
+ * measures fairly with a spare core for the writer.
+ * <p>
+ * Usage: GameStateReadBenchmark [readers] [snakes] [seconds] [tickMillis]
+ */
+public final class GameStateReadBenchmark {
+
+	public static void main(String[] args) throws InterruptedException {
+		int readers = args.length > 0 ? Integer.parseInt(args[0])
+				: Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+		int snakeCount = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+		int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		long tickMillis = args.length > 3 ? Long.parseLong(args[3]) : 1;
+
+		GameState gameState = new GameState();
+		NPCSnake[] snakes = new NPCSnake[snakeCount];
+		for (int s = 0; s < snakeCount; s++) {
+			snakes[s] = new NPCSnake(null, s + 1);
+			placeSnake(gameState, snakes[s]);
+		}
+		gameState.swapBuffers();
+
+		double idle = readsPerSecond(gameState, readers, seconds);
+		System.out.printf("idle:    %,.0f reads/sec%n", idle);
+
+		LongAdder ticks = new LongAdder();
+		Thread writer = new Thread(() -> {
+			while (!Thread.currentThread().isInterrupted()) {
+				tick(gameState, snakes);
+				ticks.increment();
+				if (tickMillis > 0) {
+					try {
+						Thread.sleep(tickMillis);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+		}, "Tick-Writer");
+		writer.start();
+		double ticking = readsPerSecond(gameState, readers, seconds);
+		writer.interrupt();
+		writer.join();
+		System.out.printf("ticking: %,.0f reads/sec while running %,.0f ticks/sec%n", ticking,
+				ticks.sum() / (double) seconds);
+		System.out.printf("read throughput under tick: %.1f%% of idle%n", ticking / idle * 100);
+	}
+
+	/**
+	 * Run reader threads for a fixed time, each reading random tiles and snake models.
+	 */
+	private static double readsPerSecond(GameState gameState, int readers, int seconds)
+			throws InterruptedException {
+		LongAdder reads = new LongAdder();
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch finished = new CountDownLatch(readers);
+		long[] deadline = new long[1];
+
+		for (int t = 0; t < readers; t++) {
+			new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				long count = 0;
+				int occupied = 0;
+				while (System.nanoTime() < deadline[0]) {
+					for (int i = 0; i < 1024; i++) {
+						if (gameState.getGameTile(random.nextInt(GameState.GAME_SIZE),
+								random.nextInt(GameState.GAME_SIZE)) != null) {
+							occupied++;
+						}
+					}
+					if (gameState.getFoodCount() >= 0) {
+						occupied++;
+					}
+					count += 1025;
+				}
+				reads.add(count);
+				if (occupied < 0) {
+					System.out.println(occupied); // keep reads live
+				}
+				finished.countDown();
+			}, "Reader-" + t).start();
+		}
+		deadline[0] = System.nanoTime() + seconds * 1_000_000_000L;
+		start.countDown();
+		finished.await();
+		return reads.sum() / (double) seconds;
+	}
+
+	/**
+	 * One tick - random moves for every live snake, published, with dead snakes respawned.
+	 */
+	private static void tick(GameState gameState, NPCSnake[] snakes) {
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		for (NPCSnake snake : snakes) {
+			if (snake.isAlive()) {
+				moves.put(snake.getSnakeId(), Direction.values()[ThreadLocalRandom.current().nextInt(4)]);
+			}
+		}
+		gameState.resolveMoves(moves);
+		for (NPCSnake snake : snakes) {
+			if (!snake.isAlive()) {
+				snake.setAlive(true);
+				placeSnake(gameState, snake);
+			}
+		}
+		gameState.swapBuffers();
+	}
+
+	/**
+	 * Place a length 1 snake on a random empty tile.
+	 */
+	private static void placeSnake(GameState gameState, NPCSnake snake) {
+		while (true) {
+			try {
+				gameState.addSnakeModel(snake, ThreadLocalRandom.current().nextInt(GameState.GAME_SIZE),
+						ThreadLocalRandom.current().nextInt(GameState.GAME_SIZE));
+				return;
+			} catch (IllegalArgumentException e) {
+				// tile taken - try another
+			}
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import server.Matchmaker;
+
+/**
+ * Benchmark for matchmaking a large queue. Queues every player with a random
+ * rating, then runs one matchmaking pass batching the whole queue into lobbies,
+ * and reports the time per enqueue and per lobby formed. Lobbies are handed to a
+ * handler that starts no game, so only the matchmaker is timed. Repeated so the
+ * later rounds run warm.
+ * <p>
+ * Usage: MatchmakerBenchmark [players] [gameSize] [ratingBucketWidth] [rounds]
+ */
+public final class MatchmakerBenchmark {
+	private static final int MAX_RATING = 3000;
+
+	public static void main(String[] args) {
+		int players = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		int gameSize = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		int ratingBucketWidth = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+		int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+		for (int round = 1; round <= rounds; round++) {
+			Matchmaker matchmaker = new Matchmaker(gameSize, ratingBucketWidth, 0, lobby -> null);
+			int[] ratings = new int[players];
+			for (int i = 0; i < players; i++) {
+				ratings[i] = ThreadLocalRandom.current().nextInt(MAX_RATING);
+			}
+
+			long start = System.nanoTime();
+			for (int i = 0; i < players; i++) {
+				matchmaker.enqueue(i, ratings[i]);
+			}
+			long queued = System.nanoTime();
+			int lobbies = matchmaker.formLobbies(queued);
+			long formed = System.nanoTime();
+
+			System.out.printf("round %d: %d players queued in %.1f ms (%.3f us/enqueue), %d lobbies formed in %.1f ms "
+					+ "(%.3f us/lobby), %d npcs backfilled, %d left waiting%n", round, players,
+					(queued - start) / 1e6, (queued - start) / 1e3 / players, lobbies, (formed - queued) / 1e6,
+					lobbies == 0 ? 0 : (formed - queued) / 1e3 / lobbies, matchmaker.getNpcsBackfilled(),
+					matchmaker.getQueuedCount());
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import server.ShardCoordinator;
+import server.ShardWorker;
+
+/**
+ * Benchmark for how the games a sharded cluster sustains grow with its workers.
+ * For 1, 2, 4 ... workers it starts a coordinator in this JVM and every worker in a
+ * JVM of its own, then keeps doubling the NPC games the coordinator places until
+ * the cluster ticks its games at less than MIN_TICK_RATIO of the target tick rate,
+ * and reports the most games the cluster sustained. Worker JVMs share the host, so
+ * the growth is bounded by the cores of the host.
+ * <p>
+ * Usage: ShardBenchmark [maxWorkers] [snakesPerGame] [tickMillis] [seconds]
+ */
+public final class ShardBenchmark {
+	private static final double MIN_TICK_RATIO = 0.95;
+	private static final int MAX_GAMES_PER_WORKER = 4096;
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int maxWorkers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		int snakesPerGame = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		long tickMillis = args.length > 2 ? Long.parseLong(args[2]) : 10;
+		int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+		for (int workers = 1; workers <= maxWorkers; workers *= 2) {
+			ShardCoordinator coordinator = new ShardCoordinator(0);
+			coordinator.start();
+			List<Process> processes = new ArrayList<Process>();
+			try {
+				for (int i = 0; i < workers; i++) {
+					processes.add(startWorker(coordinator.getPort(), tickMillis));
+				}
+				while (coordinator.getWorkerCount() < workers) {
+					Thread.sleep(100);
+				}
+
+				int sustained = 0;
+				double sustainedRatio = 1;
+				int games = 0;
+				for (int target = workers; target <= MAX_GAMES_PER_WORKER * workers; target *= 2) {
+					for (; games < target; games++) {
+						coordinator.assignGame(0, snakesPerGame);
+					}
+					// let every worker report a full interval with all its games ticking
+					Thread.sleep(seconds * 1000L + 2 * ShardWorker.REPORT_MILLIS);
+					double tickRatio = tickRatio(coordinator.getCapacityReport());
+					System.out.printf("%d workers: %d games ticking at %.3f of the target rate%n", workers, games,
+							tickRatio);
+					if (tickRatio < MIN_TICK_RATIO) {
+						break;
+					}
+					sustained = games;
+					sustainedRatio = tickRatio;
+				}
+				System.out.printf("%d workers sustained %d games of %d snakes at %d ms ticks (tick ratio %.3f)%n",
+						workers, sustained, snakesPerGame, tickMillis, sustainedRatio);
+			} finally {
+				for (Process process : processes) {
+					process.destroy();
+				}
+				coordinator.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Start a worker JVM on the classpath of this one.
+	 */
+	private static Process startWorker(int coordinatorPort, long tickMillis) throws IOException {
+		String java = System.getProperty("java.home") + "/bin/java";
+		ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+				"server.ShardWorker", "localhost", String.valueOf(coordinatorPort),
+				String.valueOf(MAX_GAMES_PER_WORKER), String.valueOf(tickMillis));
+		// the NPC logins of every game are printed, which would slow the workers
+		builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+		builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+		return builder.start();
+	}
+
+	/**
+	 * Get the tick ratio of a CAPACITY workers games capacity snakes tickRatio report.
+	 */
+	private static double tickRatio(String capacityReport) {
+		String[] words = capacityReport.split(" ");
+		return Double.parseDouble(words[5]);
+	}
+}
@@ -0,0 +1,140 @@
+package benchmarks;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import abstractClasses.Snake.Direction;
+import client.NPCSnake;
+import server.GameState;
+import server.GameState.GameTile;
+
+/**
+ * Benchmark for the snake storage layout. Resolves ticks of many snakes moving
+ * across a large board and reports ticks per second for the struct-of-arrays
+ * snake table in GameState against the map-of-objects layout it replaced (a map
+ * of snake models, each holding a linked list of coordinates). Snakes are spaced
+ * out and all move the same way so none die and every tick does the same work.
+ * <p>
+ * Usage: SnakeLayoutBenchmark [snakes] [boardSize] [ticks]
+ */
+public final class SnakeLayoutBenchmark {
+
+	public static void main(String[] args) {
+		int snakeCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		int boardSize = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+		int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+		if (snakeCount > boardSize * boardSize / 4) {
+			System.out.println("board too small for " + snakeCount + " snakes");
+			return;
+		}
+
+		// struct-of-arrays layout
+		GameState gameState = new GameState(boardSize);
+		int[] snakeIds = new int[snakeCount];
+		Direction[] directions = new Direction[snakeCount];
+		for (int s = 0; s < snakeCount; s++) {
+			snakeIds[s] = s + 1;
+			directions[s] = Direction.DOWN;
+			gameState.addSnakeModel(new NPCSnake(null, s + 1), row(s, boardSize), column(s, boardSize));
+		}
+		for (int t = 0; t < ticks; t++) {
+			gameState.resolveMoves(snakeIds, directions, snakeCount);
+		}
+		long start = System.nanoTime();
+		for (int t = 0; t < ticks; t++) {
+			gameState.resolveMoves(snakeIds, directions, snakeCount);
+		}
+		report("struct of arrays", ticks, System.nanoTime() - start);
+		System.out.println("snakes alive: " + gameState.getLiveSnakeCount());
+
+		// map-of-objects layout
+		MapLayout mapLayout = new MapLayout(boardSize);
+		for (int s = 0; s < snakeCount; s++) {
+			mapLayout.addSnake(s + 1, row(s, boardSize), column(s, boardSize));
+		}
+		for (int t = 0; t < ticks; t++) {
+			mapLayout.tick();
+		}
+		start = System.nanoTime();
+		for (int t = 0; t < ticks; t++) {
+			mapLayout.tick();
+		}
+		report("map of objects", ticks, System.nanoTime() - start);
+	}
+
+	// snakes on every fourth column so no two ever meet
+	private static int row(int s, int boardSize) {
+		return s / (boardSize / 4);
+	}
+
+	private static int column(int s, int boardSize) {
+		return s % (boardSize / 4) * 4;
+	}
+
+	private static void report(String name, int ticks, long nanos) {
+		System.out.printf("%-18s %,10.0f ticks/s%n", name + ":", ticks / (nanos / 1e9));
+	}
+
+	/**
+	 * Replica of the map-of-objects snake storage and its move resolution, kept
+	 * here as the baseline.
+	 */
+	private static final class MapLayout {
+		private final int boardSize;
+		private final GameTile[][] gameBoard;
+		private final ConcurrentHashMap<Integer, LinkedList<int[]>> snakeModels;
+
+		MapLayout(int boardSize) {
+			this.boardSize = boardSize;
+			gameBoard = new GameTile[boardSize][boardSize];
+			snakeModels = new ConcurrentHashMap<Integer, LinkedList<int[]>>();
+		}
+
+		void addSnake(int snakeId, int row, int column) {
+			LinkedList<int[]> model = new LinkedList<int[]>();
+			model.offerFirst(new int[] { row, column });
+			gameBoard[row][column] = GameTile.SNAKE;
+			snakeModels.put(snakeId, model);
+		}
+
+		void tick() {
+			TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+			for (Integer snakeId : snakeModels.keySet()) {
+				moves.put(snakeId, Direction.DOWN);
+			}
+
+			int moveCount = moves.size();
+			LinkedList<?>[] movers = new LinkedList<?>[moveCount];
+			int[][] newHeads = new int[moveCount][];
+			boolean[] collided = new boolean[moveCount];
+			HashMap<Integer, Integer> headCounts = new HashMap<Integer, Integer>(moveCount * 2);
+			int i = 0;
+			for (Map.Entry<Integer, Direction> move : moves.entrySet()) {
+				LinkedList<int[]> model = snakeModels.get(move.getKey());
+				int[] head = model.getFirst();
+				movers[i] = model;
+				newHeads[i] = new int[] { head[0], (head[1] + 1) % boardSize };
+				headCounts.merge(newHeads[i][0] * boardSize + newHeads[i][1], 1, Integer::sum);
+				i++;
+			}
+			for (i = 0; i < moveCount; i++) {
+				int[] newHead = newHeads[i];
+				collided[i] = headCounts.get(newHead[0] * boardSize + newHead[1]) > 1
+						|| gameBoard[newHead[0]][newHead[1]] == GameTile.SNAKE;
+			}
+			for (i = 0; i < moveCount; i++) {
+				if (!collided[i]) {
+					@SuppressWarnings("unchecked")
+					LinkedList<int[]> model = (LinkedList<int[]>) movers[i];
+					int[] tail = model.removeLast();
+					gameBoard[tail[0]][tail[1]] = null;
+					gameBoard[newHeads[i][0]][newHeads[i][1]] = GameTile.SNAKE;
+					model.offerFirst(newHeads[i]);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package benchmarks;
+
+import client.NPCSnake;
+import server.AllocationGauge;
+import server.GameSnapshot;
+import server.GameState;
+
+/**
+ * Benchmark for publishing game state to clients. Publishes ticks to a number
+ * of consumers, each holding its snapshot until the next tick like a client
+ * still rendering, and reports the bytes allocated per tick by the publishing
+ * thread. Compares pooled snapshots against copying the game state for every
+ * consumer.
+ * <p>
+ * Usage: SnapshotPublishBenchmark [snakes] [consumers] [ticks]
+ */
+public final class SnapshotPublishBenchmark {
+
+	public static void main(String[] args) {
+		int snakeCount = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int consumers = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+		if (!AllocationGauge.isSupported()) {
+			System.out.println("per-thread allocation not supported on this JVM");
+			return;
+		}
+
+		GameState gameState = new GameState();
+		for (int s = 0; s < snakeCount; s++) {
+			gameState.addSnakeModel(new NPCSnake(null, s + 1), s / GameState.GAME_SIZE, s % GameState.GAME_SIZE);
+		}
+
+		// pooled snapshots - warm up then measure
+		GameSnapshot[] held = new GameSnapshot[consumers];
+		publishPooled(gameState, held, ticks);
+		AllocationGauge gauge = new AllocationGauge();
+		publishPooled(gameState, held, ticks);
+		report("pooled snapshots", gauge.getBytesAllocated(), ticks);
+		System.out.println("snapshots created: " + gameState.getSnapshotsCreated());
+
+		// copy per consumer, as before pooling
+		GameState[] copies = new GameState[consumers];
+		publishCopies(gameState, copies, ticks / 10);
+		gauge.reset();
+		publishCopies(gameState, copies, ticks / 10);
+		report("copy per consumer", gauge.getBytesAllocated(), ticks / 10);
+	}
+
+	/**
+	 * Publish ticks, each consumer releasing its previous snapshot as it takes the next.
+	 */
+	private static void publishPooled(GameState gameState, GameSnapshot[] held, int ticks) {
+		for (int t = 0; t < ticks; t++) {
+			gameState.swapBuffers();
+			for (int c = 0; c < held.length; c++) {
+				if (held[c] != null) {
+					held[c].release();
+				}
+				held[c] = gameState.acquireSnapshot();
+			}
+		}
+	}
+
+	private static void publishCopies(GameState gameState, GameState[] copies, int ticks) {
+		for (int t = 0; t < ticks; t++) {
+			gameState.swapBuffers();
+			for (int c = 0; c < copies.length; c++) {
+				copies[c] = new GameState(gameState);
+			}
+		}
+	}
+
+	private static void report(String name, long bytes, int ticks) {
+		System.out.printf("%-18s %,12.0f bytes/tick%n", name + ":", bytes / (double) ticks);
+	}
+}
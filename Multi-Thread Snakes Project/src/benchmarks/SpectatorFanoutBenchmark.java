@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import abstractClasses.Snake.Direction;
+import client.NPCSnake;
+import server.GameState;
+import server.Spectator;
+import server.SpectatorFeed;
+import server.SpectatorFrame;
+
+/**
+ * Benchmark for the spectator feed. Publishes ticks of a game to growing numbers
+ * of spectators and reports the time the tick spends handing its snapshot to the
+ * feed, which should stay flat, and the time to encode and fan out each frame.
+ * <p>
+ * Usage: SpectatorFanoutBenchmark [maxSpectators] [ticks]
+ */
+public final class SpectatorFanoutBenchmark {
+
+	public static void main(String[] args) throws InterruptedException, ExecutionException {
+		int maxSpectators = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+		ExecutorService feedExecutor = Executors.newSingleThreadExecutor();
+		try {
+			for (int spectators = 1; spectators <= maxSpectators; spectators *= 10) {
+				run(feedExecutor, spectators, ticks);
+			}
+		} finally {
+			feedExecutor.shutdown();
+		}
+	}
+
+	private static void run(ExecutorService feedExecutor, int spectators, int ticks)
+			throws InterruptedException, ExecutionException {
+		GameState gameState = new GameState();
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		for (int s = 0; s < 10; s++) {
+			// one snake per row, moving along its row
+			gameState.addSnakeModel(new NPCSnake(null, s + 1), s * 2, 0);
+			moves.put(s + 1, Direction.DOWN);
+		}
+		SpectatorFeed feed = new SpectatorFeed(GameState.GAME_SIZE, feedExecutor);
+		CountingSpectator[] viewers = new CountingSpectator[spectators];
+		for (int v = 0; v < spectators; v++) {
+			viewers[v] = new CountingSpectator();
+			feed.addSpectator(viewers[v]);
+		}
+
+		long offerNanos = 0;
+		long start = System.nanoTime();
+		for (int t = 0; t < ticks; t++) {
+			gameState.resolveMoves(moves);
+			gameState.swapBuffers();
+			gameState.endTick(t);
+			long offerStart = System.nanoTime();
+			feed.offer(gameState, t);
+			offerNanos += System.nanoTime() - offerStart;
+			// wait for the fan-out so every frame reaches every spectator
+			feedExecutor.submit(() -> {
+			}).get();
+		}
+		long totalNanos = System.nanoTime() - start;
+
+		System.out.printf("%,7d spectators: offer %,8.0f ns/tick, encode + fan-out %,10.0f ns/frame, %,d bytes/frame%n",
+				spectators, offerNanos / (double) ticks, totalNanos / (double) ticks, viewers[0].bytes / ticks);
+	}
+
+	/**
+	 * Spectator that takes every frame and counts its bytes.
+	 */
+	private static final class CountingSpectator implements Spectator {
+		long bytes;
+
+		public boolean offerFrame(SpectatorFrame frame) {
+			bytes += frame.getLength();
+			return true;
+		}
+	}
+}
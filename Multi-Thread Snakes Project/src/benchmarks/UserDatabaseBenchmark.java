@@ -0,0 +1,103 @@
+package benchmarks;
+
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import server.PlayerDetails;
+import server.UserDatabase;
+
+/**
+ * Benchmark for login lookups against the user database. Bulk imports a number
+ * of accounts then runs concurrent authenticating threads for a fixed time and
+ * reports login lookups per second.
+ * <p>
+ * Usage: UserDatabaseBenchmark [accounts] [threads] [seconds]
+ */
+public final class UserDatabaseBenchmark {
+	private static final int ENCRYPTION_KEY = 5;
+
+	public static void main(String[] args) throws InterruptedException {
+		int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+		int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+		UserDatabase userDB = new UserDatabase();
+
+		// bulk import accounts
+		long importStart = System.nanoTime();
+		userDB.importPlayers(new AccountIterator(accounts));
+		long importMillis = (System.nanoTime() - importStart) / 1_000_000;
+		System.out.println("Imported " + userDB.size() + " accounts in " + importMillis + " ms");
+
+		// pre-encrypt a pool of login attempts so the benchmark measures lookups only
+		PlayerDetails[] logins = new PlayerDetails[4096];
+		for (int i = 0; i < logins.length; i++) {
+			int account = ThreadLocalRandom.current().nextInt(accounts);
+			logins[i] = account(account).encrypt(ENCRYPTION_KEY);
+		}
+
+		LongAdder lookups = new LongAdder();
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch finished = new CountDownLatch(threads);
+		long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+		for (int t = 0; t < threads; t++) {
+			Thread worker = new Thread(() -> {
+				try {
+					start.await();
+					int i = ThreadLocalRandom.current().nextInt(logins.length);
+					while (System.nanoTime() < deadline) {
+						if (!userDB.authenticate(logins[i], ENCRYPTION_KEY)) {
+							throw new IllegalStateException("login failed for account " + i);
+						}
+						lookups.increment();
+						i = (i + 1) % logins.length;
+					}
+				} catch (InterruptedException e) {
+					// stop this worker
+				} finally {
+					finished.countDown();
+				}
+			}, "Auth-Bench-" + t);
+			worker.start();
+		}
+
+		start.countDown();
+		finished.await();
+
+		System.out.println(threads + " threads: " + (lookups.sum() / seconds) + " login lookups/sec");
+		userDB.close();
+	}
+
+	/**
+	 * Unencrypted details for the benchmark account with the given number.
+	 */
+	private static PlayerDetails account(int number) {
+		return new PlayerDetails("player" + number, "[" + number + "]");
+	}
+
+	/**
+	 * Generates benchmark accounts on demand so the import never holds them all
+	 * in memory.
+	 */
+	private static final class AccountIterator implements Iterator<PlayerDetails> {
+		private final int accounts;
+		private int next;
+
+		AccountIterator(int accounts) {
+			this.accounts = accounts;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next < accounts;
+		}
+
+		@Override
+		public PlayerDetails next() {
+			return account(next++);
+		}
+	}
+}
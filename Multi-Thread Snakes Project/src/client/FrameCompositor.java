@@ -0,0 +1,185 @@
+package client;
+
+import static server.GameState.GAME_SIZE;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.Timer;
+
+import abstractClasses.ViewController.DisplayPanel;
+import server.GameSnapshot;
+
+/**
+ * Draws the frames of every local player window from one timer on the event
+ * dispatch thread. Each timer fire is a single EDT task that takes every players
+ * newest game state, builds the interpolated frame once for each pair of game
+ * states shared by the players - local players of one game are handed the same
+ * snapshot every tick - and draws it to every window, colouring each players own
+ * snake. The work on the EDT grows with the number of distinct game states, not
+ * the number of local players.
+ * <p>
+ * Only used on the event dispatch thread.
+ */
+public final class FrameCompositor {
+	public static final int DEFAULT_FRAME_RATE = 60; // frames drawn per second
+	private static FrameCompositor defaultCompositor;
+
+	private final List<PlayerWindow> playerWindows;
+	private final FrameInterpolator frameInterpolator;
+	private final Timer frameTimer; // draws frames independent of the server tick rate
+	private long framesBuilt;
+	// the game states and frame time the interpolator last built from
+	private GameSnapshot builtPrevious;
+	private GameSnapshot builtLatest;
+	private int builtPreviousTick;
+	private int builtLatestTick;
+	private long builtTime;
+
+	/**
+	 * CONSTRUCTOR for a frame compositor drawing at the default frame rate.
+	 */
+	public FrameCompositor() {
+		playerWindows = new ArrayList<PlayerWindow>();
+		frameInterpolator = new FrameInterpolator(GAME_SIZE);
+		frameTimer = new Timer(1000 / DEFAULT_FRAME_RATE, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent ae) {
+				compose(System.nanoTime());
+			}
+		});
+	}
+
+	/**
+	 * Get the compositor shared by all local player windows.
+	 */
+	public static FrameCompositor getDefault() {
+		if (defaultCompositor == null) {
+			defaultCompositor = new FrameCompositor();
+		}
+		return defaultCompositor;
+	}
+
+	/**
+	 * Start drawing frames of a player snake to its display panel. The frame timer
+	 * starts with the first window. A player rejoining the game keeps its window.
+	 *
+	 * @param playerSnake  the player snake taking game states from the server
+	 * @param displayPanel the panel to draw the players frames to
+	 */
+	public void addPlayer(PlayerSnake playerSnake, DisplayPanel displayPanel) {
+		if (playerWindows.stream().anyMatch(playerWindow -> playerWindow.playerSnake == playerSnake)) {
+			return;
+		}
+		playerWindows.add(new PlayerWindow(playerSnake, displayPanel));
+		if (!frameTimer.isRunning()) {
+			frameTimer.start();
+		}
+	}
+
+	/**
+	 * Stop drawing frames of a player snake. The frame timer stops with the last
+	 * window.
+	 *
+	 * @param playerSnake the player snake to stop drawing
+	 * @return true if the player snake was being drawn
+	 */
+	public boolean removePlayer(PlayerSnake playerSnake) {
+		boolean removed = playerWindows.removeIf(playerWindow -> playerWindow.playerSnake == playerSnake);
+		if (playerWindows.isEmpty()) {
+			frameTimer.stop();
+			// let go of pooled game states
+			builtPrevious = null;
+			builtLatest = null;
+		}
+		return removed;
+	}
+
+	/**
+	 * Draw the frame for the given time to every player window and repaint the windows
+	 * that changed. Called by the frame timer.
+	 *
+	 * @param now frame time, from System.nanoTime()
+	 * @return the number of windows drawn
+	 */
+	public int compose(long now) {
+		int drawn = 0;
+		for (PlayerWindow playerWindow : playerWindows) {
+			if (playerWindow.playerSnake.drawFrame(this, playerWindow.displayPanel, now)) {
+				playerWindow.displayPanel.repaint();
+				drawn++;
+			}
+		}
+		return drawn;
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	/**
+	 * Set the number of frames drawn per second, independent of the server tick rate.
+	 *
+	 * @param frameRate frames per second, 1 to 1000
+	 */
+	public void setFrameRate(int frameRate) {
+		if (frameRate < 1 || frameRate > 1000) {
+			throw new IllegalArgumentException("frame rate " + frameRate + " not between 1 and 1000");
+		}
+		frameTimer.setDelay(1000 / frameRate);
+	}
+
+	public int getPlayerCount() {
+		return playerWindows.size();
+	}
+
+	/**
+	 * Get the number of frames interpolated, once per distinct pair of game states
+	 * and frame time however many windows drew them.
+	 */
+	public long getFramesBuilt() {
+		return framesBuilt;
+	}
+
+	/**
+	 * Build the frame part way between two game states, unless it was already built
+	 * for another window this frame. Called by a player snake holding its lock, so
+	 * the game states cannot be released while they are read.
+	 *
+	 * @param previous the older game state, or null
+	 * @param latest   the newer game state
+	 * @param alpha    fraction of the tick interval passed since the latest game state
+	 * @param now      frame time, from System.nanoTime()
+	 * @return the interpolator holding the built frame
+	 */
+	FrameInterpolator buildFrame(GameSnapshot previous, GameSnapshot latest, double alpha, long now) {
+		// snapshots are pooled - the tick tells a reused snapshot from the one built
+		int previousTick = previous == null ? -1 : previous.getTick();
+		if (latest != builtLatest || latest.getTick() != builtLatestTick || previous != builtPrevious
+				|| previousTick != builtPreviousTick || now != builtTime) {
+			frameInterpolator.interpolate(previous, latest, alpha);
+			framesBuilt++;
+			builtPrevious = previous;
+			builtLatest = latest;
+			builtPreviousTick = previousTick;
+			builtLatestTick = latest.getTick();
+			builtTime = now;
+		}
+		return frameInterpolator;
+	}
+
+	// ========== INNER WORKER CLASSES ==========
+
+	/**
+	 * A player snake and the panel its frames are drawn to.
+	 */
+	private static final class PlayerWindow {
+		final PlayerSnake playerSnake;
+		final DisplayPanel displayPanel;
+
+		PlayerWindow(PlayerSnake playerSnake, DisplayPanel displayPanel) {
+			this.playerSnake = playerSnake;
+			this.displayPanel = displayPanel;
+		}
+	}
+}
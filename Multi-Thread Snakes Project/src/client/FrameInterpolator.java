@@ -0,0 +1,276 @@
+package client;
+
+import static java.awt.Color.BLUE;
+import static java.awt.Color.CYAN;
+import static java.awt.Color.GREEN;
+import static java.awt.Color.RED;
+import static java.awt.Color.WHITE;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+import abstractClasses.Snake.Direction;
+import abstractClasses.ViewController.DisplayPanel;
+import server.GameSnapshot;
+import server.GameState.GameTile;
+
+/**
+ * Builds display frames in between two server ticks, so the client can draw at
+ * the display refresh rate whatever the server tick rate. A frame shows the
+ * older tick moving towards the newer one: every snake head slides into its new
+ * tile and every vacated tail tile shrinks away, by the fraction of the tick
+ * interval that has passed. Frames are built into reused buffers - whole tiles
+ * in a colour matrix and sliding head and tail tiles as partial cells.
+ * <p>
+ * A built frame is the same for every player of a game apart from which snake
+ * is coloured as the players own, so one frame is built per pair of snapshots
+ * and frame time and then drawn for each local player.
+ */
+public final class FrameInterpolator {
+	private final int boardSize;
+	private final GameTile[][] previousTiles;
+	private final GameTile[][] latestTiles;
+	private final Color[][] cellColors; // colour of tiles without a snake
+	private final int[][] cellSnakes; // id of the snake on each tile, -1 for none
+	// partial cells - a part of a tile anchored to one of its edges
+	private int partialCount;
+	private int[] partialRows;
+	private int[] partialColumns;
+	private int[] partialSnakes;
+	private Direction[] partialEdges;
+	private double[] partialFractions;
+
+	/**
+	 * CONSTRUCTOR for a frame interpolator.
+	 *
+	 * @param boardSize number of rows and columns on the game board
+	 */
+	public FrameInterpolator(int boardSize) {
+		this.boardSize = boardSize;
+		previousTiles = new GameTile[boardSize][boardSize];
+		latestTiles = new GameTile[boardSize][boardSize];
+		cellColors = new Color[boardSize][boardSize];
+		cellSnakes = new int[boardSize][boardSize];
+		partialRows = new int[8];
+		partialColumns = new int[8];
+		partialSnakes = new int[8];
+		partialEdges = new Direction[8];
+		partialFractions = new double[8];
+	}
+
+	/**
+	 * Build the frame a fraction of the way from the previous tick to the latest tick.
+	 *
+	 * @param previous the older snapshot, or null to draw the latest snapshot as it is
+	 * @param latest   the newer snapshot
+	 * @param alpha    fraction of the tick interval passed since the latest snapshot
+	 *                 arrived, 0 draws the previous tick and 1 the latest
+	 */
+	public void interpolate(GameSnapshot previous, GameSnapshot latest, double alpha) {
+		alpha = Math.max(0, Math.min(1, alpha));
+		partialCount = 0;
+		latest.copyRegion(0, 0, boardSize, boardSize, latestTiles);
+		for (int row = 0; row < boardSize; row++) {
+			Arrays.fill(cellSnakes[row], -1);
+			for (int column = 0; column < boardSize; column++) {
+				cellColors[row][column] = tileColor(latestTiles[row][column]);
+			}
+		}
+		placeSnakes(latest);
+		if (previous == null || alpha == 1) {
+			return;
+		}
+
+		previous.copyRegion(0, 0, boardSize, boardSize, previousTiles);
+		for (int index = 0; index < latest.getSnakeCount(); index++) {
+			int oldIndex = previous.indexOf(latest.getSnakeId(index));
+			int length = latest.getSnakeLength(index);
+			if (oldIndex < 0 || length == 0 || previous.getSnakeLength(oldIndex) == 0) {
+				continue;
+			}
+			int oldHead = previous.getSnakeTile(oldIndex, 0);
+			int newHead = latest.getSnakeTile(index, 0);
+			Direction move = step(oldHead, newHead);
+			if (move == null) {
+				// respawned or did not move
+				continue;
+			}
+			int snakeId = latest.getSnakeId(index);
+
+			// head slides into its new tile over what was there before
+			int headRow = newHead / boardSize;
+			int headColumn = newHead % boardSize;
+			cellSnakes[headRow][headColumn] = -1;
+			cellColors[headRow][headColumn] = tileColor(previousTiles[headRow][headColumn]);
+			addPartial(headRow, headColumn, snakeId, opposite(move), alpha);
+
+			// vacated tail tile shrinks towards the rest of the body
+			int oldLength = previous.getSnakeLength(oldIndex);
+			int oldTail = previous.getSnakeTile(oldIndex, oldLength - 1);
+			int tailRow = oldTail / boardSize;
+			int tailColumn = oldTail % boardSize;
+			if (latestTiles[tailRow][tailColumn] != GameTile.SNAKE) {
+				int towards = oldLength > 1 ? previous.getSnakeTile(oldIndex, oldLength - 2) : newHead;
+				Direction tailMove = step(oldTail, towards);
+				if (tailMove != null) {
+					addPartial(tailRow, tailColumn, snakeId, tailMove, 1 - alpha);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Draw the last built frame to a display panel for a player.
+	 *
+	 * @param displayPanel the players panel
+	 * @param playerId     id of the players own snake, coloured cyan - other snakes are blue
+	 */
+	public void drawTo(DisplayPanel displayPanel, int playerId) {
+		for (int row = 0; row < boardSize; row++) {
+			for (int column = 0; column < boardSize; column++) {
+				displayPanel.fillCell(row, column, getCellColor(row, column, playerId));
+			}
+		}
+		displayPanel.clearCellParts();
+		for (int i = 0; i < partialCount; i++) {
+			displayPanel.fillCellPart(partialRows[i], partialColumns[i], snakeColor(partialSnakes[i], playerId),
+					partialEdges[i], partialFractions[i]);
+		}
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	/**
+	 * Get the colour of a whole tile of the last built frame.
+	 *
+	 * @param playerId id of the snake coloured as the players own
+	 */
+	public Color getCellColor(int row, int column, int playerId) {
+		int snakeId = cellSnakes[row][column];
+		return snakeId < 0 ? cellColors[row][column] : snakeColor(snakeId, playerId);
+	}
+
+	/**
+	 * Get the number of partial cells in the last built frame.
+	 */
+	public int getPartialCount() {
+		return partialCount;
+	}
+
+	public int getPartialRow(int i) {
+		return partialRows[i];
+	}
+
+	public int getPartialColumn(int i) {
+		return partialColumns[i];
+	}
+
+	/**
+	 * Get the edge of its tile a partial cell is anchored to.
+	 */
+	public Direction getPartialEdge(int i) {
+		return partialEdges[i];
+	}
+
+	/**
+	 * Get the fraction of its tile a partial cell covers.
+	 */
+	public double getPartialFraction(int i) {
+		return partialFractions[i];
+	}
+
+	// ================ PRIVATE METHODS ================
+
+	private void placeSnakes(GameSnapshot snapshot) {
+		for (int index = 0; index < snapshot.getSnakeCount(); index++) {
+			int snakeId = snapshot.getSnakeId(index);
+			for (int i = 0; i < snapshot.getSnakeLength(index); i++) {
+				int tile = snapshot.getSnakeTile(index, i);
+				cellSnakes[tile / boardSize][tile % boardSize] = snakeId;
+			}
+		}
+	}
+
+	private void addPartial(int row, int column, int snakeId, Direction edge, double fraction) {
+		if (partialCount == partialRows.length) {
+			int capacity = partialCount * 2;
+			partialRows = Arrays.copyOf(partialRows, capacity);
+			partialColumns = Arrays.copyOf(partialColumns, capacity);
+			partialSnakes = Arrays.copyOf(partialSnakes, capacity);
+			partialEdges = Arrays.copyOf(partialEdges, capacity);
+			partialFractions = Arrays.copyOf(partialFractions, capacity);
+		}
+		partialRows[partialCount] = row;
+		partialColumns[partialCount] = column;
+		partialSnakes[partialCount] = snakeId;
+		partialEdges[partialCount] = edge;
+		partialFractions[partialCount] = fraction;
+		partialCount++;
+	}
+
+	/**
+	 * Get the direction of a one tile step between two packed tiles, wrapping
+	 * around the board edges the same way snakes do.
+	 *
+	 * @return the direction, or null if the tiles are not neighbours
+	 */
+	private Direction step(int from, int to) {
+		int fromRow = from / boardSize;
+		int fromColumn = from % boardSize;
+		int toRow = to / boardSize;
+		int toColumn = to % boardSize;
+		if (fromColumn == toColumn) {
+			if (toRow == (fromRow + 1) % boardSize) {
+				return Direction.RIGHT;
+			} else if (fromRow == (toRow + 1) % boardSize) {
+				return Direction.LEFT;
+			}
+		} else if (fromRow == toRow) {
+			if (toColumn == (fromColumn + 1) % boardSize) {
+				return Direction.DOWN;
+			} else if (fromColumn == (toColumn + 1) % boardSize) {
+				return Direction.UP;
+			}
+		}
+		return null;
+	}
+
+	private static Direction opposite(Direction direction) {
+		switch (direction) {
+
+		case UP:
+			return Direction.DOWN;
+
+		case DOWN:
+			return Direction.UP;
+
+		case LEFT:
+			return Direction.RIGHT;
+
+		default:
+			return Direction.LEFT;
+		}
+	}
+
+	private static Color snakeColor(int snakeId, int playerId) {
+		return snakeId == playerId ? CYAN : BLUE;
+	}
+
+	private static Color tileColor(GameTile tile) {
+		if (tile == null) {
+			return WHITE;
+		}
+		switch (tile) {
+
+		case FOOD_BONUS:
+			return RED;
+
+		case FOOD_MALUS:
+			return GREEN;
+
+		default:
+			// snakes are coloured from the snake bodies
+			return WHITE;
+		}
+	}
+}
@@ -0,0 +1,203 @@
+package client;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jnativehook.GlobalScreen;
+import org.jnativehook.NativeHookException;
+import org.jnativehook.keyboard.NativeKeyEvent;
+import org.jnativehook.keyboard.NativeKeyListener;
+
+import abstractClasses.Snake.Direction;
+
+/**
+ * The one global keyboard listener for all local players. Registers the native
+ * hook once and routes each key press straight to the direction buffer of the
+ * snake it is bound to, with a lookup in a table indexed by key code on the hooks
+ * dispatch thread. A key press costs the same however many players there are, and
+ * keys nobody is bound to are dropped without touching any snake.
+ * <p>
+ * Bindings are changed rarely and copied on write, so key presses never lock.
+ */
+public final class InputDispatcher implements NativeKeyListener {
+	public static final int KEY_CODES = 0x10000; // native key codes are below this
+	private static InputDispatcher defaultDispatcher;
+
+	private volatile KeyBinding[] keyBindings; // indexed by key code, copy on write
+	private boolean hookRegistered;
+	private volatile long keysDropped; // presses of unbound keys, written by the dispatch thread
+
+	/**
+	 * CONSTRUCTOR for a dispatcher with no keys bound.
+	 */
+	public InputDispatcher() {
+		keyBindings = new KeyBinding[KEY_CODES];
+	}
+
+	/**
+	 * Get the dispatcher shared by all local players.
+	 */
+	public static synchronized InputDispatcher getDefault() {
+		if (defaultDispatcher == null) {
+			defaultDispatcher = new InputDispatcher();
+		}
+		return defaultDispatcher;
+	}
+
+	/**
+	 * Register the native hook and start listening for key presses. Does nothing if
+	 * the dispatcher is already listening.
+	 */
+	public synchronized void start() {
+		if (hookRegistered) {
+			return;
+		}
+		// hook into OS io
+		try {
+			GlobalScreen.registerNativeHook();
+		} catch (NativeHookException ex) {
+			System.err.println("There was a problem registering the native hook.");
+			System.err.println(ex.getMessage());
+			System.exit(1);
+		}
+
+		// suppress spam to console from native key listener
+		Logger logger = Logger.getLogger(GlobalScreen.class.getPackage().getName());
+		logger.setLevel(Level.OFF);
+
+		GlobalScreen.addNativeKeyListener(this);
+		hookRegistered = true;
+	}
+
+	/**
+	 * Bind the keys of a scheme to a player snake, replacing any keys it was bound to
+	 * before.
+	 *
+	 * @param playerSnake the snake to move
+	 * @param keyScheme   the keys moving it
+	 * @throws IllegalArgumentException if a key is already bound to another snake - the
+	 *                                  snake keeps its old keys
+	 */
+	public synchronized void addPlayer(PlayerSnake playerSnake, KeyScheme keyScheme) {
+		KeyBinding[] bound = keyBindings.clone();
+		unbind(bound, playerSnake);
+		for (Direction direction : Direction.values()) {
+			int keyCode = keyScheme.getKeyCode(direction);
+			if (keyCode < 0 || keyCode >= KEY_CODES) {
+				throw new IllegalArgumentException("key code " + keyCode + " out of range");
+			}
+			KeyBinding existing = bound[keyCode];
+			if (existing != null && existing.playerSnake != playerSnake) {
+				throw new IllegalArgumentException(NativeKeyEvent.getKeyText(keyCode) + " is already bound to player "
+						+ existing.playerSnake.getSnakeId());
+			}
+			bound[keyCode] = new KeyBinding(playerSnake, direction);
+		}
+		keyBindings = bound;
+	}
+
+	/**
+	 * Unbind every key of a player snake.
+	 *
+	 * @param playerSnake the snake to stop moving
+	 * @return true if any key was bound to the snake
+	 */
+	public synchronized boolean removePlayer(PlayerSnake playerSnake) {
+		KeyBinding[] bound = keyBindings.clone();
+		boolean removed = unbind(bound, playerSnake);
+		keyBindings = bound;
+		return removed;
+	}
+
+	/**
+	 * Route a key press to the snake its key is bound to.
+	 *
+	 * @param keyCode native key code of the pressed key
+	 * @return true if the key moved a snake
+	 */
+	public boolean dispatch(int keyCode) {
+		KeyBinding keyBinding = keyCode >= 0 && keyCode < KEY_CODES ? keyBindings[keyCode] : null;
+		if (keyBinding == null) {
+			keysDropped++;
+			return false;
+		}
+		keyBinding.playerSnake.directionInput(keyBinding.direction);
+		return true;
+	}
+
+	/**
+	 * Invoked on the native hook dispatch thread when a key is pressed.
+	 *
+	 * @param event A globally detected key event
+	 */
+	@Override
+	public void nativeKeyPressed(NativeKeyEvent event) {
+		dispatch(event.getKeyCode());
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	/**
+	 * Get the number of bound keys.
+	 */
+	public int getBoundKeyCount() {
+		return (int) Arrays.stream(keyBindings).filter(keyBinding -> keyBinding != null).count();
+	}
+
+	/**
+	 * Get the number of key presses dropped because no snake was bound to the key.
+	 */
+	public long getKeysDropped() {
+		return keysDropped;
+	}
+
+	// ================ PRIVATE METHODS ================
+
+	/**
+	 * Clear every key of a player snake from a copy of the bindings.
+	 *
+	 * @return true if any key was bound to the snake
+	 */
+	private static boolean unbind(KeyBinding[] bound, PlayerSnake playerSnake) {
+		boolean removed = false;
+		for (int keyCode = 0; keyCode < bound.length; keyCode++) {
+			if (bound[keyCode] != null && bound[keyCode].playerSnake == playerSnake) {
+				bound[keyCode] = null;
+				removed = true;
+			}
+		}
+		return removed;
+	}
+
+	// ========== INNER WORKER CLASSES ==========
+
+	/**
+	 * The snake and direction a key is bound to.
+	 */
+	private static final class KeyBinding {
+		final PlayerSnake playerSnake;
+		final Direction direction;
+
+		KeyBinding(PlayerSnake playerSnake, Direction direction) {
+			this.playerSnake = playerSnake;
+			this.direction = direction;
+		}
+	}
+
+	// ========== UNUSED ==========
+
+	/**
+	 * Unused in this program - required to satisfy interface
+	 */
+	@Override
+	public void nativeKeyTyped(NativeKeyEvent nativeEvent) {
+	}
+
+	/**
+	 * Unused in this program - required to satisfy interface
+	 */
+	@Override
+	public void nativeKeyReleased(NativeKeyEvent nativeEvent) {
+	}
+}
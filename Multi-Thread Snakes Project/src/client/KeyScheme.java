@@ -0,0 +1,99 @@
+package client;
+
+import org.jnativehook.keyboard.NativeKeyEvent;
+
+import abstractClasses.Snake.Direction;
+
+/**
+ * The four keys controlling one player snake, as native key codes. Players 1 to
+ * 4 have default schemes sharing the keyboard without overlap; any number of
+ * further players can be given their own schemes.
+ */
+public final class KeyScheme {
+	public static final int DEFAULT_PLAYERS = 4; // players 1 to 4 have a default scheme
+	private final int up;
+	private final int down;
+	private final int left;
+	private final int right;
+	private final String description; // shown in the window title
+
+	/**
+	 * CONSTRUCTOR for a key scheme.
+	 *
+	 * @param up          native key code to move up
+	 * @param left        native key code to move left
+	 * @param down        native key code to move down
+	 * @param right       native key code to move right
+	 * @param description the keys as shown to the player, e.g. "W,A,S,D"
+	 */
+	public KeyScheme(int up, int left, int down, int right, String description) {
+		if (up == left || up == down || up == right || left == down || left == right || down == right) {
+			throw new IllegalArgumentException("key scheme " + description + " uses a key twice");
+		}
+		this.up = up;
+		this.left = left;
+		this.down = down;
+		this.right = right;
+		this.description = description;
+	}
+
+	/**
+	 * Get the default key scheme of a player.
+	 *
+	 * @param playerId the players snake id
+	 * @return the scheme, or null if the id is not 1 to DEFAULT_PLAYERS
+	 */
+	public static KeyScheme forPlayer(int playerId) {
+		switch (playerId) {
+		case 1:
+			return new KeyScheme(NativeKeyEvent.VC_W, NativeKeyEvent.VC_A, NativeKeyEvent.VC_S, NativeKeyEvent.VC_D,
+					"W,A,S,D");
+
+		case 2:
+			return new KeyScheme(NativeKeyEvent.VC_I, NativeKeyEvent.VC_J, NativeKeyEvent.VC_K, NativeKeyEvent.VC_L,
+					"I,J,K,L");
+
+		case 3:
+			return new KeyScheme(NativeKeyEvent.VC_UP, NativeKeyEvent.VC_LEFT, NativeKeyEvent.VC_DOWN,
+					NativeKeyEvent.VC_RIGHT, "ARROWS");
+
+		case 4:
+			return new KeyScheme(NativeKeyEvent.VC_8, NativeKeyEvent.VC_4, NativeKeyEvent.VC_5, NativeKeyEvent.VC_6,
+					"NUM 8,4,5,6");
+
+		default:
+			return null;
+		}
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	/**
+	 * Get the key code moving the snake in a direction.
+	 */
+	public int getKeyCode(Direction direction) {
+		switch (direction) {
+
+		case UP:
+			return up;
+
+		case DOWN:
+			return down;
+
+		case LEFT:
+			return left;
+
+		default:
+			return right;
+		}
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	@Override
+	public String toString() {
+		return description;
+	}
+}
@@ -4,7 +4,7 @@ import java.util.Random;
 
 import abstractClasses.Snake;
 import server.GameServer;
-import server.GameState;
+import server.GameSnapshot;
 
 /**
  * Runnable class for a client (non-player-character) to play the snake game.
@@ -31,8 +31,9 @@ public class NPCSnake extends Snake {
 	 * Method for the GameServer to submit gamestate updates to the client. Launches a
 	 * client thread to produce a gameBoardModel and submits it to the view-controller.
 	 */
-	public synchronized void submitGameState(GameState serverGameState) {
-		// NPC snakes don't have a display - does nothing
+	public synchronized void submitGameState(GameSnapshot serverSnapshot) {
+		// NPC snakes don't have a display - hand the snapshot straight back
+		serverSnapshot.release();
 	}
 
 	/**
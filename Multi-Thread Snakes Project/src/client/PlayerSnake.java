@@ -1,51 +1,48 @@
 package client;
 
-import static java.awt.Color.BLUE;
-import static java.awt.Color.CYAN;
-import static java.awt.Color.GREEN;
-import static java.awt.Color.RED;
-import static java.awt.Color.WHITE;
 import static javax.swing.SwingUtilities.invokeLater;
-import static server.GameState.GAME_SIZE;
 
-import java.awt.Color;
 import java.util.Arrays;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
-import org.jnativehook.keyboard.NativeKeyEvent;
+import java.util.concurrent.TimeUnit;
 
 import abstractClasses.Snake;
+import abstractClasses.ViewController.DisplayPanel;
 import server.GameServer;
-import server.GameState;
+import server.GameSnapshot;
 import server.PlayerDetails;
+import server.SessionToken;
 
 // TODO NOTE: only repaint(), revalidate() and add/remove listener methods of Swing are thread safe and should be used without invokeLater().
 //            can also use methods on components before they are set visible (before setVisible(true))
 
 /**
- * Runnable class for a client (user) to play the snake game. Supports up to 4
- * players with unique keymaps for game control. Handles all logic operations for
- * player snakes including:<p>
- * - user input validation and submission to the server.<p>
+ * Runnable class for a client (user) to play the snake game. Players 1 to 4 have
+ * default keymaps for game control and further players can be given their own.
+ * Handles all logic operations for player snakes including:<p>
+ * - taking direction input routed by the input dispatcher.<p>
  * - updating local gamestate by submitting requests to the server.<p>
- * - generation of a color matrix representing the gamestate and submission to a
- *   view-controller for display to the screen.<p>
+ * - drawing frames of the gamestate for the frame compositor to display to the
+ *   screen, interpolated between the last two server ticks so the display is
+ *   smooth at any server tick rate.<p>
+ * The player snake holds no thread of its own during play - it reacts to key
+ * presses, game state updates and lifecycle callbacks from the server.
  */
 public class PlayerSnake extends Snake {
-	private static int snakeEncryptionKey;
-	private GameState localGameState;
-	private Boolean authenticated;
+	private final int snakeEncryptionKey;
+	private final StateMailbox mailbox; // newest game state not yet taken by the frame compositor
+	// frame state - guarded by the snake lock, only contended at game over
+	private GameSnapshot localSnapshot; // latest game state taken from the mailbox, null before the first tick
+	private GameSnapshot previousSnapshot; // game state taken before it, null before the second tick
+	private long latestArrival; // System.nanoTime() the latest game state arrived
+	private double tickInterval; // smoothed nanoseconds between game state arrivals
+	private boolean frameSettled; // the latest game state has been drawn without interpolation
+	private volatile boolean gameOver; // set once, frames then go to the final frame instead of the compositor
+	private volatile Boolean authenticated;
 	private PlayerDetails playerDetails;
+	private volatile SessionToken session; // reused to rejoin without logging in again
 
-	private static ExecutorService playerExecutor;
-	private volatile Color[][] gameBoardModel; // displayable model of gamestate
 	private PlayerVC playerVC; // for display and user input capture (view-controller)
-	// control scheme variables
-	private int up;
-	private int down;
-	private int left;
-	private int right;
+	private volatile KeyScheme keyScheme; // keys bound to this snake by the input dispatcher, null for none
 
 	/**
 	 * CONSTRUCTOR for a player controlled Snake.
@@ -57,23 +54,25 @@ public class PlayerSnake extends Snake {
 	public PlayerSnake(GameServer gameServer, int snakeId, int encryptionKey) {
 		super(gameServer, snakeId);
 		snakeEncryptionKey = encryptionKey;
-		localGameState = new GameState();
+		mailbox = new StateMailbox();
+		tickInterval = TimeUnit.MILLISECONDS.toNanos(GameServer.TICK_MILLIS);
 		authenticated = false;
 		playerDetails = new PlayerDetails();
-		playerExecutor = Executors.newCachedThreadPool();
+		keyScheme = KeyScheme.forPlayer(snakeId);
 	}
 
 	/**
-	 * Assigns player control-scheme based on snake ID and launches a view-controller
-	 * that can handle player input (control) and display to the screen (view).
-	 * Starts the login sequence on the view-controller.
+	 * Launches a view-controller that can handle player input (control) and display
+	 * to the screen (view), showing the players control scheme. Starts the login
+	 * sequence on the view-controller.
 	 */
 	@Override
 	public void run() {
 		// launch player view controller
 		playerVC = new PlayerVC(this);
-		// set player controls
-		setScheme(getSnakeId());
+		// show player controls
+		KeyScheme controls = keyScheme;
+		playerVC.setControls(controls == null ? "none" : controls.getDescription());
 		System.out.println("Player " + getSnakeId() + " running on " + Thread.currentThread().getName());
 		// launch login
 		invokeLater(new Runnable() {
@@ -85,8 +84,9 @@ public class PlayerSnake extends Snake {
 
 	/**
 	 * Accepts username and password, encrypts the details and submits them to the game server
-	 * for authentication. If player details are not authenticated; relaunches login. On successful
-	 * authentication; starts the game playing sequence in the view-controller.
+	 * for authentication. Returns without waiting for the server - if player details are not
+	 * authenticated; relaunches login. On successful authentication; starts the game playing
+	 * sequence in the view-controller.
 	 * 
 	 * @param username String of the users name
 	 * @param password 1-dimensional character array of the users password
@@ -101,234 +101,267 @@ public class PlayerSnake extends Snake {
 		PlayerDetails encryptedPlayerDetails = playerDetails.encrypt(snakeEncryptionKey);
 
 		// send player details to server for authentication
-		authenticated = gameServer.authenticate(encryptedPlayerDetails, this);
+		gameServer.authenticateAsync(encryptedPlayerDetails, this).whenComplete((newSession, error) -> {
+			if (error != null) {
+				System.out.println("login for Player " + getSnakeId() + " rejected by server: " + error.getMessage());
+			}
+			session = newSession;
+			authenticated = newSession != null;
+			if (authenticated) {
+				loginSucceeded(username);
+			} else {
+				loginFailed();
+			}
+		});
+	}
 
-		if (authenticated) {
-			invokeLater(new Runnable() {
-				public void run() {
-					playerVC.loginSuccess(username); // success pop-up window
-				}
-			});
+	/**
+	 * Rejoin the game server with the session token from a previous successful login.
+	 * 
+	 * @return true if the session was still valid and the snake rejoined the game
+	 */
+	public boolean resumeSession() {
+		SessionToken previousSession = session;
+		if (previousSession == null || !gameServer.resumeSession(previousSession.getToken(), this)) {
+			return false;
+		}
+		authenticated = true;
+		loginSucceeded(previousSession.getUsername());
+		return true;
+	}
 
-			System.out.println("login details for Player " + getSnakeId() + " are authenticated");
+	/**
+	 * Start the game playing sequence after successful authentication.
+	 * 
+	 * @param username the authenticated players name
+	 */
+	private void loginSucceeded(String username) {
+		invokeLater(new Runnable() {
+			public void run() {
+				playerVC.loginSuccess(username); // success pop-up window
+			}
+		});
 
-			// start playing the game on player executor service - to avoid running on VC
-			// thread pool
-			playerExecutor.submit(new GameStartWorker());
+		System.out.println("login details for Player " + getSnakeId() + " are authenticated");
 
-			// launch listener for player keyboard input during gameplay on view-controller
-			invokeLater(new Runnable() {
-				public void run() {
-					playerVC.startGame();
-				}
-			});
+		// launch listener for player keyboard input during gameplay on view-controller
+		invokeLater(new Runnable() {
+			public void run() {
+				playerVC.startGame();
+			}
+		});
+	}
 
-		} else {
-			invokeLater(new Runnable() {
-				public void run() {
-					playerVC.loginFailed(); // error pop-up window
-				}
-			});
+	/**
+	 * Notify the player of failed authentication and relaunch login.
+	 */
+	private void loginFailed() {
+		invokeLater(new Runnable() {
+			public void run() {
+				playerVC.loginFailed(); // error pop-up window
+			}
+		});
 
-			invokeLater(new Runnable() {
-				public void run() {
-					playerVC.showLogin(); // relaunch login
-				}
-			});
-		}
+		invokeLater(new Runnable() {
+			public void run() {
+				playerVC.showLogin(); // relaunch login
+			}
+		});
 	}
 
 	/**
-	 * Wait in a loop until snake dies. Key input handled by view-controller,
-	 * Server prompts gamestate update for client.
+	 * Show the round number when a round starts. The game state has already respawned
+	 * the snake, so play restarts without logging in again.
 	 */
-	public void playGame() {
-		gameBoardModel = new Color[GAME_SIZE][GAME_SIZE];
+	@Override
+	public void onRoundStart(int round) {
+		showStatus("round " + round);
+	}
 
-		// play game until snake dies
-		while (this.isAlive()) {
-		}
-		
-		gameOver();
+	/**
+	 * Tell the player their snake has died. Game state keeps arriving so the player
+	 * can watch the rest of the round.
+	 */
+	@Override
+	public void onDeath() {
+		showStatus("dead");
 	}
 
-	private void gameOver() {
-		System.out.println("#####   Player " + snakeId + " has died!!!   - GAME OVER -   #####");		
+	/**
+	 * Tell the player the game is over. The view-controller draws the final game state,
+	 * showing how the match ended, and the last game states are released.
+	 */
+	@Override
+	public void onGameOver() {
+		gameOver = true;
+		System.out.println("Player " + snakeId + " skipped " + mailbox.getFramesSkipped() + " game states");
+		showStatus("GAME OVER");
+		showFinalFrame();
+	}
+
+	/**
+	 * Method for the GameServer to submit gamestate updates to the client. Leaves the
+	 * game state in the clients mailbox without waiting for the client, replacing any
+	 * game state the frame compositor has not taken yet. A game state arriving after
+	 * the game over is drawn as the final frame, as the compositor may have stopped.
+	 */
+	public void submitGameState(GameSnapshot serverSnapshot) {
+		mailbox.offer(serverSnapshot);
+		if (gameOver) {
+			showFinalFrame();
+		}
 	}
 
 	/**
-	 * Method for the GameServer to submit gamestate updates to the client. Launches a
-	 * client thread to produce a gameBoardModel and submits it to the view-controller.
+	 * Draw the frame for the given time to a display panel, part way between the last
+	 * two game states by the time passed since the latest one arrived. Called by the
+	 * frame compositor on the event dispatch thread, which builds the frame once for
+	 * all players holding the same game states.
+	 * 
+	 * @param compositor   the compositor building the frame
+	 * @param displayPanel the panel to draw to
+	 * @param now          frame time, from System.nanoTime()
+	 * @return true if the panel changed and must be repainted
 	 */
-	public synchronized void submitGameState(GameState serverGameState) {
-		localGameState = serverGameState;
-		playerExecutor.submit(new GameStateUpdateWorker());
+	synchronized boolean drawFrame(FrameCompositor compositor, DisplayPanel displayPanel, long now) {
+		GameSnapshot newest = mailbox.poll();
+		if (newest != null) {
+			takeGameState(newest, mailbox.getOfferedAt());
+		}
+		if (localSnapshot == null || frameSettled) {
+			return false;
+		}
+		double alpha = (now - latestArrival) / tickInterval;
+		compositor.buildFrame(previousSnapshot, localSnapshot, alpha, now).drawTo(displayPanel, getSnakeId());
+		frameSettled = alpha >= 1;
+		return true;
 	}
 
 	/**
-	 * Method to validate keycodes to see if they correspond to this snakes movement.
-	 * If valid, puts corresponding snake control to the direction buffer.
+	 * Draw the newest game state as the final frame of the game, without interpolation,
+	 * and release the game states held. Called by the view-controller on the event
+	 * dispatch thread once the game is over.
 	 * 
-	 * @param keyCode the keycode representing a keyboard button press
+	 * @param compositor   the compositor building the frame
+	 * @param displayPanel the panel to draw to
+	 * @return true if the panel changed and must be repainted
 	 */
-	protected synchronized void directionInput(int keyCode) {
-		// console display of operation
-		System.out.println(
-				"PlayerSnake.directionInput() - " + NativeKeyEvent.getKeyText(keyCode) + " registered by player "
-						+ getSnakeId() + " running in worker thread: " + Thread.currentThread().getName());
+	synchronized boolean drawFinalFrame(FrameCompositor compositor, DisplayPanel displayPanel) {
+		GameSnapshot newest = mailbox.poll();
+		if (newest != null) {
+			takeGameState(newest, mailbox.getOfferedAt());
+		}
+		if (previousSnapshot != null) {
+			previousSnapshot.release();
+			previousSnapshot = null;
+		}
+		if (localSnapshot == null) {
+			return false;
+		}
+		compositor.buildFrame(null, localSnapshot, 1, System.nanoTime()).drawTo(displayPanel, getSnakeId());
+		localSnapshot.release();
+		localSnapshot = null;
+		frameSettled = true;
+		return true;
+	}
 
+	/**
+	 * Put a direction from one of this snakes keys to the direction buffer. Called by
+	 * the input dispatcher, which has already matched the key to this snake.
+	 * 
+	 * @param direction the direction bound to the pressed key
+	 */
+	protected void directionInput(Direction direction) {
 		try {
-			if (keyCode == up) {
-				directionBufferProduce(Direction.UP);
-			} else if (keyCode == left) {
-				directionBufferProduce(Direction.LEFT);
-			} else if (keyCode == down) {
-				directionBufferProduce(Direction.DOWN);
-			} else if (keyCode == right) {
-				directionBufferProduce(Direction.RIGHT);
-			} else {
-				// do nothing - not part of this snakes control scheme
-			}
+			directionBufferProduce(direction);
 		} catch (InterruptedException ie) {
 			System.out.println("Player " + getSnakeId() + " interrupted while waiting to put Direction on buffer");
+			Thread.currentThread().interrupt();
 		}
 	}
 
-	// ========== PRIVATE METHODS ==========
-
-	// TODO make game server draw gameboard so this method has something to draw.
-	// Currently localGameState.gameBoard is always empty.
 	/**
-	 * Generate a java.awt.Color array to represent the game board from current game state.
-	 * Player snake will be coloured cyan while other snakes are blue. The color
-	 * array can be passed to the View-Controller for display to the screen.
+	 * Set the keys controlling this snake. Takes effect when the game starts.
+	 * 
+	 * @param keyScheme the keys, or null for none
 	 */
-	private synchronized Color[][] buildGameBoardModel() {
-		// create color matrix
-		Color[][] colorMatrix = new Color[GAME_SIZE][GAME_SIZE];
-
-		// colour game tiles from gamestate
-		for (int row = 0; row < gameBoardModel.length; row++) {
-			for (int col = 0; col < gameBoardModel.length; col++) {
-				if (localGameState.getGameTile(row, col) != null) {
-					switch (localGameState.getGameTile(row, col)) {
-
-					case SNAKE:
-						// if it is players snake colour it cyan
-						if (localGameState.givenSnakeOccupies(this.getSnakeId(), row, col)) {
-							colorMatrix[row][col] = CYAN;
-						} else {
-							// colour other snakes blue
-							colorMatrix[row][col] = BLUE;
-						}
-						break;
-
-					case FOOD_BONUS:
-						colorMatrix[row][col] = RED;
-						break;
-
-					case FOOD_MALUS:
-						colorMatrix[row][col] = GREEN;
-						break;
-
-					default:
-						// cannot get here
-						break;
-					}
-				} else {
-					colorMatrix[row][col] = WHITE;
-				}
-			}
-		}
-		return colorMatrix;
+	public void setKeyScheme(KeyScheme keyScheme) {
+		this.keyScheme = keyScheme;
 	}
 
 	/**
-	 * Sets the player control scheme according to player id and displays a message
-	 * to the console to inform the player of their control scheme. Also sets
-	 * control scheme string in player view-controller for display in the window title.
+	 * Get the keys controlling this snake.
 	 * 
-	 * @param snakeId The players snake identification number
+	 * @return the key scheme, or null if the snake has no keys
 	 */
-	private void setScheme(int snakeId) {
-		switch (snakeId) {
-		case 1:
-			up = NativeKeyEvent.VC_W;
-			left = NativeKeyEvent.VC_A;
-			down = NativeKeyEvent.VC_S;
-			right = NativeKeyEvent.VC_D;
-			playerVC.setControls("W,A,S,D");
-			break;
-
-		case 2:
-			up = NativeKeyEvent.VC_I;
-			left = NativeKeyEvent.VC_J;
-			down = NativeKeyEvent.VC_K;
-			right = NativeKeyEvent.VC_L;
-			playerVC.setControls("I,J,K,L");
-			break;
-
-		case 3:
-			up = NativeKeyEvent.VC_UP;
-			left = NativeKeyEvent.VC_LEFT;
-			down = NativeKeyEvent.VC_DOWN;
-			right = NativeKeyEvent.VC_RIGHT;
-			playerVC.setControls("ARROWS");
-			break;
-
-		case 4:
-			up = NativeKeyEvent.VC_8;
-			left = NativeKeyEvent.VC_4;
-			down = NativeKeyEvent.VC_5;
-			right = NativeKeyEvent.VC_6;
-			playerVC.setControls("NUM 8,4,5,6");
-			break;
+	public KeyScheme getKeyScheme() {
+		return keyScheme;
+	}
 
-		default:
-			// cannot get here
-		}
+	/**
+	 * Get the number of game states replaced in the mailbox before a frame was drawn
+	 * from them.
+	 */
+	public long getFramesSkipped() {
+		return mailbox.getFramesSkipped();
 	}
 
-	// ========== INNER WORKER CLASSES ==========
+	// ========== PRIVATE METHODS ==========
 
 	/**
-	 * Worker class to start playing the game on the playerSnake executor service.
+	 * Make a game state taken from the mailbox the latest, keeping the one before it
+	 * to interpolate from. Caller must hold the snake lock.
 	 */
-	private class GameStateUpdateWorker extends Thread {
-
-		/**
-		 * Construct a Worker to start playing the game on the playerSnake executor service.
-		 */
-		public GameStateUpdateWorker() {
+	private void takeGameState(GameSnapshot newest, long arrival) {
+		if (previousSnapshot != null) {
+			previousSnapshot.release();
 		}
+		if (localSnapshot != null) {
+			// smooth the tick interval so one late tick does not jerk the frames
+			tickInterval = 0.8 * tickInterval + 0.2 * (arrival - latestArrival);
+		}
+		previousSnapshot = localSnapshot;
+		localSnapshot = newest;
+		latestArrival = arrival;
+		frameSettled = false;
+	}
 
-		public void run() {
-			// build game board model
-			gameBoardModel = buildGameBoardModel();
-
-			// submit game board model to view controller for display
+	/**
+	 * Have the view-controller draw the final frame and stop the game, or release the
+	 * game states held if it has not been launched.
+	 */
+	private void showFinalFrame() {
+		if (playerVC != null) {
 			invokeLater(new Runnable() {
 				public void run() {
-					playerVC.drawGameBoard(gameBoardModel);
+					playerVC.stopGame();
 				}
 			});
+			return;
+		}
+		synchronized (this) {
+			mailbox.clear();
+			if (previousSnapshot != null) {
+				previousSnapshot.release();
+				previousSnapshot = null;
+			}
+			if (localSnapshot != null) {
+				localSnapshot.release();
+				localSnapshot = null;
+			}
 		}
 	}
 
 	/**
-	 * Worker class to start playing the game on the playerSnake executor service.
+	 * Show a game status message on the view-controller, if it has been launched.
 	 */
-	private class GameStartWorker extends Thread {
-
-		/**
-		 * Construct a Worker to start playing the game on the playerSnake executor service.
-		 */
-		public GameStartWorker() {
-		}
-
-		public void run() {
-			// play game on playerSnake executor service
-			playGame();
+	private void showStatus(String status) {
+		if (playerVC != null) {
+			invokeLater(new Runnable() {
+				public void run() {
+					playerVC.setStatus(status);
+				}
+			});
 		}
 	}
 }
@@ -5,9 +5,6 @@ import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 import javax.swing.JButton;
 import javax.swing.JFrame;
@@ -17,13 +14,9 @@ import javax.swing.JPasswordField;
 import javax.swing.JTextField;
 import javax.swing.WindowConstants;
 
-import org.jnativehook.GlobalScreen;
-import org.jnativehook.NativeHookException;
-import org.jnativehook.dispatcher.SwingDispatchService;
-import org.jnativehook.keyboard.NativeKeyEvent;
-import org.jnativehook.keyboard.NativeKeyListener;
-
 import abstractClasses.ViewController;
+import server.ExecutorRegistry;
+import server.ExecutorRegistry.Pool;
 
 /**
  * View-Controller class for human controlled players of the game of snake.
@@ -31,10 +24,10 @@ import abstractClasses.ViewController;
  * display in seperate windows.
  */
 @SuppressWarnings("serial")
-public class PlayerVC extends ViewController implements NativeKeyListener {
+public class PlayerVC extends ViewController {
 	private PlayerSnake playerSnake;
 	private String controls = "";
-	private static ExecutorService playerVCExecutor = Executors.newCachedThreadPool();
+	private static final ExecutorService playerVCExecutor = ExecutorRegistry.getDefault().get(Pool.INPUT);
 
 	/**
 	 * CONSTRUCTOR for player View-Controller.
@@ -105,7 +98,7 @@ public class PlayerVC extends ViewController implements NativeKeyListener {
 				if (ae.getActionCommand().equals("SUBMIT")) {
 					loginFrame.setVisible(false);
 					// start a worker thread to process user input and free EDT
-					playerVCExecutor.submit(new SubmitWorker(userName_text.getText(), password_text.getPassword()));
+					playerVCExecutor.execute(new SubmitWorker(userName_text.getText(), password_text.getPassword()));
 				}
 			}
 		};
@@ -113,31 +106,39 @@ public class PlayerVC extends ViewController implements NativeKeyListener {
 	}
 
 	/**
-	 * Creates a global listener which registers user input on keyboard. Also starts
-	 * a thread to play the game for the player snake.
+	 * Binds the players keys on the global input dispatcher, which registers user
+	 * input on keyboard. Also adds the window to the frame compositor that draws the
+	 * game for the player snake.
 	 */
 	public void startGame() {
 		System.out.println("Player " + playerSnake.getSnakeId() + " View-Controller is running on "
 				+ Thread.currentThread().getName());
-		
-		// Set the event dispatcher to a swing safe executor service.
-		GlobalScreen.setEventDispatcher(new SwingDispatchService());
 
-		// hook into OS io
-		try {
-			GlobalScreen.registerNativeHook();
-		} catch (NativeHookException ex) {
-			System.err.println("There was a problem registering the native hook.");
-			System.err.println(ex.getMessage());
-			System.exit(1);
+		// one global listener routes each key straight to the snake bound to it
+		KeyScheme keyScheme = playerSnake.getKeyScheme();
+		if (keyScheme != null) {
+			try {
+				InputDispatcher.getDefault().addPlayer(playerSnake, keyScheme);
+			} catch (IllegalArgumentException e) {
+				System.err.println("Player " + playerSnake.getSnakeId() + " has no controls: " + e.getMessage());
+			}
 		}
-		
-		// suppress spam to console from native key listener
-		Logger logger = Logger.getLogger(GlobalScreen.class.getPackage().getName());
-		logger.setLevel(Level.OFF);
+		InputDispatcher.getDefault().start();
 
-		// set player VC to listen to global screen for keyboard input
-		GlobalScreen.addNativeKeyListener(this);
+		// one shared timer draws every local players frames - interpolated between ticks
+		FrameCompositor.getDefault().addPlayer(playerSnake, displayPanel);
+	}
+
+	/**
+	 * Draw the final frame of the game, then stop drawing frames and taking key
+	 * presses once the game is over. Called again for a game state arriving late.
+	 */
+	public void stopGame() {
+		if (playerSnake.drawFinalFrame(FrameCompositor.getDefault(), displayPanel)) {
+			displayPanel.repaint();
+		}
+		FrameCompositor.getDefault().removePlayer(playerSnake);
+		InputDispatcher.getDefault().removePlayer(playerSnake);
 	}
 
 	/**
@@ -156,19 +157,6 @@ public class PlayerVC extends ViewController implements NativeKeyListener {
 		// TODO write non-blocking failure window
 	}
 
-	/**
-	 * Invoked when a key is pressed, this method will spawn a worker thread to
-	 * process user input.
-	 * 
-	 * @param event A globally detected key event
-	 */
-	public void nativeKeyPressed(NativeKeyEvent event) {
-		System.out.println("Thread : " + Thread.currentThread().getName() + " registered key press "
-				+ NativeKeyEvent.getKeyText(event.getKeyCode()));
-		// start a worker thread to process user input and free EDT
-		playerVCExecutor.submit(new InputWorker(event.getKeyCode()));
-	}
-	
 	// ============ SETTER & GETTER METHODS ============
 	
 	/**
@@ -179,6 +167,15 @@ public class PlayerVC extends ViewController implements NativeKeyListener {
 	public void setControls(String controls) {
 		this.controls = controls;
 	}
+
+	/**
+	 * Show a game status message (round, dead, game over) in the window title.
+	 * 
+	 * @param status the status message
+	 */
+	public void setStatus(String status) {
+		frame.setTitle("Player: " + playerSnake.getSnakeId() + " - controls: " + controls + " - " + status);
+	}
 	
 	// ========== PRIVATE METHODS ==========
 	
@@ -217,26 +214,10 @@ public class PlayerVC extends ViewController implements NativeKeyListener {
 
 	// ========== INNER WORKER CLASSES ==========
 
-	/**
-	 * Worker class to run thread for submitting player input during gameplay.
-	 */
-	private class InputWorker extends Thread {
-		private int keyCode;
-
-		public InputWorker(int keyCode) {
-			this.keyCode = keyCode;
-		}
-
-		public void run() {
-			// validate user input and update buffer as required
-			playerSnake.directionInput(keyCode);
-		}
-	}
-
 	/**
 	 * Worker class to run submit thread for authenticating player details.
 	 */
-	private class SubmitWorker extends Thread {
+	private class SubmitWorker implements Runnable {
 		String username;
 		char[] password;
 
@@ -250,20 +231,4 @@ public class PlayerVC extends ViewController implements NativeKeyListener {
 			playerSnake.authenticate(username, password);			
 		}
 	}
-
-	// ========== UNUSED ==========
-
-	/**
-	 * Unused in this program - required to satisfy interface
-	 */
-	@Override
-	public void nativeKeyTyped(NativeKeyEvent nativeEvent) {
-	}
-
-	/**
-	 * Unused in this program - required to satisfy interface
-	 */
-	@Override
-	public void nativeKeyReleased(NativeKeyEvent nativeEvent) {
-	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import server.GameSnapshot;
+
+/**
+ * Single slot mailbox of game states for one client. The server side offers each
+ * new state without waiting, overwriting and releasing any state the client has
+ * not taken yet, and the client polls the newest state when it is ready for it.
+ * However far the client falls behind it never works through a backlog - it is
+ * at most one state behind the server, and the states it never saw are counted
+ * as skipped frames.
+ */
+public final class StateMailbox {
+	private final AtomicReference<GameSnapshot> slot;
+	private final AtomicLong framesSkipped;
+	private volatile long offeredAt; // System.nanoTime() of the latest offer
+
+	/**
+	 * CONSTRUCTOR for an empty mailbox.
+	 */
+	public StateMailbox() {
+		slot = new AtomicReference<GameSnapshot>();
+		framesSkipped = new AtomicLong();
+	}
+
+	/**
+	 * Leave a game state in the mailbox, releasing the state it replaces. Never
+	 * blocks.
+	 *
+	 * @param snapshot the new state, the mailbox takes over the callers reference
+	 */
+	public void offer(GameSnapshot snapshot) {
+		offeredAt = System.nanoTime();
+		GameSnapshot stale = slot.getAndSet(snapshot);
+		if (stale != null) {
+			// client never took it
+			stale.release();
+			framesSkipped.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Take the newest game state out of the mailbox.
+	 *
+	 * @return the newest state, which the caller must release, or null if no state
+	 *         has arrived since the last poll
+	 */
+	public GameSnapshot poll() {
+		return slot.getAndSet(null);
+	}
+
+	/**
+	 * Release any state left in the mailbox.
+	 */
+	public void clear() {
+		GameSnapshot left = slot.getAndSet(null);
+		if (left != null) {
+			left.release();
+		}
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	/**
+	 * Get the time the latest state was offered.
+	 *
+	 * @return System.nanoTime() of the latest offer
+	 */
+	public long getOfferedAt() {
+		return offeredAt;
+	}
+
+	/**
+	 * Get the number of states overwritten before the client took them.
+	 */
+	public long getFramesSkipped() {
+		return framesSkipped.get();
+	}
+}
@@ -0,0 +1,18 @@
+package exceptions;
+
+/**
+ * A checked exception thrown when there is no empty tile left on the game board
+ * to place a snake or food on.
+ */
+public class BoardFullException extends Exception {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * CONSTRUCTOR for board full exception
+	 * 
+	 * @param placing description of what could not be placed, for display to console
+	 */
+	public BoardFullException(String placing) {
+		super("No empty tile on the game board to place " + placing);
+	}
+}
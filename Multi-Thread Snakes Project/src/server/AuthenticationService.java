@@ -0,0 +1,83 @@
+package server;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import server.ExecutorRegistry.Pool;
+
+/**
+ * Asynchronous authentication pipeline. Credential checks run on a bounded
+ * pool of auth worker threads so callers (and the game tick) never block on
+ * user lookup or decryption. Logins beyond the pool queue capacity are
+ * rejected immediately rather than queued without limit. A successful login
+ * is issued a session token that later reconnects can present instead of
+ * credentials.
+ */
+public final class AuthenticationService {
+	private final UserDatabase userDB;
+	private final SessionCache sessionCache;
+	private final ExecutorService authExecutor;
+
+	/**
+	 * CONSTRUCTOR for authentication service on the default registry AUTH pool.
+	 *
+	 * @param userDB the user database players are authenticated against
+	 */
+	public AuthenticationService(UserDatabase userDB) {
+		this(userDB, new SessionCache(), ExecutorRegistry.getDefault().get(Pool.AUTH));
+	}
+
+	/**
+	 * CONSTRUCTOR for authentication service.
+	 *
+	 * @param userDB       the user database players are authenticated against
+	 * @param sessionCache cache that issued session tokens are stored in
+	 * @param authExecutor bounded executor that rejects logins when saturated
+	 */
+	public AuthenticationService(UserDatabase userDB, SessionCache sessionCache, ExecutorService authExecutor) {
+		this.userDB = userDB;
+		this.sessionCache = sessionCache;
+		this.authExecutor = authExecutor;
+	}
+
+	/**
+	 * Authenticate encrypted player details on the auth pool.
+	 *
+	 * @param playerDetails encrypted object containing username and password
+	 * @param encryptionKey encryption key used to decrypt the player details
+	 * @return a future completed with a new session token if the player was
+	 *         authenticated, or with null if the details were invalid. Completed
+	 *         exceptionally with RejectedExecutionException if the auth pool is
+	 *         saturated.
+	 */
+	public CompletableFuture<SessionToken> authenticate(PlayerDetails playerDetails, int encryptionKey) {
+		try {
+			return CompletableFuture.supplyAsync(() -> {
+				if (userDB.authenticate(playerDetails, encryptionKey)) {
+					return sessionCache.issue(playerDetails.decrypt(encryptionKey).getUsername());
+				}
+				return null;
+			}, authExecutor);
+		} catch (RejectedExecutionException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**
+	 * Resume a session without checking credentials. Runs on the calling thread
+	 * as it is a single cache lookup.
+	 *
+	 * @param token session token string issued on a previous login
+	 * @return the session if the token is valid and unexpired, null otherwise
+	 */
+	public SessionToken resume(String token) {
+		return sessionCache.validate(token);
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	public SessionCache getSessionCache() {
+		return sessionCache;
+	}
+}
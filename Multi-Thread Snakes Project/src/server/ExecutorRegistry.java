@@ -0,0 +1,228 @@
+package server;
+
+import java.util.EnumMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Central registry of the thread pools used by the snake game. Every pool is
+ * bounded - a fixed number of named threads, a fixed capacity queue and an
+ * explicit policy for work that arrives when the queue is full - so a load spike
+ * degrades the game (skipped ticks, dropped frames, rejected logins) instead of
+ * creating threads without limit.
+ */
+public final class ExecutorRegistry {
+	private static final int CORES = Runtime.getRuntime().availableProcessors();
+	private static final long KEEP_ALIVE_SECONDS = 30;
+
+	/**
+	 * The pools in the registry, with their default sizing and overload behaviour.
+	 */
+	public enum Pool {
+		/** Game ticks. Full queue rejects the tick - the game skips it. */
+		TICK("tick", CORES, 4096, Overload.ABORT),
+		/** Game state hand-off to clients. Full queue drops the oldest (stalest) frame. */
+		PUBLISH("publish", CORES, 16_384, Overload.DISCARD_OLDEST),
+		/** Client game board model building. Full queue drops the oldest (stalest) frame. */
+		CLIENT_MODEL("client-model", Math.max(2, CORES / 2), 64, Overload.DISCARD_OLDEST),
+		/** Keyboard input and login submission off the EDT. Full queue runs input on the caller. */
+		INPUT("input", 2, 256, Overload.CALLER_RUNS),
+		/** Authentication and login. Full queue rejects the login. */
+		AUTH("auth", Math.max(2, CORES / 2), 16_384, Overload.ABORT);
+
+		private final String threadName;
+		private final int defaultThreads;
+		private final int queueCapacity;
+		private final Overload overload;
+
+		Pool(String threadName, int defaultThreads, int queueCapacity, Overload overload) {
+			this.threadName = threadName;
+			this.defaultThreads = defaultThreads;
+			this.queueCapacity = queueCapacity;
+			this.overload = overload;
+		}
+
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		public Overload getOverload() {
+			return overload;
+		}
+	}
+
+	/**
+	 * What a pool does with work submitted while its queue is full.
+	 */
+	public enum Overload {
+		ABORT, DISCARD_OLDEST, CALLER_RUNS;
+
+		private RejectedExecutionHandler handler() {
+			switch (this) {
+			case DISCARD_OLDEST:
+				return new ThreadPoolExecutor.DiscardOldestPolicy();
+			case CALLER_RUNS:
+				return new ThreadPoolExecutor.CallerRunsPolicy();
+			default:
+				return new ThreadPoolExecutor.AbortPolicy();
+			}
+		}
+	}
+
+	/**
+	 * Point in time utilisation of one pool.
+	 */
+	public static final class PoolStats {
+		private final Pool pool;
+		private final int activeThreads;
+		private final int maxThreads;
+		private final int queued;
+		private final long completed;
+		private final long rejected;
+
+		private PoolStats(Pool pool, int activeThreads, int maxThreads, int queued, long completed, long rejected) {
+			this.pool = pool;
+			this.activeThreads = activeThreads;
+			this.maxThreads = maxThreads;
+			this.queued = queued;
+			this.completed = completed;
+			this.rejected = rejected;
+		}
+
+		/**
+		 * Fraction of the pool threads currently running tasks.
+		 *
+		 * @return utilisation between 0 and 1
+		 */
+		public double getUtilisation() {
+			return activeThreads / (double) maxThreads;
+		}
+
+		/**
+		 * Fraction of the pool queue currently holding waiting tasks.
+		 *
+		 * @return queue fill between 0 and 1
+		 */
+		public double getQueueFill() {
+			return queued / (double) pool.queueCapacity;
+		}
+
+		public int getActiveThreads() {
+			return activeThreads;
+		}
+
+		public int getQueued() {
+			return queued;
+		}
+
+		public long getCompleted() {
+			return completed;
+		}
+
+		public long getRejected() {
+			return rejected;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s: %d/%d threads active, %d/%d queued, %d completed, %d rejected",
+					pool.threadName, activeThreads, maxThreads, queued, pool.queueCapacity, completed, rejected);
+		}
+	}
+
+	private final EnumMap<Pool, ThreadPoolExecutor> executors;
+	private final EnumMap<Pool, LongAdder> rejections;
+
+	/**
+	 * Holder for the lazily created process-wide registry.
+	 */
+	private static final class DefaultHolder {
+		static final ExecutorRegistry DEFAULT = new ExecutorRegistry(Pool.TICK.defaultThreads);
+	}
+
+	/**
+	 * CONSTRUCTOR for executor registry with default pool sizes.
+	 *
+	 * @param tickThreads number of threads in the TICK pool
+	 */
+	public ExecutorRegistry(int tickThreads) {
+		executors = new EnumMap<Pool, ThreadPoolExecutor>(Pool.class);
+		rejections = new EnumMap<Pool, LongAdder>(Pool.class);
+		for (Pool pool : Pool.values()) {
+			int threads = pool == Pool.TICK ? tickThreads : pool.defaultThreads;
+			LongAdder rejected = new LongAdder();
+			RejectedExecutionHandler overloadHandler = pool.overload.handler();
+			AtomicInteger threadNumber = new AtomicInteger(1);
+
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS,
+					TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(pool.queueCapacity),
+					runnable -> new Thread(runnable, pool.threadName + "-" + threadNumber.getAndIncrement()),
+					(runnable, rejectingExecutor) -> {
+						// count then apply the pools overload policy
+						rejected.increment();
+						overloadHandler.rejectedExecution(runnable, rejectingExecutor);
+					});
+			executor.allowCoreThreadTimeOut(true);
+			executors.put(pool, executor);
+			rejections.put(pool, rejected);
+		}
+	}
+
+	/**
+	 * Get the process-wide registry shared by all games and clients that are not
+	 * given a registry of their own.
+	 *
+	 * @return the default executor registry
+	 */
+	public static ExecutorRegistry getDefault() {
+		return DefaultHolder.DEFAULT;
+	}
+
+	/**
+	 * Get the executor for a pool.
+	 *
+	 * @param pool the pool
+	 * @return the pools executor
+	 */
+	public ThreadPoolExecutor get(Pool pool) {
+		return executors.get(pool);
+	}
+
+	/**
+	 * Get the current utilisation of a pool.
+	 *
+	 * @param pool the pool
+	 * @return point in time statistics for the pool
+	 */
+	public PoolStats getStats(Pool pool) {
+		ThreadPoolExecutor executor = executors.get(pool);
+		return new PoolStats(pool, executor.getActiveCount(), executor.getMaximumPoolSize(),
+				executor.getQueue().size(), executor.getCompletedTaskCount(), rejections.get(pool).sum());
+	}
+
+	/**
+	 * Utilisation report of every pool, one line per pool.
+	 *
+	 * @return printable utilisation report
+	 */
+	public String report() {
+		StringBuilder report = new StringBuilder();
+		for (Pool pool : Pool.values()) {
+			report.append(getStats(pool)).append(System.lineSeparator());
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Shut down every pool. Work already queued is still run.
+	 */
+	public void shutdown() {
+		for (ThreadPoolExecutor executor : executors.values()) {
+			executor.shutdown();
+		}
+	}
+}
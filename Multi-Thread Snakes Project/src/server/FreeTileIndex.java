@@ -0,0 +1,126 @@
+package server;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Indexable set of the free (empty) tiles on a game board. Tiles are stored as
+ * packed integers (row * columns + column) in a dense array, with a reverse
+ * index from tile to array position. Removal swaps the last tile into the gap,
+ * so add, remove and uniform random sampling are all O(1) however full the
+ * board is. Not thread safe - guarded by the owning GameState.
+ */
+public final class FreeTileIndex {
+	private final int columns;
+	private final int[] tiles; // free tiles in positions [0, size)
+	private final int[] positions; // tile -> position in tiles, or -1 if occupied
+	private int size;
+
+	/**
+	 * CONSTRUCTOR for a free tile index of a board with every tile free.
+	 * 
+	 * @param rows    number of rows on the board
+	 * @param columns number of columns on the board
+	 */
+	public FreeTileIndex(int rows, int columns) {
+		this.columns = columns;
+		tiles = new int[rows * columns];
+		positions = new int[rows * columns];
+		for (int tile = 0; tile < tiles.length; tile++) {
+			tiles[tile] = tile;
+			positions[tile] = tile;
+		}
+		size = tiles.length;
+	}
+
+	/**
+	 * COPY CONSTRUCTOR.
+	 */
+	public FreeTileIndex(FreeTileIndex freeTileIndex) {
+		columns = freeTileIndex.columns;
+		tiles = freeTileIndex.tiles.clone();
+		positions = freeTileIndex.positions.clone();
+		size = freeTileIndex.size;
+	}
+
+	/**
+	 * Mark a tile free. Does nothing if it is already free.
+	 * 
+	 * @param row    row coordinate of the tile
+	 * @param column column coordinate of the tile
+	 */
+	public void add(int row, int column) {
+		int tile = row * columns + column;
+		if (positions[tile] >= 0) {
+			return;
+		}
+		tiles[size] = tile;
+		positions[tile] = size;
+		size++;
+	}
+
+	/**
+	 * Mark a tile occupied. Does nothing if it is already occupied.
+	 * 
+	 * @param row    row coordinate of the tile
+	 * @param column column coordinate of the tile
+	 */
+	public void remove(int row, int column) {
+		int tile = row * columns + column;
+		int position = positions[tile];
+		if (position < 0) {
+			return;
+		}
+		// swap last free tile into the gap
+		size--;
+		int last = tiles[size];
+		tiles[position] = last;
+		positions[last] = position;
+		positions[tile] = -1;
+	}
+
+	/**
+	 * Check if a tile is free.
+	 * 
+	 * @param row    row coordinate of the tile
+	 * @param column column coordinate of the tile
+	 * @return true if the tile is free
+	 */
+	public boolean contains(int row, int column) {
+		return positions[row * columns + column] >= 0;
+	}
+
+	/**
+	 * Pick a free tile uniformly at random.
+	 * 
+	 * @return packed tile (row * columns + column), or -1 if no tile is free
+	 */
+	public int randomTile() {
+		if (size == 0) {
+			return -1;
+		}
+		return tiles[ThreadLocalRandom.current().nextInt(size)];
+	}
+
+	/**
+	 * Get the row of a packed tile.
+	 */
+	public int rowOf(int tile) {
+		return tile / columns;
+	}
+
+	/**
+	 * Get the column of a packed tile.
+	 */
+	public int columnOf(int tile) {
+		return tile % columns;
+	}
+
+	/**
+	 * Get the number of free tiles.
+	 * 
+	 * @return number of free tiles
+	 */
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,101 @@
+package server;
+
+/**
+ * One game event produced by the tick - a snake spawning, eating, dying or
+ * changing score, the end of a tick or the end of the game. Events are entries
+ * of a GameEventBus ring and are overwritten as the ring wraps, so subscribers
+ * are handed their own copy and must not keep a reference to it after their
+ * handler returns.
+ */
+public final class GameEvent {
+
+	/**
+	 * Enumerated type for the kinds of game event.
+	 */
+	public enum Type {
+		SPAWN, // snake placed on the board
+		FOOD_BONUS_EATEN, // snake ate bonus food and grew
+		FOOD_MALUS_EATEN, // snake ate malus food and shrank
+		SCORE_CHANGE, // value is the score change
+		COLLISION_DEATH, // snake died moving into another snake, at the collision tile
+		MALUS_DEATH, // snake shrank to nothing eating malus food
+		TICK_END, // every event of the tick has been published
+		GAME_END // the game has ended, no more events are published
+	}
+
+	volatile long sequence; // ring sequence of the event, -1 while being written
+	private Type type;
+	private int tick;
+	private int snakeId;
+	private int row;
+	private int column;
+	private int value;
+
+	/**
+	 * CONSTRUCTOR for an empty event.
+	 */
+	GameEvent() {
+		sequence = -1;
+	}
+
+	/**
+	 * Overwrite the event fields.
+	 */
+	void set(Type type, int tick, int snakeId, int row, int column, int value) {
+		this.type = type;
+		this.tick = tick;
+		this.snakeId = snakeId;
+		this.row = row;
+		this.column = column;
+		this.value = value;
+	}
+
+	/**
+	 * Copy the fields of another event into this one.
+	 */
+	void copy(GameEvent event) {
+		set(event.type, event.tick, event.snakeId, event.row, event.column, event.value);
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Get the tick the event happened in. Snakes that join between ticks spawn in
+	 * the tick that follows.
+	 */
+	public int getTick() {
+		return tick;
+	}
+
+	/**
+	 * Get the id of the snake the event is about, 0 for TICK_END and GAME_END.
+	 */
+	public int getSnakeId() {
+		return snakeId;
+	}
+
+	public int getRow() {
+		return row;
+	}
+
+	public int getColumn() {
+		return column;
+	}
+
+	/**
+	 * Get the score change of a SCORE_CHANGE event, 0 for other events.
+	 */
+	public int getValue() {
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		return "tick " + tick + " " + type + " snake " + snakeId + " at " + row + "," + column
+				+ (type == Type.SCORE_CHANGE ? " score " + value : "");
+	}
+}
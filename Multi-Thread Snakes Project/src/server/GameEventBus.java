@@ -0,0 +1,317 @@
+package server;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import server.GameEvent.Type;
+
+/**
+ * Lock free stream of the game events of one game, in the style of the LMAX
+ * Disruptor. Events are written by a single producer - the game state, under its
+ * lock - into a ring of preallocated entries, and published by advancing the
+ * ring cursor. Every subscriber runs on its own thread with its own sequence and
+ * wait strategy, reading the ring behind the cursor.
+ * <p>
+ * The producer never waits for subscribers, so adding subscribers does not slow
+ * the tick. A subscriber that falls a whole ring behind is lapped - it skips to
+ * the oldest event still in the ring and counts the events it lost as overruns.
+ * Entries carry their sequence so a subscriber can tell when an entry was
+ * overwritten while it was being copied.
+ */
+public final class GameEventBus {
+	public static final int DEFAULT_CAPACITY = 4096; // events held in the ring, a power of two
+
+	private final GameEvent[] entries;
+	private final int mask;
+	private final AtomicLong cursor; // sequence of the last published event, -1 before the first
+	private volatile Subscription[] blockingSubscriptions; // copy on write, woken by signal()
+
+	/**
+	 * Wait strategy of a subscriber that has caught up with the cursor. Busier
+	 * strategies see new events sooner at the cost of CPU time.
+	 */
+	public enum WaitStrategy {
+		BUSY_SPIN, // spin on the cursor - lowest latency, burns a core
+		YIELDING, // spin briefly, then yield the core between checks
+		SLEEPING, // spin, yield, then sleep briefly between checks
+		BLOCKING // park until the producer signals - no CPU while idle
+	}
+
+	/**
+	 * Handler for the events delivered to a subscriber. Runs on the subscribers
+	 * thread.
+	 */
+	public interface Handler {
+
+		/**
+		 * Handle one event.
+		 *
+		 * @param event      the subscribers copy of the event, overwritten by the next event
+		 * @param sequence   ring sequence of the event
+		 * @param endOfBatch true if no more events are available yet
+		 */
+		void onEvent(GameEvent event, long sequence, boolean endOfBatch);
+	}
+
+	/**
+	 * CONSTRUCTOR for game event bus with the default capacity.
+	 */
+	public GameEventBus() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * CONSTRUCTOR for game event bus.
+	 *
+	 * @param capacity number of events held in the ring, a power of two
+	 */
+	public GameEventBus(int capacity) {
+		if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("event ring capacity " + capacity + " not a power of two");
+		}
+		entries = new GameEvent[capacity];
+		for (int i = 0; i < capacity; i++) {
+			entries[i] = new GameEvent();
+		}
+		mask = capacity - 1;
+		cursor = new AtomicLong(-1);
+		blockingSubscriptions = new Subscription[0];
+	}
+
+	/**
+	 * Subscribe to the events published after this call. Starts a daemon thread for
+	 * the subscriber.
+	 *
+	 * @param name         name of the subscriber, used for its thread name
+	 * @param handler      handler for the events
+	 * @param waitStrategy how the subscriber waits for events
+	 * @return the subscription, closed to stop the subscriber
+	 */
+	public Subscription subscribe(String name, Handler handler, WaitStrategy waitStrategy) {
+		Subscription subscription = new Subscription(handler, waitStrategy, cursor.get());
+		Thread thread = new Thread(subscription::process, "GameEvents-" + name);
+		thread.setDaemon(true);
+		subscription.thread = thread;
+		if (waitStrategy == WaitStrategy.BLOCKING) {
+			synchronized (this) {
+				Subscription[] grown = Arrays.copyOf(blockingSubscriptions, blockingSubscriptions.length + 1);
+				grown[grown.length - 1] = subscription;
+				blockingSubscriptions = grown;
+			}
+		}
+		thread.start();
+		return subscription;
+	}
+
+	/**
+	 * Publish an event. Only one thread may publish at a time - the game state
+	 * publishes under its lock. Blocking subscribers are not woken until signal().
+	 */
+	void publish(Type type, int tick, int snakeId, int row, int column, int value) {
+		long sequence = cursor.get() + 1;
+		GameEvent entry = entries[(int) sequence & mask];
+		entry.sequence = -1; // subscribers copying the old event retry
+		VarHandle.storeStoreFence();
+		entry.set(type, tick, snakeId, row, column, value);
+		entry.sequence = sequence;
+		cursor.lazySet(sequence);
+	}
+
+	/**
+	 * Wake blocking subscribers that are waiting for events. Called once per batch of
+	 * published events rather than once per event.
+	 */
+	void signal() {
+		// order the cursor store before reading the parked flags - see waitFor()
+		VarHandle.fullFence();
+		for (Subscription subscription : blockingSubscriptions) {
+			if (subscription.parked) {
+				LockSupport.unpark(subscription.thread);
+			}
+		}
+	}
+
+	/**
+	 * Get the sequence of the last published event.
+	 *
+	 * @return the cursor, -1 before the first event
+	 */
+	public long getCursor() {
+		return cursor.get();
+	}
+
+	public int getCapacity() {
+		return entries.length;
+	}
+
+	// ================ PRIVATE METHODS ================
+
+	/**
+	 * Copy a published event out of the ring.
+	 *
+	 * @return false if the entry was overwritten by a later event
+	 */
+	private boolean read(long sequence, GameEvent into) {
+		GameEvent entry = entries[(int) sequence & mask];
+		if (entry.sequence != sequence) {
+			return false;
+		}
+		into.copy(entry);
+		VarHandle.acquireFence();
+		return entry.sequence == sequence;
+	}
+
+	/**
+	 * Stop signalling a closed blocking subscriber.
+	 */
+	private synchronized void removeBlocking(Subscription subscription) {
+		Subscription[] remaining = new Subscription[blockingSubscriptions.length];
+		int count = 0;
+		for (Subscription blocking : blockingSubscriptions) {
+			if (blocking != subscription) {
+				remaining[count++] = blocking;
+			}
+		}
+		blockingSubscriptions = Arrays.copyOf(remaining, count);
+	}
+
+	// ========== INNER WORKER CLASSES ==========
+
+	/**
+	 * A subscriber to the bus. Reads events behind the cursor on its own thread and
+	 * hands them to its handler in sequence order, in batches of whatever has been
+	 * published since the last batch.
+	 */
+	public final class Subscription {
+		private final Handler handler;
+		private final WaitStrategy waitStrategy;
+		private final GameEvent event; // the subscribers copy of the current event
+		private final AtomicLong sequence; // last event handled or skipped
+		private volatile long overruns;
+		private volatile boolean running;
+		private volatile boolean parked; // BLOCKING subscriber is waiting for signal()
+		private Thread thread;
+
+		private Subscription(Handler handler, WaitStrategy waitStrategy, long startSequence) {
+			this.handler = handler;
+			this.waitStrategy = waitStrategy;
+			event = new GameEvent();
+			sequence = new AtomicLong(startSequence);
+			running = true;
+		}
+
+		/**
+		 * Subscriber thread loop - handle events until closed.
+		 */
+		private void process() {
+			while (running) {
+				long next = sequence.get() + 1;
+				long available = waitFor(next);
+				if (available < next) {
+					continue; // closed while waiting
+				}
+				if (available - next >= entries.length) {
+					// lapped - skip to the oldest event still in the ring
+					long oldest = available - entries.length + 1;
+					overruns += oldest - next;
+					next = oldest;
+				}
+				for (long s = next; s <= available; s++) {
+					if (!read(s, event)) {
+						// overwritten while copying - lapped again
+						overruns += 1;
+						sequence.lazySet(s);
+						break;
+					}
+					try {
+						handler.onEvent(event, s, s == available);
+					} catch (RuntimeException e) {
+						e.printStackTrace();
+					}
+					sequence.lazySet(s);
+				}
+			}
+		}
+
+		/**
+		 * Stop the subscriber. Events already being handled are finished.
+		 */
+		public void close() {
+			running = false;
+			if (waitStrategy == WaitStrategy.BLOCKING) {
+				removeBlocking(this);
+			}
+			LockSupport.unpark(thread);
+		}
+
+		/**
+		 * Get the sequence of the last event this subscriber handled or skipped.
+		 */
+		public long getSequence() {
+			return sequence.get();
+		}
+
+		/**
+		 * Get the number of events this subscriber lost by falling a whole ring behind.
+		 */
+		public long getOverruns() {
+			return overruns;
+		}
+
+		public WaitStrategy getWaitStrategy() {
+			return waitStrategy;
+		}
+
+		/**
+		 * Wait until the event with the given sequence is published or the subscriber is
+		 * closed.
+		 *
+		 * @return the cursor, less than next if the subscriber was closed
+		 */
+		private long waitFor(long next) {
+			long available;
+			int idleCount = 0;
+			while ((available = cursor.get()) < next && running) {
+				switch (waitStrategy) {
+
+				case BUSY_SPIN:
+					Thread.onSpinWait();
+					break;
+
+				case YIELDING:
+					if (idleCount++ < 100) {
+						Thread.onSpinWait();
+					} else {
+						Thread.yield();
+					}
+					break;
+
+				case SLEEPING:
+					if (idleCount++ < 100) {
+						Thread.onSpinWait();
+					} else if (idleCount < 200) {
+						Thread.yield();
+					} else {
+						LockSupport.parkNanos(100_000);
+					}
+					break;
+
+				case BLOCKING:
+					parked = true;
+					// recheck after announcing so a signal() between the check and park is not lost
+					if (cursor.get() < next && running) {
+						LockSupport.park(this);
+					}
+					parked = false;
+					break;
+
+				default:
+					// cannot get here
+				}
+			}
+			return available;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package server;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import server.ExecutorRegistry.Pool;
+
+/**
+ * Hosts many independent games in one JVM. Every hosted game is driven by one
+ * shared tick scheduler, which hands each games tick to the shared TICK pool of
+ * the hosts executor registry. Games share the user database, authentication
+ * service and leaderboard but nothing else - each GameServer holds its own game
+ * state, snakes and encryption key. Games can be created and destroyed at any time.
+ */
+public final class GameHost {
+	private final ConcurrentHashMap<Integer, GameServer> games;
+	private final ConcurrentHashMap<Integer, TickWorker> tickWorkers; // one reusable worker per game
+	private final AtomicInteger nextGameId;
+	private final AuthenticationService authService;
+	private final Leaderboard leaderboard;
+	private final ScheduledExecutorService tickScheduler;
+	private final ExecutorRegistry executors;
+	private final boolean ownsExecutors; // true if the registry is shut down with the host
+	private final ExecutorService tickPool;
+	private final long tickMillis;
+
+	/**
+	 * CONSTRUCTOR for game host with default tick rate on the default executor registry.
+	 *
+	 * @param userDB      the user database players are authenticated against
+	 * @param leaderboard the leaderboard player scores are reported to
+	 */
+	public GameHost(UserDatabase userDB, Leaderboard leaderboard) {
+		this(userDB, leaderboard, GameServer.TICK_MILLIS, ExecutorRegistry.getDefault(), false);
+	}
+
+	/**
+	 * CONSTRUCTOR for game host with its own executor registry.
+	 *
+	 * @param userDB      the user database players are authenticated against
+	 * @param leaderboard the leaderboard player scores are reported to
+	 * @param tickMillis  time between ticks of every hosted game
+	 * @param tickThreads number of threads in the hosts TICK pool
+	 */
+	public GameHost(UserDatabase userDB, Leaderboard leaderboard, long tickMillis, int tickThreads) {
+		this(userDB, leaderboard, tickMillis, new ExecutorRegistry(tickThreads), true);
+	}
+
+	private GameHost(UserDatabase userDB, Leaderboard leaderboard, long tickMillis, ExecutorRegistry executors,
+			boolean ownsExecutors) {
+		this.executors = executors;
+		this.ownsExecutors = ownsExecutors;
+		this.authService = new AuthenticationService(userDB, new SessionCache(), executors.get(Pool.AUTH));
+		this.leaderboard = leaderboard;
+		this.tickMillis = tickMillis;
+		games = new ConcurrentHashMap<Integer, GameServer>();
+		tickWorkers = new ConcurrentHashMap<Integer, TickWorker>();
+		nextGameId = new AtomicInteger(1);
+		tickPool = executors.get(Pool.TICK);
+		tickScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "Tick-Scheduler"));
+		tickScheduler.scheduleAtFixedRate(this::tickGames, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Create a new game on this host. The game starts ticking once the required
+	 * number of players have logged in.
+	 *
+	 * @param numPlayers    the number of players who will login to the game
+	 * @param encryptionKey encryption key used to decrypt user passwords for the game
+	 * @return the new game
+	 */
+	public GameServer createGame(int numPlayers, int encryptionKey) {
+		int gameId = nextGameId.getAndIncrement();
+		GameServer game = new GameServer(gameId, numPlayers, encryptionKey, authService, leaderboard, executors);
+		games.put(gameId, game);
+		tickWorkers.put(gameId, new TickWorker(game));
+		return game;
+	}
+
+	/**
+	 * Stop and remove a game from this host. A tick already in progress is allowed to
+	 * finish but no further ticks are run.
+	 *
+	 * @param gameId the id of the game to destroy
+	 * @return true if the game was hosted here
+	 */
+	public boolean destroyGame(int gameId) {
+		GameServer game = games.remove(gameId);
+		tickWorkers.remove(gameId);
+		if (game == null) {
+			return false;
+		}
+		game.endGame();
+		return true;
+	}
+
+	/**
+	 * Stop ticking all games and shut down the host thread pools. Waits for ticks
+	 * already in progress to finish.
+	 */
+	public void shutdown() {
+		tickScheduler.shutdown();
+		for (GameServer game : games.values()) {
+			game.endGame();
+			// claim the tick so no tick is running or can start
+			while (!game.tryStartTick()) {
+				Thread.onSpinWait();
+			}
+		}
+		games.clear();
+		tickWorkers.clear();
+		if (ownsExecutors) {
+			executors.shutdown();
+		}
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	/**
+	 * Get a hosted game by id.
+	 *
+	 * @param gameId the id of the game
+	 * @return the game, or null if no game with that id is hosted
+	 */
+	public GameServer getGame(int gameId) {
+		return games.get(gameId);
+	}
+
+	/**
+	 * Get the games currently hosted.
+	 *
+	 * @return a live view of the hosted games
+	 */
+	public Collection<GameServer> getGames() {
+		return games.values();
+	}
+
+	public int getGameCount() {
+		return games.size();
+	}
+
+	public long getTickMillis() {
+		return tickMillis;
+	}
+
+	public ExecutorRegistry getExecutors() {
+		return executors;
+	}
+
+	// ================ PRIVATE METHODS ================
+
+	/**
+	 * Runs on the tick scheduler every tick period. Hands the tick of every game that
+	 * is ready (and not still running its previous tick) to the TICK pool. If the
+	 * pool is saturated the game skips this tick.
+	 */
+	private void tickGames() {
+		for (TickWorker tickWorker : tickWorkers.values()) {
+			GameServer game = tickWorker.game;
+			if (game.isReadyToStart() && game.tryStartTick()) {
+				try {
+					tickPool.execute(tickWorker);
+				} catch (RejectedExecutionException e) {
+					game.cancelTick();
+				}
+			}
+		}
+	}
+
+	// ========== INNER WORKER CLASSES ==========
+
+	/**
+	 * Worker class to run one tick of a hosted game on the TICK pool. Each game has
+	 * one worker, submitted again every tick.
+	 */
+	private class TickWorker implements Runnable {
+		private final GameServer game;
+
+		public TickWorker(GameServer game) {
+			this.game = game;
+		}
+
+		public void run() {
+			if (!game.hostedTick()) {
+				// all snakes dead or game destroyed - stop hosting
+				games.remove(game.getGameId(), game);
+				tickWorkers.remove(game.getGameId(), this);
+			}
+		}
+	}
+}
@@ -1,68 +1,170 @@
 package server;
 
-import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import abstractClasses.Snake;
 import abstractClasses.Snake.Direction;
 import client.NPCSnake;
-import exceptions.EmptyBufferException;
+import exceptions.BoardFullException;
+import server.ExecutorRegistry.Pool;
 import server.GameState.GameTile;
-import server.GameState.SnakeModel;
 
 /**
  * Class for game server which handles game logic. Manages interactions between all
  * players and the game board, updates the gamestate and serves requests for the gamestate
  * from clients.
+ * <p>
+ * All game state is held per instance so any number of games can run in one JVM. A
+ * game either runs standalone on its own thread (run()) or is hosted by a GameHost,
+ * which drives tick() for many games from one shared scheduler and worker pool.
+ * <p>
+ * Once a game is warm a tick allocates nothing: snakes are iterated from arrays
+ * replaced only when a snake joins, intent phase moves and move resolution use
+ * reused buffers, and publishing hands snapshots to one reusable publish worker.
+ * Snakes are kept in a SnakeRegistry by dense slot, so the tick visits only the
+ * live snakes and checks for any live snake in O(1).
+ * <p>
+ * A game moves through the phases LOBBY, COUNTDOWN, RUNNING and ENDED, and each
+ * phase opens a latch when it is reached, so threads wait for a phase instead of
+ * polling. Snakes joining in the lobby or countdown are placed straight away.
+ * Snakes joining a running game are queued and placed by the ticking thread at the
+ * start of the next tick, so a join never lands in the middle of a tick.
+ * <p>
+ * A match is played over one or more rounds. When every snake is dead and rounds
+ * remain, the game state is reset in place - board, snake slots and body buffers
+ * reused - with every snake respawned and sessions kept, and the next round starts
+ * on the following tick. Round scores and wins are kept in the games MatchStats.
  */
 public class GameServer implements Runnable {
-	private static int serverEncryptionKey;
+	public static final int TICK_MILLIS = 120; // time between server ticks
+	public static final int FOOD_TICKS = 100; // ticks between food drops
+	public static final int PUBLISH_RETRY_TICKS = 8; // ticks before a hand-off dropped by the PUBLISH pool is resubmitted
+	public static final int DEFAULT_COUNTDOWN_TICKS = 0; // ticks between a full lobby and the first move
+	public static final int DEFAULT_ROUNDS = 1; // rounds in a match
+
+	private final int gameId;
+	private final int serverEncryptionKey;
 	private int numPlayers;
-	private volatile ConcurrentHashMap<Integer, Snake> snakes;
+	private final SnakeRegistry snakeRegistry; // every snake that joined, by slot
+	// copy on write publish slots indexed by registry slot, replaced when a snake joins
+	private volatile PublishSlot[] publishSlots = new PublishSlot[0];
+	private final PublishGameStateWorker publishWorker;
+	private final SpectatorFeed spectatorFeed;
 	private GameState gameState;
-	private int playersAuthenticated;
-	private static ExecutorService serverExecutor;
-	private UserDatabase userDB;
+	private AtomicInteger playersAuthenticated;
+	private final CountDownLatch lobbyFull; // opens once numPlayers players have joined
+	private final ExecutorService publishExecutor;
+	private final AuthenticationService authService;
+	private final Leaderboard leaderboard;
+
+	private final AtomicBoolean ticking; // true while a tick is in progress
+	private volatile Phase phase; // written under the GameServer lock
+	private final CountDownLatch[] phaseReached; // one per phase, opened when the game reaches it
+	private final ConcurrentLinkedQueue<PendingJoin> pendingJoins; // joins waiting for the next tick
+	private volatile int countdownTicks;
+	private int countdownRemaining; // written by the ticking thread
+	private final AtomicBoolean gameOverSent; // snakes are told the game is over once
+	private volatile int round; // current round, 0 before the first tick
+	private volatile int rounds; // rounds in the match
+	private boolean roundStarting; // the next tick starts a round - written by the ticking thread
+	private final MatchStats matchStats;
+	private volatile int tickCount;
+	private volatile long tickBytesAllocated; // total heap allocated by ticks of this game
+	private volatile double foodDensity; // target fraction of the board holding food, 0 for none
+	// intent phase moves, reused every tick by the ticking thread
+	private int[] moveIds = new int[0];
+	private Direction[] moveDirections = new Direction[0];
 
-	ConcurrentHashMap<Integer, Future<?>> futuresMap;
-	private int tickCount;
-	private long tickTime;
+	/**
+	 * Lifecycle phase of a game. Phases are only ever entered in this order, though
+	 * a game destroyed early skips straight to ENDED.
+	 */
+	public enum Phase {
+		LOBBY, // waiting for players to log in
+		COUNTDOWN, // all players in, snakes placed but not moving yet
+		RUNNING, // snakes moving every tick
+		ENDED // all snakes dead or game destroyed
+	}
 
 	/**
 	 * CONSTRUCTOR for game server.
 	 * 
 	 * @param numPlayers    the number of players who will login to this game
 	 * @param encryptionKey encryption key used to decrypt user password
+	 * @param userDB        the user database players are authenticated against
+	 * @param leaderboard   the leaderboard player scores are reported to
 	 */
-	public GameServer(int numPlayers, int encryptionKey) {
-		serverEncryptionKey = encryptionKey;
+	public GameServer(int numPlayers, int encryptionKey, UserDatabase userDB, Leaderboard leaderboard) {
+		this(0, numPlayers, encryptionKey, new AuthenticationService(userDB), leaderboard,
+				ExecutorRegistry.getDefault());
+	}
+
+	/**
+	 * CONSTRUCTOR for a game server sharing services and worker threads with other
+	 * games. Used by GameHost.
+	 * 
+	 * @param gameId         identifier for this game on its host
+	 * @param numPlayers     the number of players who will login to this game
+	 * @param encryptionKey  encryption key used to decrypt user password
+	 * @param authService    the authentication service players log in through
+	 * @param leaderboard    the leaderboard player scores are reported to
+	 * @param executors      registry providing the PUBLISH and AUTH pools
+	 */
+	GameServer(int gameId, int numPlayers, int encryptionKey, AuthenticationService authService,
+			Leaderboard leaderboard, ExecutorRegistry executors) {
+		this.gameId = gameId;
+		this.serverEncryptionKey = encryptionKey;
 		this.numPlayers = numPlayers;
-		snakes = new ConcurrentHashMap<Integer, Snake>();
 		gameState = new GameState();
-		playersAuthenticated = 0;
-		serverExecutor = Executors.newCachedThreadPool();
-		userDB = new UserDatabase();
+		snakeRegistry = gameState.getSnakeRegistry();
+		playersAuthenticated = new AtomicInteger(0);
+		lobbyFull = new CountDownLatch(numPlayers);
+		this.publishExecutor = executors.get(Pool.PUBLISH);
+		this.authService = authService;
+		this.leaderboard = leaderboard;
+		publishWorker = new PublishGameStateWorker();
+		spectatorFeed = new SpectatorFeed(gameState.getBoardSize(), publishExecutor);
+		ticking = new AtomicBoolean(false);
+		phase = Phase.LOBBY;
+		phaseReached = new CountDownLatch[Phase.values().length];
+		for (int i = 0; i < phaseReached.length; i++) {
+			phaseReached[i] = new CountDownLatch(1);
+		}
+		phaseReached[Phase.LOBBY.ordinal()].countDown();
+		pendingJoins = new ConcurrentLinkedQueue<PendingJoin>();
+		countdownTicks = DEFAULT_COUNTDOWN_TICKS;
+		gameOverSent = new AtomicBoolean(false);
+		tickCount = 0;
+		rounds = DEFAULT_ROUNDS;
+		roundStarting = true;
+		matchStats = new MatchStats();
 	}
 
 	/**
-	 * Runs the player login server. Once all players logged in runs the game.
+	 * Runs the player login server. Once all players logged in runs the game on the
+	 * calling thread. Not used for games run by a GameHost.
 	 */
 	@Override
 	public void run() {
 		// wait for all players to log in
-		while (playersAuthenticated < numPlayers) {
-			try {
-				Thread.sleep(100);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
+		try {
+			lobbyFull.await();
+		} catch (InterruptedException e) {
+			endGame();
+			Thread.currentThread().interrupt();
+			return;
 		}
 
 		// login completed
-		System.out.println("Server completed login - number of snakes is " + snakes.size() + " in thread: "
+		System.out.println("Server completed login - number of snakes is " + snakeRegistry.size() + " in thread: "
 				+ Thread.currentThread().getName());
 
 		playGame();
@@ -71,11 +173,11 @@ public class GameServer implements Runnable {
 	}
 
 	/**
-	 * Play the game of snake. Game server gets snake directions from user input buffers
-	 * and updates the gamestate. Submits the gamestate to the view-controller for display.
+	 * Play the game of snake on the calling thread. Runs a server tick every
+	 * TICK_MILLIS until all snakes are dead in the last round of the match.
 	 */
 	private void playGame() {
-		tickCount = 0;
+		long tickTime;
 
 		// play game in loop
 		while (true) {
@@ -83,27 +185,13 @@ public class GameServer implements Runnable {
 			// start time for this server tick
 			tickTime = System.currentTimeMillis();
 
-			// update snake models
-			updateGameState();
-
-			// check if any snakes alive after update
-			if (!anySnakesAlive()) {
+			if (!tick()) {
 				// if all snakes dead exit playGame()
 				return;
 			}
 
-			// send gamestate to clients
-			publishGameState();
-
-			// add food to board every 10th tick
-			if (tickCount % 100 == 0) {
-				gameState.addFood();
-			}
-
-			tickCount += 1;
-
 			try {
-				long sleepTime = 120 - (System.currentTimeMillis() - tickTime);
+				long sleepTime = TICK_MILLIS - (System.currentTimeMillis() - tickTime);
 				if (sleepTime < 0) {
 					sleepTime = 0;
 				}
@@ -115,148 +203,662 @@ public class GameServer implements Runnable {
 	}
 
 	/**
-	 * Run end of game sequence.
-	 * TODO shutdown? restart login? restart new game with existing logged in players?
+	 * Run one server tick. Game server gets snake directions from user input buffers
+	 * and updates the gamestate, then hands the gamestate to the clients for display.
+	 * Ticks of one game must not overlap - see tryStartTick(). The heap allocated by
+	 * the tick is added to getTickBytesAllocated().
+	 * 
+	 * @return true if the game is still running after the tick, false once all snakes are
+	 *         dead in the last round of the match
 	 */
-	private void gameOver() {
+	boolean tick() {
+		long startBytes = AllocationGauge.currentThreadBytes();
+		try {
+			return runTick();
+		} finally {
+			// only the ticking thread writes
+			tickBytesAllocated += AllocationGauge.currentThreadBytes() - startBytes;
+		}
 	}
 
 	/**
-	 * Method to send the game state to clients for display
+	 * Body of tick(), run between the allocation gauge readings.
 	 */
-	private void publishGameState() {
-		futuresMap = new ConcurrentHashMap<Integer, Future<?>>();
+	private boolean runTick() {
+		// the tick boundary - snakes that joined a running game are placed now
+		placePendingJoins();
 
-		// for each snake playing the game
-		for (ConcurrentHashMap.Entry<Integer, Snake> snakeEntry : snakes.entrySet()) {
+		if (phase == Phase.LOBBY) {
+			countdownRemaining = countdownTicks;
+			advancePhase(Phase.COUNTDOWN);
+		}
+		if (phase == Phase.COUNTDOWN) {
+			if (countdownRemaining > 0) {
+				// snakes wait in place - keep clients drawing the board
+				countdownRemaining--;
+				publishGameState(false);
+				return true;
+			}
+			advancePhase(Phase.RUNNING);
+		}
+
+		if (roundStarting) {
+			roundStarting = false;
+			startRound();
+		}
+
+		// update snake models
+		updateGameState();
 
-			// if snake is alive
-			if (snakeEntry.getValue().isAlive()) {
+		// check if any snakes alive after update
+		boolean snakesAlive = anySnakesAlive();
 
-				// start a worker thread to transmit game state to clients
-				Future<?> future = serverExecutor
-						.submit(new PublishGameStateWorker(snakeEntry, new GameState(gameState)));
+		if (snakesAlive) {
+			// add food to board every FOOD_TICKS ticks - if there is no room for food
+			// this drop it is tried again next drop
+			if (tickCount % FOOD_TICKS == 0) {
+				gameState.addFood();
+			}
 
-				// store future in concurrent hash map
-				futuresMap.put(snakeEntry.getKey(), future);
+			// top up food to the target density
+			if (foodDensity > 0) {
+				gameState.addFoodToDensity(foodDensity);
 			}
 		}
-		
-		System.out.println("Server has started " + futuresMap.size() +  " PublishGameStateWorkers");
-		
-		// wait for all snakes to be finished updating before exit
-		boolean updatingSnakeModels = true;
-		while (updatingSnakeModels) {
-			updatingSnakeModels = false;
-			// for each worker
-			for (ConcurrentHashMap.Entry<Integer, Future<?>> futureEntry : futuresMap.entrySet()) {
-				// if not done
-				if (!futureEntry.getValue().isDone()) {
-					// still updating
-					updatingSnakeModels = true;
-				}
+
+		// publish the tick to gamestate readers and event subscribers
+		gameState.swapBuffers();
+		gameState.endTick(tickCount);
+
+		if (!snakesAlive) {
+			matchStats.endRound(snakeRegistry.getSnakes());
+			if (round >= rounds) {
+				// the last frame shows the deaths that ended the match - every client gets it
+				publishGameState(true);
+				return false;
+			}
+			if (gameState.resetRound() == 0) {
+				return false;
 			}
+			// snakes respawned in place - the next tick starts the round
+			roundStarting = true;
 		}
+
+		// send gamestate to clients
+		publishGameState(false);
+
+		tickCount += 1;
+		return true;
 	}
 
 	/**
-	 * Launches worker threads to get direction for all snakes in the game from the input buffers
-	 * and then update snakemodels in the gamestate.
+	 * Run one tick on behalf of a GameHost. Ends the game when all snakes are dead.
+	 * The caller must have claimed the tick with tryStartTick().
+	 * 
+	 * @return true if the game is still running after the tick
 	 */
-	private void updateGameState() {
-		futuresMap = new ConcurrentHashMap<Integer, Future<?>>();
+	boolean hostedTick() {
+		try {
+			if (phase != Phase.ENDED && !tick()) {
+				gameOver();
+			}
+			return phase != Phase.ENDED;
+		} finally {
+			ticking.set(false);
+		}
+	}
+
+	/**
+	 * Claim the next tick for this game. Fails if the previous tick is still running,
+	 * so a slow game skips a tick rather than running two at once.
+	 * 
+	 * @return true if the caller may run the tick
+	 */
+	boolean tryStartTick() {
+		return ticking.compareAndSet(false, true);
+	}
+
+	/**
+	 * Release a tick claimed with tryStartTick() that will not be run.
+	 */
+	void cancelTick() {
+		ticking.set(false);
+	}
 
-		// for each snake playing the game
-		for (ConcurrentHashMap.Entry<Integer, Snake> snakeEntry : snakes.entrySet()) {
+	/**
+	 * Check if all players have logged in and the game can start ticking.
+	 * 
+	 * @return true once the required number of players have authenticated
+	 */
+	boolean isReadyToStart() {
+		return lobbyFull.getCount() == 0;
+	}
 
-			// if snake is alive
-			if (snakeEntry.getValue().isAlive()) {
+	/**
+	 * Give up the seat of a player who will not log in, so the game does not wait for
+	 * it. Used by the Matchmaker when a matched player leaves before its game starts.
+	 */
+	public void releaseSeat() {
+		lobbyFull.countDown();
+	}
 
-				// start a worker thread to update snake model
-				Future<?> snakeUpdateFuture = serverExecutor.submit(new GameStateUpdateWorker(snakeEntry));
+	/**
+	 * Stop the game without recording results. Used when a host destroys the game.
+	 */
+	void endGame() {
+		if (advancePhase(Phase.ENDED)) {
+			gameState.endGame();
+		}
+		sendGameOver();
+	}
 
-				// store future in concurrent hash map
-				futuresMap.put(snakeEntry.getKey(), snakeUpdateFuture);
+	/**
+	 * Run end of game sequence once the last round of the match is over. Records the
+	 * match score of every ranked player on the leaderboard, then hands every client
+	 * the final frame left in its publish slot before telling the snakes the game is
+	 * over.
+	 */
+	private void gameOver() {
+		advancePhase(Phase.ENDED);
+		for (Snake snake : snakeRegistry.getSnakes()) {
+			if (snake.getPlayerName() != null) {
+				leaderboard.recordGameResult(snake.getPlayerName(), snake.getScore());
 			}
 		}
-		
-		System.out.println("Server has started " + futuresMap.size() +  " GameStateUpdateWorkers");
-
-		// wait for all snakes to be finished updating before exit
-		boolean updatingSnakeModels = true;
-		while (updatingSnakeModels) {
-			updatingSnakeModels = false;
-			// for each worker
-			for (ConcurrentHashMap.Entry<Integer, Future<?>> futureEntry : futuresMap.entrySet()) {
-				// if not done
-				if (!futureEntry.getValue().isDone()) {
-					// still updating
-					updatingSnakeModels = true;
-				}
+		// a publish worker already running may still deliver a frame after the game
+		// over - clients release frames arriving once the game is over
+		publishWorker.deliverPending();
+		gameState.endGame();
+		sendGameOver();
+	}
+
+	/**
+	 * Start the next round and tell every snake. Runs on the ticking thread before
+	 * the first tick of the round, straight after the countdown for the first round
+	 * and the tick after the reset for later rounds.
+	 */
+	private void startRound() {
+		round += 1;
+		for (Snake snake : snakeRegistry.getSnakes()) {
+			snake.onRoundStart(round);
+		}
+	}
+
+	/**
+	 * Tell every snake the game is over, once however the game ended.
+	 */
+	private void sendGameOver() {
+		if (gameOverSent.compareAndSet(false, true)) {
+			for (Snake snake : snakeRegistry.getSnakes()) {
+				snake.onGameOver();
 			}
 		}
 	}
 
+	/**
+	 * Report a live score change for a snake to the leaderboard. Snakes without
+	 * an authenticated player are not ranked.
+	 * 
+	 * @param snake       the snake whose score changed
+	 * @param scoreChange the amount the score changed by
+	 */
+	public void scoreChanged(Snake snake, int scoreChange) {
+		if (snake.getPlayerName() != null) {
+			leaderboard.recordScoreChange(snake.getPlayerName(), scoreChange);
+		}
+	}
+
+	/**
+	 * Method to send the game state to clients for display. Each client is handed a
+	 * reference to the latest pooled game state snapshot through its publish slot, and
+	 * the games publish worker delivers the slots on the PUBLISH pool - the tick does
+	 * not wait for clients to finish.
+	 * 
+	 * @param everySnake true to send the game state to dead snakes too, false for only
+	 *                   the live snakes
+	 */
+	private void publishGameState(boolean everySnake) {
+		PublishSlot[] slots = publishSlots;
+		if (everySnake) {
+			for (PublishSlot publishSlot : slots) {
+				publishSlot.offer(gameState.acquireSnapshot());
+			}
+		} else {
+			// for each live snake - a snake that joined mid tick gets its slot next tick
+			for (int slot = snakeRegistry.nextLiveSlot(0); slot >= 0 && slot < slots.length; slot = snakeRegistry
+					.nextLiveSlot(slot + 1)) {
+
+				// leave the game state in the snakes slot
+				slots[slot].offer(gameState.acquireSnapshot());
+			}
+		}
+
+		// start the worker to transmit game state to clients
+		publishWorker.schedule();
+
+		// one shared frame for all spectators
+		spectatorFeed.offer(gameState, tickCount);
+	}
+
+	/**
+	 * Update the snakemodels in the gamestate in two phases. The intent phase gets the
+	 * direction of every snake from its own input buffer - no state is shared between
+	 * snakes. The resolution phase then moves all snakes at once, resolving collisions
+	 * and food contention independently of move order. Runs on the ticking thread.
+	 */
+	private void updateGameState() {
+		int moveCount = 0;
+		if (moveIds.length < snakeRegistry.getLiveCount()) {
+			moveIds = new int[snakeRegistry.size() * 2];
+			moveDirections = new Direction[snakeRegistry.size() * 2];
+		}
+
+		// intent phase - for each live snake
+		for (int slot = snakeRegistry.nextLiveSlot(0); slot >= 0; slot = snakeRegistry.nextLiveSlot(slot + 1)) {
+			if (moveCount == moveIds.length) {
+				// joined since the buffers were sized
+				break;
+			}
+			Snake snake = snakeRegistry.get(slot);
+
+			// if snake is moving
+			Direction direction = nextDirection(snake);
+			if (direction != null) {
+				moveIds[moveCount] = snake.getSnakeId();
+				moveDirections[moveCount++] = direction;
+			}
+		}
+
+		// resolution phase
+		gameState.resolveMoves(moveIds, moveDirections, moveCount);
+	}
+
+	/**
+	 * Update snake direction from direction buffer.
+	 * 
+	 * @param snake the snake to update
+	 * @return      the direction the snake will move this tick, or null if the snake
+	 *              has yet to move
+	 */
+	private Direction nextDirection(Snake snake) {
+		// consume from input buffers and update snake current heading - null if no
+		// new snake direction input
+		snake.updateCurrentHeading(snake.directionBufferPoll());
+
+		// get snakes current heading - null at start of game until the snake moves
+		return snake.getCurrentHeading();
+	}
+
 	/**
 	 * Thread safe method to compare user details to user database for
 	 * authentication. If player is authenticated create a snake model in the game
-	 * state.
+	 * state. Blocks the calling thread until authentication completes - prefer
+	 * authenticateAsync().
 	 * 
 	 * @param playerDetails object containing username and password
 	 * @param snake         the snake trying to join the game
 	 * @return              true if the player login details were successfully authenticated
 	 */
-	public synchronized Boolean authenticate(PlayerDetails playerDetails, Snake snake) {
-		// authenticate user against user database
-		Boolean authenticated = userDB.authenticate(playerDetails, serverEncryptionKey);
-		if (authenticated) {
-			this.playersAuthenticated++;
-			this.addSnake(snake);
-			System.out.println("added snake to game. number of snakes is " + snakes.size());
-			return true;
+	public Boolean authenticate(PlayerDetails playerDetails, Snake snake) {
+		try {
+			return authenticateAsync(playerDetails, snake).join() != null;
+		} catch (CompletionException e) {
+			// auth pool saturated
+			return false;
 		}
-		return false;
 	}
 
 	/**
-	 * Launches a worker thread to handle non-player snake login
+	 * Authenticate user details against the user database on the auth pool without
+	 * blocking the caller. If the player is authenticated the snake is added to the
+	 * game before the future completes - at the next tick if the game is running.
 	 * 
+	 * @param playerDetails encrypted object containing username and password
 	 * @param snake         the snake trying to join the game
-	 * @return              true if the player login details were successfully authenticated
+	 * @return              a future completed with the players session token, or with
+	 *                      null if the login details were invalid. Completed exceptionally
+	 *                      if the game board has no room for the snake or the game has
+	 *                      ended.
 	 */
-	public Boolean npcLogin(NPCSnake npcSnake) {
-		Future<?> npcLoginFuture = serverExecutor.submit(new NPCSnakeLoginWorker(npcSnake));
-		System.out.println("started NPC login worker for NPCSnake " + npcSnake.getSnakeId() + " on thread: "
-				+ Thread.currentThread().getName());
-		// wait for login worker to finish
-		while (!npcLoginFuture.isDone()) {
+	public CompletableFuture<SessionToken> authenticateAsync(PlayerDetails playerDetails, Snake snake) {
+		return authService.authenticate(playerDetails, serverEncryptionKey).thenCompose(session -> {
+			if (session == null) {
+				return CompletableFuture.completedFuture(null);
+			}
+			snake.setPlayerName(session.getUsername());
+			return requestJoin(snake).thenApply(joined -> {
+				playerJoined();
+				return session;
+			});
+		});
+	}
+
+	/**
+	 * Rejoin the game with a session token from a previous login, skipping the
+	 * credential check.
+	 * 
+	 * @param token the session token string issued at login
+	 * @param snake the snake trying to join the game
+	 * @return      true if the session was valid and the snake joined the game
+	 */
+	public boolean resumeSession(String token, Snake snake) {
+		SessionToken session = authService.resume(token);
+		if (session == null) {
+			return false;
+		}
+		snake.setPlayerName(session.getUsername());
+		try {
+			requestJoin(snake).join();
+		} catch (CompletionException e) {
+			System.out.println(e.getCause().getMessage());
+			return false;
 		}
-		System.out.println("login worker for NPCSnake " + npcSnake.getSnakeId() + " finished");
+		playerJoined();
 		return true;
 	}
 
+	/**
+	 * Log in a non-player snake, waiting until it has joined the game - until the
+	 * next tick if the game is running. NPC snakes are not authenticated.
+	 * 
+	 * @param npcSnake the snake trying to join the game
+	 * @return         true if the snake joined the game, false if the game board was
+	 *                 full or the game has ended
+	 */
+	public Boolean npcLogin(NPCSnake npcSnake) {
+		return npcLoginAsync(npcSnake).join();
+	}
+
+	/**
+	 * Log in a non-player snake without waiting, so many NPC snakes can join at once.
+	 * 
+	 * @param npcSnake the snake trying to join the game
+	 * @return         a future completed with true once the snake has joined the game,
+	 *                 or with false if the game board was full or the game has ended
+	 */
+	public CompletableFuture<Boolean> npcLoginAsync(NPCSnake npcSnake) {
+		return requestJoin(npcSnake).handle((joined, error) -> {
+			if (error != null) {
+				System.out.println("NPCSnake " + npcSnake.getSnakeId() + " not added: " + error.getMessage());
+				return false;
+			}
+			System.out.println("added NPCsnake " + npcSnake.getSnakeId() + " to game");
+			return true;
+		});
+	}
+
 	/**
 	 * Check all the snakes in the game to see if any are still alive
 	 * 
 	 * @return true if at least one snake is alive, false otherwise
 	 */
 	private boolean anySnakesAlive() {
-		for (ConcurrentHashMap.Entry<Integer, Snake> snakeEntry : snakes.entrySet()) {
-			if (snakeEntry.getValue().isAlive()) {
-				return true;
+		return snakeRegistry.anyAlive();
+	}
+
+	/**
+	 * Count an authenticated player snake that has joined the game, opening the lobby
+	 * once all players are in.
+	 */
+	private void playerJoined() {
+		playersAuthenticated.incrementAndGet();
+		lobbyFull.countDown();
+		System.out.println("added snake to game. number of snakes is " + snakeRegistry.size());
+	}
+
+	/**
+	 * Ask for a snake to join the game. In the lobby and countdown the snake is placed
+	 * straight away on the calling thread, holding the GameServer lock so the game
+	 * cannot start running part way through - see advancePhase(). In a running game
+	 * it is queued for the ticking thread to place at the start of the next tick.
+	 * 
+	 * @param snake the snake joining
+	 * @return a future completed once the snake is on the game board, or completed
+	 *         exceptionally with BoardFullException if there is no room for it, or
+	 *         IllegalStateException if the game has ended
+	 */
+	private CompletableFuture<Void> requestJoin(Snake snake) {
+		synchronized (this) {
+			if (phase == Phase.LOBBY || phase == Phase.COUNTDOWN) {
+				CompletableFuture<Void> joined = new CompletableFuture<Void>();
+				placeJoin(new PendingJoin(snake, joined));
+				return joined;
 			}
 		}
-		return false;
+		PendingJoin pendingJoin = new PendingJoin(snake, new CompletableFuture<Void>());
+		pendingJoins.add(pendingJoin);
+		if (phase == Phase.ENDED) {
+			// the game may have ended before the join was queued - no tick will place it
+			refusePendingJoins();
+		}
+		return pendingJoin.joined;
+	}
+
+	/**
+	 * Place every queued join. Runs on the ticking thread at the start of a tick.
+	 */
+	private void placePendingJoins() {
+		PendingJoin pendingJoin;
+		while ((pendingJoin = pendingJoins.poll()) != null) {
+			placeJoin(pendingJoin);
+		}
+	}
+
+	/**
+	 * Place a joining snake and complete its join.
+	 */
+	private void placeJoin(PendingJoin pendingJoin) {
+		try {
+			addSnake(pendingJoin.snake);
+			pendingJoin.joined.complete(null);
+		} catch (BoardFullException e) {
+			pendingJoin.joined.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Refuse every queued join once the game has ended.
+	 */
+	private void refusePendingJoins() {
+		PendingJoin pendingJoin;
+		while ((pendingJoin = pendingJoins.poll()) != null) {
+			pendingJoin.joined.completeExceptionally(new IllegalStateException("game " + gameId + " has ended"));
+		}
+	}
+
+	/**
+	 * Enter a later phase and open its latch, and the latches of any phase skipped.
+	 * Does nothing if the game is already in or past the phase.
+	 * 
+	 * @return true if the game entered the phase
+	 */
+	private synchronized boolean advancePhase(Phase next) {
+		if (next.ordinal() <= phase.ordinal()) {
+			return false;
+		}
+		phase = next;
+		for (int i = 0; i <= next.ordinal(); i++) {
+			phaseReached[i].countDown();
+		}
+		if (next == Phase.ENDED) {
+			refusePendingJoins();
+		}
+		return true;
 	}
 
 	/**
 	 * Add the snake to the game and create a model representing the snake in the gamestate.
+	 * 
+	 * @throws BoardFullException if there is no room on the game board for the snake
 	 */
-	private void addSnake(Snake snake) {
-		// add snake
-		this.snakes.put(snake.getSnakeId(), snake);
-		// add snake model
+	private synchronized void addSnake(Snake snake) throws BoardFullException {
+		// add snake model - the registry follows, and a rejoining snake keeps its slot
 		gameState.addSnakeModel(snake);
+
+		// replace the publish slots
+		Snake[] joined = snakeRegistry.getSnakes();
+		PublishSlot[] slots = new PublishSlot[joined.length];
+		for (int i = 0; i < joined.length; i++) {
+			slots[i] = slotFor(joined[i]);
+		}
+		publishSlots = slots;
+	}
+
+	/**
+	 * Get the existing publish slot for a snake, or a new one if the snake has none.
+	 */
+	private PublishSlot slotFor(Snake snake) {
+		for (PublishSlot publishSlot : publishSlots) {
+			if (publishSlot.snake == snake) {
+				return publishSlot;
+			}
+		}
+		return new PublishSlot(snake);
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	public int getGameId() {
+		return gameId;
+	}
+
+	public int getTickCount() {
+		return tickCount;
+	}
+
+	public int getRound() {
+		return round;
+	}
+
+	public int getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * Set the number of rounds in the match. Takes effect at the end of the current
+	 * round.
+	 * 
+	 * @param rounds rounds to play, at least 1
+	 */
+	public void setRounds(int rounds) {
+		if (rounds < 1) {
+			throw new IllegalArgumentException("match of " + rounds + " rounds");
+		}
+		this.rounds = rounds;
+		matchStats.reserveRounds(rounds);
+	}
+
+	/**
+	 * Get the scores and round wins of the match so far.
+	 */
+	public MatchStats getMatchStats() {
+		return matchStats;
+	}
+
+	/**
+	 * Get the heap allocated by the ticks of this game so far, as measured by the
+	 * per-thread allocation counter. Stops growing once the game is warm.
+	 * 
+	 * @return bytes allocated by ticks, 0 on JVMs without per-thread allocation accounting
+	 */
+	public long getTickBytesAllocated() {
+		return tickBytesAllocated;
+	}
+
+	public boolean isGameEnded() {
+		return phase == Phase.ENDED;
+	}
+
+	public Phase getPhase() {
+		return phase;
+	}
+
+	/**
+	 * Wait for the game to reach a phase.
+	 * 
+	 * @param target  the phase to wait for
+	 * @param timeout the longest time to wait
+	 * @param unit    unit of the timeout
+	 * @return true if the game reached the phase, or a later one, before the timeout
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean awaitPhase(Phase target, long timeout, TimeUnit unit) throws InterruptedException {
+		return phaseReached[target.ordinal()].await(timeout, unit);
+	}
+
+	/**
+	 * Set the number of ticks between the lobby filling and the snakes starting to
+	 * move. Snakes can still join during the countdown.
+	 * 
+	 * @param countdownTicks ticks of countdown, 0 to start moving on the first tick
+	 */
+	public void setCountdownTicks(int countdownTicks) {
+		if (countdownTicks < 0) {
+			throw new IllegalArgumentException("countdown of " + countdownTicks + " ticks");
+		}
+		this.countdownTicks = countdownTicks;
+	}
+
+	/**
+	 * Add a read-only spectator to the game. Every spectator is offered the same
+	 * encoded frame each tick - see SpectatorFeed.
+	 * 
+	 * @param spectator the spectator to add
+	 */
+	public void addSpectator(Spectator spectator) {
+		spectatorFeed.addSpectator(spectator);
+	}
+
+	/**
+	 * Remove a spectator from the game.
+	 * 
+	 * @param spectator the spectator to remove
+	 * @return true if the spectator was watching
+	 */
+	public boolean removeSpectator(Spectator spectator) {
+		return spectatorFeed.removeSpectator(spectator);
+	}
+
+	public SpectatorFeed getSpectatorFeed() {
+		return spectatorFeed;
+	}
+
+	/**
+	 * Get the bus the game events of this game are published on. Subscribe to it to
+	 * observe spawns, food eaten, deaths and score changes.
+	 */
+	public GameEventBus getEventBus() {
+		return gameState.getEventBus();
+	}
+
+	/**
+	 * Get the registry of every snake that has joined this game, by slot, with the
+	 * live snakes marked.
+	 */
+	public SnakeRegistry getSnakeRegistry() {
+		return snakeRegistry;
+	}
+
+	/**
+	 * Get the ledger of every score change in this game, for score history and live
+	 * rankings. Reading it never holds up the tick.
+	 */
+	public ScoreLedger getScoreLedger() {
+		return gameState.getScoreLedger();
+	}
+
+	/**
+	 * Set the fraction of the game board that should hold food. Food is topped up
+	 * to the target every tick, in addition to the regular food drops.
+	 * 
+	 * @param foodDensity fraction (0 to 1) of game board tiles, 0 for regular drops only
+	 */
+	public void setFoodDensity(double foodDensity) {
+		this.foodDensity = foodDensity;
+	}
+
+	public double getFoodDensity() {
+		return foodDensity;
 	}
 
 	/**
@@ -269,109 +871,100 @@ public class GameServer implements Runnable {
 	}
 
 	/**
-	 * Thread safe access to clone the game snake model state from the server.
+	 * Thread safe access to the number of snakes on the game board, alive or dead.
 	 * 
-	 * @return a ConcurrentHashMap representing the position of all the snakes on the game
-	 *         board mapped to snake ID
+	 * @return the number of snakes that have joined the game
 	 */
-	public ConcurrentHashMap<Integer, SnakeModel> cloneSnakeModels() {
-		return gameState.cloneSnakeModels();
+	public int getSnakeCount() {
+		return gameState.getSnakeCount();
 	}
 
 	// ========== INNER WORKER CLASSES ==========
 
 	/**
-	 * Worker class to get Snake directions from the input buffers and update the game
-	 * state.
+	 * Single snapshot hand-off to one snake. If the snake has not been handed the
+	 * previous snapshot yet it is replaced by the newer one and released, so a slow
+	 * client never holds up more than one snapshot.
 	 */
-	private class GameStateUpdateWorker extends Thread {
-		int snakeId;
-		Snake snake;
-		Direction direction;
+	private static final class PublishSlot {
+		final Snake snake;
+		final AtomicReference<GameSnapshot> pending;
 
-		/**
-		 * Construct a Worker to get Snake directions from the input buffers and update 
-		 * the game state.
-		 * 
-		 * @param snakeEntry an entry in the gameserver ConcurrentHashMap of snakes
-		 *                   in the game
-		 */
-		public GameStateUpdateWorker(Entry<Integer, Snake> snakeEntry) {
-			snakeId = snakeEntry.getKey();
-			snake = snakeEntry.getValue();
+		PublishSlot(Snake snake) {
+			this.snake = snake;
+			pending = new AtomicReference<GameSnapshot>();
 		}
 
 		/**
-		 * Runnable method to update snake direction from direction buffer then
-		 * update snake models and the game state.
+		 * Leave a snapshot in the slot. Runs on the ticking thread.
 		 */
-		public void run() {
-
-			// consume from input buffers and update snake current heading.
-			try {
-				direction = snake.directionBufferConsume();
-				// update snake current heading
-				snake.updateCurrentHeading(direction);
-			} catch (EmptyBufferException e) {
-				// no new snake direction input - do nothing
-			}
-
-			// get snakes current heading
-			direction = snake.getCurrentHeading();
-
-			if (direction == null) {
-				// start of game and snake has yet to move
-			} else {
-				// update snakemodel
-				gameState.moveSnake(snakeId, direction);
+		void offer(GameSnapshot serverSnapshot) {
+			GameSnapshot stale = pending.getAndSet(serverSnapshot);
+			if (stale != null) {
+				// client never received the previous snapshot
+				stale.release();
 			}
 		}
 	}
 
 	/**
-	 * Worker class to get Snake directions from the input buffers and update the game
-	 * state.
+	 * Worker class to send the game state to clients. Each game has one worker,
+	 * submitted to the PUBLISH pool at most once per tick and only if it is not
+	 * already waiting to run, so the tick rarely touches the pool queue lock. A
+	 * worker dropped by a saturated pool is resubmitted after PUBLISH_RETRY_TICKS.
 	 */
-	private class PublishGameStateWorker extends Thread {
-		Snake snake;
-		GameState serverGameState;
+	private class PublishGameStateWorker implements Runnable {
+		private final AtomicBoolean scheduled; // true from submission until the worker starts
+		private int scheduledTick; // tick the worker was last submitted, written by the ticking thread
+
+		public PublishGameStateWorker() {
+			scheduled = new AtomicBoolean(false);
+		}
 
 		/**
-		 * Construct a Worker to send the game state to clients.
-		 * 
-		 * @param snakeEntry an entry in the gameserver ConcurrentHashMap of snakes
-		 *                   in the game
+		 * Submit the worker to the PUBLISH pool unless it is already waiting to run.
+		 * Runs on the ticking thread.
 		 */
-		public PublishGameStateWorker(Entry<Integer, Snake> snakeEntry, GameState serverGameState) {
-			snake = snakeEntry.getValue();
-			this.serverGameState = serverGameState;
+		void schedule() {
+			if (scheduled.compareAndSet(false, true) || tickCount - scheduledTick >= PUBLISH_RETRY_TICKS) {
+				scheduledTick = tickCount;
+				publishExecutor.execute(this);
+			}
 		}
 
 		/**
 		 * Runnable method to update clients with the current server game state,
 		 */
 		public void run() {
-			snake.submitGameState(serverGameState);
+			// snapshots left after this point are delivered by the next run
+			scheduled.set(false);
+			deliverPending();
 		}
-	}
-
-	/**
-	 * Worker class to login non-player-character snakes.
-	 */
-	private class NPCSnakeLoginWorker extends Thread {
-		NPCSnake npcSnake;
 
 		/**
-		 * Construct a Worker to update the GameState representing the game board from the game server.
+		 * Hand every client the snapshot waiting in its publish slot. Runs on the PUBLISH
+		 * pool, and on the ticking thread at game over.
 		 */
-		public NPCSnakeLoginWorker(NPCSnake npcSnake) {
-			this.npcSnake = npcSnake;
+		void deliverPending() {
+			for (PublishSlot publishSlot : publishSlots) {
+				GameSnapshot serverSnapshot = publishSlot.pending.getAndSet(null);
+				if (serverSnapshot != null) {
+					publishSlot.snake.submitGameState(serverSnapshot);
+				}
+			}
 		}
+	}
 
-		public void run() {
-			// automatically login npc snakes
-			addSnake(npcSnake);
-			System.out.println("added NPCsnake " + npcSnake.getSnakeId() + " to game");
+	/**
+	 * A snake waiting to join the game and the future completed once it has.
+	 */
+	private static final class PendingJoin {
+		final Snake snake;
+		final CompletableFuture<Void> joined;
+
+		PendingJoin(Snake snake, CompletableFuture<Void> joined) {
+			this.snake = snake;
+			this.joined = joined;
 		}
 	}
 }
@@ -0,0 +1,304 @@
+package server;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import server.GameState.GameTile;
+
+/**
+ * Read-only snapshot of a game state published at the end of a tick. Snapshots
+ * are pooled and reference counted - every holder of a snapshot calls release()
+ * once it is done with it, and the last release returns the snapshot to its
+ * game states pool to be overwritten by a later tick. In steady state
+ * publishing a tick reuses the same few snapshots and allocates nothing.
+ * <p>
+ * Snakes are stored by snake table slot. Snake bodies are stored as packed
+ * tiles (row * board size + column), head first, in one shared array.
+ */
+public final class GameSnapshot {
+	private final SnapshotPool pool; // pool the snapshot is returned to, owned by the game state
+	private final AtomicInteger references;
+	private volatile int generation; // odd while the snapshot is being overwritten
+
+	private final int boardSize;
+	private final GameTile[][] gameBoard;
+	private int tick;
+	private int freeTileCount;
+	private int foodCount;
+	private int snakeCount;
+	private int[] snakeIds;
+	private int[] bodyStart;
+	private int[] bodyLength;
+	private int[] bodyTiles;
+	private int[] slotById; // snake id -> index, -1 if the snake is not in the snapshot
+
+	/**
+	 * CONSTRUCTOR for an empty snapshot belonging to a game state snapshot pool.
+	 *
+	 * @param pool      the pool to return the snapshot to when it is released
+	 * @param boardSize number of rows and columns on the game board
+	 */
+	GameSnapshot(SnapshotPool pool, int boardSize) {
+		this.pool = pool;
+		this.boardSize = boardSize;
+		references = new AtomicInteger(0);
+		gameBoard = new GameTile[boardSize][boardSize];
+		snakeIds = new int[8];
+		bodyStart = new int[8];
+		bodyLength = new int[8];
+		// every snake tile fits, so writing never grows the buffer
+		bodyTiles = new int[boardSize * boardSize];
+		slotById = new int[0];
+	}
+
+	/**
+	 * Overwrite the snapshot with the back buffer of a game state. Caller must hold
+	 * the game state lock. The snapshot is returned holding one reference.
+	 */
+	void write(int publishedTick, GameTile[][] board, SnakeTable snakeTable, int freeTiles, int food) {
+		generation++; // odd - optimistic readers retry
+		VarHandle.releaseFence();
+		tick = publishedTick;
+		for (int row = 0; row < board.length; row++) {
+			System.arraycopy(board[row], 0, gameBoard[row], 0, board[row].length);
+		}
+		freeTileCount = freeTiles;
+		foodCount = food;
+
+		while (snakeIds.length < snakeTable.count) {
+			growSnakes();
+		}
+		int tileCount = 0;
+		for (int slot = 0; slot < snakeTable.count; slot++) {
+			int length = snakeTable.length[slot];
+			while (tileCount + length > bodyTiles.length) {
+				bodyTiles = Arrays.copyOf(bodyTiles, bodyTiles.length * 2);
+			}
+			snakeIds[slot] = snakeTable.ids[slot];
+			bodyStart[slot] = tileCount;
+			bodyLength[slot] = length;
+			for (int i = 0; i < length; i++) {
+				bodyTiles[tileCount++] = snakeTable.bodyTile(slot, i);
+			}
+			// index new snakes by id
+			if (slot >= snakeCount) {
+				int snakeId = snakeTable.ids[slot];
+				if (snakeId >= slotById.length) {
+					int previous = slotById.length;
+					slotById = Arrays.copyOf(slotById, Math.max(snakeId + 1, previous * 2));
+					Arrays.fill(slotById, previous, slotById.length, -1);
+				}
+				slotById[snakeId] = slot;
+			}
+		}
+		snakeCount = snakeTable.count;
+		generation++; // even - stable
+		references.set(1);
+	}
+
+	/**
+	 * Take another reference to the snapshot. Fails if the snapshot has already been
+	 * released back to its pool.
+	 *
+	 * @return true if the caller now holds a reference and must release it
+	 */
+	boolean tryRetain() {
+		int count;
+		do {
+			count = references.get();
+			if (count == 0) {
+				return false;
+			}
+		} while (!references.compareAndSet(count, count + 1));
+		return true;
+	}
+
+	/**
+	 * Give up a reference to the snapshot. The snapshot must not be used after it is
+	 * released. The last release returns the snapshot to its pool - if the pool is
+	 * full the snapshot is left for garbage collection.
+	 */
+	public void release() {
+		if (references.decrementAndGet() == 0) {
+			pool.offer(this);
+		}
+	}
+
+	/**
+	 * Start an optimistic read of a snapshot that is not retained.
+	 *
+	 * @return the generation to pass to validate(), odd if the read must be retried
+	 */
+	int generation() {
+		return generation;
+	}
+
+	/**
+	 * Finish an optimistic read started with generation().
+	 *
+	 * @param startGeneration generation read before the data
+	 * @return true if the snapshot was not overwritten during the read
+	 */
+	boolean validate(int startGeneration) {
+		VarHandle.acquireFence();
+		return (startGeneration & 1) == 0 && generation == startGeneration;
+	}
+
+	/**
+	 * Get the GameTile at the coordinate supplied.
+	 *
+	 * @param row    row coordinate for GameTile
+	 * @param column column coordinate for GameTile
+	 * @return       the GameTile at the given coordinate, null for an empty tile
+	 */
+	public GameTile getGameTile(int row, int column) {
+		return gameBoard[row][column];
+	}
+
+	/**
+	 * Bulk read of one row of the game board.
+	 *
+	 * @param row         row to copy
+	 * @param destination array of at least board size tiles to copy into, or null to
+	 *                    allocate one
+	 * @return            the destination array holding the row
+	 */
+	public GameTile[] copyRow(int row, GameTile[] destination) {
+		if (destination == null) {
+			destination = new GameTile[boardSize];
+		}
+		System.arraycopy(gameBoard[row], 0, destination, 0, boardSize);
+		return destination;
+	}
+
+	/**
+	 * Bulk read of a rectangular region of the game board. The region wraps around
+	 * the board edges the same way snakes do, so it can be centred on any tile.
+	 *
+	 * @param row         row coordinate of the top left tile of the region
+	 * @param column      column coordinate of the top left tile of the region
+	 * @param rows        number of rows in the region, at most the board size
+	 * @param columns     number of columns in the region, at most the board size
+	 * @param destination array of at least [rows][columns] tiles to copy into, or null
+	 *                    to allocate one
+	 * @return            the destination array holding the region
+	 */
+	public GameTile[][] copyRegion(int row, int column, int rows, int columns, GameTile[][] destination) {
+		int size = boardSize;
+		if (rows > size || columns > size) {
+			throw new IllegalArgumentException("region " + rows + "x" + columns + " larger than game board");
+		}
+		if (destination == null) {
+			destination = new GameTile[rows][columns];
+		}
+		int startColumn = Math.floorMod(column, size);
+		int firstColumns = Math.min(columns, size - startColumn);
+		for (int r = 0; r < rows; r++) {
+			GameTile[] source = gameBoard[Math.floorMod(row + r, size)];
+			System.arraycopy(source, startColumn, destination[r], 0, firstColumns);
+			// columns wrapped around the right edge
+			System.arraycopy(source, 0, destination[r], firstColumns, columns - firstColumns);
+		}
+		return destination;
+	}
+
+	/**
+	 * Check if a given snake occupies the given coordinate on the game board.
+	 *
+	 * @param snakeId the id number of the snake to check
+	 * @param row     row coordinate to check
+	 * @param column  column coordinate to check
+	 * @return        true if the snake occupies the coordinate, false otherwise
+	 */
+	public boolean givenSnakeOccupies(int snakeId, int row, int column) {
+		int index = indexOf(snakeId);
+		if (index < 0) {
+			return false;
+		}
+		int tile = row * boardSize + column;
+		for (int i = bodyStart[index]; i < bodyStart[index] + bodyLength[index]; i++) {
+			if (bodyTiles[i] == tile) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Find the snapshot index of a snake.
+	 *
+	 * @param snakeId the snake identification number
+	 * @return the index of the snake, or -1 if the snake is not in the snapshot
+	 */
+	public int indexOf(int snakeId) {
+		return snakeId >= 0 && snakeId < slotById.length ? slotById[snakeId] : -1;
+	}
+
+	/**
+	 * Get the number of snakes in the snapshot.
+	 */
+	public int getSnakeCount() {
+		return snakeCount;
+	}
+
+	/**
+	 * Get the id of the snake at a snapshot index.
+	 */
+	public int getSnakeId(int index) {
+		return snakeIds[index];
+	}
+
+	/**
+	 * Get the length of the snake at a snapshot index.
+	 */
+	public int getSnakeLength(int index) {
+		return bodyLength[index];
+	}
+
+	/**
+	 * Get a body tile of the snake at a snapshot index.
+	 *
+	 * @param index snapshot index of the snake
+	 * @param i     position along the body, 0 for the head
+	 * @return packed tile (row * board size + column)
+	 */
+	public int getSnakeTile(int index, int i) {
+		return bodyTiles[bodyStart[index] + i];
+	}
+
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	/**
+	 * Get the tick the snapshot was published in. Snapshots published between ticks,
+	 * when snakes join, carry the tick that follows.
+	 */
+	public int getTick() {
+		return tick;
+	}
+
+	/**
+	 * Get the number of empty tiles on the game board.
+	 */
+	public int getFreeTileCount() {
+		return freeTileCount;
+	}
+
+	/**
+	 * Get the number of tiles holding bonus or malus food.
+	 */
+	public int getFoodCount() {
+		return foodCount;
+	}
+
+	// ================ PRIVATE METHODS ================
+
+	private void growSnakes() {
+		int capacity = snakeIds.length * 2;
+		snakeIds = Arrays.copyOf(snakeIds, capacity);
+		bodyStart = Arrays.copyOf(bodyStart, capacity);
+		bodyLength = Arrays.copyOf(bodyLength, capacity);
+	}
+}
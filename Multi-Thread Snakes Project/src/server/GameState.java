@@ -4,22 +4,61 @@ import static server.GameState.GameTile.FOOD_BONUS;
 import static server.GameState.GameTile.FOOD_MALUS;
 import static server.GameState.GameTile.SNAKE;
 
-import java.util.LinkedList;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Map;
+import java.util.SortedMap;
 
 import abstractClasses.Snake;
 import abstractClasses.Snake.Direction;
+import exceptions.BoardFullException;
+import server.GameEvent.Type;
 
 /**
- * Class to represent the game state for a game of snake. Inner class SnakeModel
- * represents a snakes position on the game board.
+ * Class to represent the game state for a game of snake. Snake positions are
+ * held in a SnakeTable - one slot per snake in parallel primitive arrays, with
+ * each body a ring buffer of packed tiles. An index of the free tiles is kept
+ * up to date with every tile write so snakes and food are placed in O(1).
+ * <p>
+ * The game state is double buffered. The tick writes to the back buffer under the
+ * GameState lock, then publishes it with swapBuffers(). The front buffer is a
+ * GameSnapshot - consumers that hold on to a tick retain it with acquireSnapshot()
+ * and release it when done, so snapshots are recycled through a bounded pool
+ * instead of allocated every tick. Board reads on the GameState itself are lock
+ * free optimistic reads of the front snapshot, retried if the snapshot is
+ * recycled mid read, so they never wait for the tick and never see a half
+ * finished tick.
+ * <p>
+ * Spawns, food eaten, deaths and score changes are published as GameEvents on
+ * the game states event bus as the tick makes them, for stats, replay or UI
+ * subscribers to observe without slowing the tick. Score changes are also kept
+ * in the game states score ledger, with their tick and cause, for score history
+ * and live rankings.
+ * <p>
+ * Spawns and deaths also mark the snakes alive or dead in the game states snake
+ * registry, which the server reads for live snakes without taking the GameState
+ * lock.
  */
 public class GameState {
-	public static final int GAME_SIZE = 40;
-	// shared variables
-	private volatile GameTile[][] gameBoard;
-	private volatile ConcurrentHashMap<Integer, SnakeModel> snakeModels;
+	public static final int GAME_SIZE = 40; // default game board size
+	public static final int SNAPSHOT_POOL_SIZE = 8; // released snapshots kept for reuse
+	private final int boardSize;
+	// back buffer - guarded by the GameState lock
+	private GameTile[][] gameBoard;
+	private final SnakeTable snakeTable;
+	private FreeTileIndex freeTiles;
+	private int foodCount; // number of FOOD_BONUS and FOOD_MALUS tiles
+	// front buffer - replaced by swapBuffers(), never modified while retained
+	private volatile GameSnapshot front;
+	private final SnapshotPool snapshotPool;
+	private volatile int snapshotsCreated;
+	// resolveMoves() scratch space, reused every tick
+	private int[] moveSlots;
+	private int[] newHeads;
+	private boolean[] collided;
+	private final int[] headCounts; // head position hash - snakes per new head tile
+	// game events - published under the GameState lock
+	private final GameEventBus eventBus;
+	private int eventTick; // tick the next event happens in
+	private final ScoreLedger scoreLedger; // written under the GameState lock
 
 	/**
 	 * Enumerated type for the game tiles in the game of snake.
@@ -29,50 +68,158 @@ public class GameState {
 	}
 
 	/**
-	 * CONSTRUCTOR for GameState.
+	 * CONSTRUCTOR for GameState with the default game board size.
 	 */
 	public GameState() {
-		gameBoard = new GameTile[GAME_SIZE][GAME_SIZE];
-		snakeModels = new ConcurrentHashMap<Integer, SnakeModel>();
+		this(GAME_SIZE);
+	}
+
+	/**
+	 * CONSTRUCTOR for GameState.
+	 * 
+	 * @param boardSize number of rows and columns on the game board
+	 */
+	public GameState(int boardSize) {
+		this.boardSize = boardSize;
+		gameBoard = new GameTile[boardSize][boardSize];
+		snakeTable = new SnakeTable(boardSize * boardSize);
+		freeTiles = new FreeTileIndex(boardSize, boardSize);
+		foodCount = 0;
+		moveSlots = new int[8];
+		newHeads = new int[8];
+		collided = new boolean[8];
+		headCounts = new int[boardSize * boardSize];
+		eventBus = new GameEventBus();
+		scoreLedger = new ScoreLedger(GameServer.TICK_MILLIS, eventBus);
+		snapshotPool = new SnapshotPool(SNAPSHOT_POOL_SIZE);
+		swapBuffers();
 	}
 	
 	/**
-	 * COPY CONSTRUCTOR for GameState.
+	 * COPY CONSTRUCTOR for GameState. Copies the back buffer of the argument game state.
 	 */
 	public GameState(GameState gameState) {
-		gameBoard = gameState.cloneGameBoard();
-		snakeModels = gameState.cloneSnakeModels();
+		boardSize = gameState.boardSize;
+		synchronized (gameState) {
+			gameBoard = cloneBoard(gameState.gameBoard);
+			snakeTable = new SnakeTable(gameState.snakeTable);
+		}
+		rebuildFreeTiles();
+		moveSlots = new int[8];
+		newHeads = new int[8];
+		collided = new boolean[8];
+		headCounts = new int[boardSize * boardSize];
+		eventBus = new GameEventBus();
+		scoreLedger = new ScoreLedger(GameServer.TICK_MILLIS, eventBus);
+		snapshotPool = new SnapshotPool(SNAPSHOT_POOL_SIZE);
+		swapBuffers();
+	}
+
+	/**
+	 * Adds a snake to the gamestate. Snake is placed in a random unoccupied starting
+	 * location on the game board. A snake that is already in the gamestate is
+	 * removed from its old location first. The new snake is published to readers
+	 * immediately.
+	 * 
+	 * @param snake the snake to add
+	 * @throws BoardFullException if there is no empty tile to start the snake on
+	 */
+	protected synchronized void addSnakeModel(Snake snake) throws BoardFullException {
+		int tile = freeTiles.randomTile();
+		if (tile < 0) {
+			throw new BoardFullException("snake " + snake.getSnakeId());
+		}
+		placeSnake(snake, freeTiles.rowOf(tile), freeTiles.columnOf(tile));
+		swapBuffers();
 	}
 
 	/**
-	 * Adds a new snake model representing the snake with supplied ID to the set of
-	 * snakemodels in the gamestate. Snake is placed in a random unoccupied starting
-	 * location on the game board.
+	 * Adds a snake to the gamestate at the given starting location. A snake that is
+	 * already in the gamestate is removed from its old location first. The new snake
+	 * is published to readers immediately.
 	 * 
-	 * @param snakeId snakes id number
+	 * @param snake  the snake to add
+	 * @param row    row coordinate of the starting location
+	 * @param column column coordinate of the starting location
+	 * @throws IllegalArgumentException if the starting location is not empty
 	 */
-	protected synchronized void addSnakeModel(Snake snake) {
-		int[] startLocation = randomEmptyTile();
-		SnakeModel newSnake = new SnakeModel(startLocation, snake);
-		getSnakeModels().put(snake.getSnakeId(), newSnake);
+	public synchronized void addSnakeModel(Snake snake, int row, int column) {
+		if (gameBoard[row][column] != null) {
+			throw new IllegalArgumentException("tile " + row + "," + column + " is not empty");
+		}
+		placeSnake(snake, row, column);
+		swapBuffers();
+	}
+
+	/**
+	 * Clear the game board and respawn every snake at a random empty tile for a new
+	 * round. The board, free tile index, snake table slots and body buffers are all
+	 * reused, so a reset allocates nothing once the game is warm. Scores are left
+	 * alone - they run on across the rounds of a match. The new round is published to
+	 * readers immediately.
+	 * 
+	 * @return the number of snakes respawned - snakes left over once the board is full
+	 *         stay dead
+	 */
+	public synchronized int resetRound() {
+		// clear snakes first so a respawned snake is never cleared from a reused tile
+		for (int slot = 0; slot < snakeTable.count; slot++) {
+			clearSnake(slot);
+		}
+		// clear the food
+		for (int row = 0; row < boardSize; row++) {
+			for (int column = 0; column < boardSize; column++) {
+				if (gameBoard[row][column] != null) {
+					setTile(row, column, null);
+				}
+			}
+		}
+		int respawned = 0;
+		for (int slot = 0; slot < snakeTable.count; slot++) {
+			int tile = freeTiles.randomTile();
+			if (tile < 0) {
+				break;
+			}
+			placeSnake(snakeTable.snakes[slot], freeTiles.rowOf(tile), freeTiles.columnOf(tile));
+			respawned++;
+		}
+		swapBuffers();
+		return respawned;
 	}
 
 	/**
 	 * Thread safe method that randomly adds 1 piece each of bonus and malus food
-	 * to unoccupied tiles on the game board.
+	 * to unoccupied tiles on the back buffer game board. Runs on the tick so it
+	 * reports a full board instead of throwing.
+	 * 
+	 * @return true if the food was added, false if there was no empty tile for it
 	 */
-	protected void addFood() {
-		// add bonus food
-		int[] coordinate = randomEmptyTile();
-		setGameTile(coordinate, FOOD_BONUS);
-		// add malus food
-		coordinate = randomEmptyTile();
-		setGameTile(coordinate, FOOD_MALUS);
+	protected synchronized boolean addFood() {
+		// add bonus food, then malus food
+		return addRandomTile(FOOD_BONUS) && addRandomTile(FOOD_MALUS);
 	}
 
 	/**
-	 * Method to check if a given snakeModel occupies the given coordinate on
-	 * the game board.
+	 * Thread safe method that adds bonus and malus food in turn until the given
+	 * fraction of the back buffer game board holds food, or the board is full.
+	 * 
+	 * @param foodDensity target fraction (0 to 1) of game board tiles holding food
+	 * @return the number of pieces of food added
+	 */
+	protected synchronized int addFoodToDensity(double foodDensity) {
+		int target = (int) (foodDensity * boardSize * boardSize);
+		int added = 0;
+		while (foodCount < target && freeTiles.size() > 0) {
+			int tile = freeTiles.randomTile();
+			setTile(freeTiles.rowOf(tile), freeTiles.columnOf(tile), foodCount % 2 == 0 ? FOOD_BONUS : FOOD_MALUS);
+			added++;
+		}
+		return added;
+	}
+
+	/**
+	 * Method to check if a given snake occupies the given coordinate on the front
+	 * buffer game board.
 	 * 
 	 * @param snakeId the id number of the snake to check
 	 * @param row     row coordinate to check
@@ -81,310 +228,556 @@ public class GameState {
 	 *                board coordinate, false otherwise
 	 */
 	public boolean givenSnakeOccupies(int snakeId, int row, int column) {
-		return snakeModels.get(snakeId).occupiesTile(row, column);
+		GameSnapshot snapshot = acquireSnapshot();
+		try {
+			return snapshot.givenSnakeOccupies(snakeId, row, column);
+		} finally {
+			snapshot.release();
+		}
 	}
 
 	/**
-	 * Thread safe method to clone a copy of the gameBoard.
+	 * Lock free method to clone a copy of the front buffer gameBoard.
 	 * 
 	 * @return a deep copy of the game board
 	 */
-	public final synchronized GameTile[][] cloneGameBoard() {
-		GameTile[][] gameBoardCopy = new GameTile[gameBoard.length][];
-		for (int i = 0; i < gameBoard.length; i++) {
-			// for each row clone the column
-			gameBoardCopy[i] = gameBoard[i].clone();
+	public final GameTile[][] cloneGameBoard() {
+		return copyRegion(0, 0, boardSize, boardSize, null);
+	}
+
+	/**
+	 * Publish the back buffer to readers as the new front snapshot. The tick calls
+	 * this once all of its writes are done, so readers only ever see whole ticks.
+	 * The snapshot is taken from the pool, or created if every pooled snapshot is
+	 * still retained. The old front snapshot is released and returns to the pool
+	 * once its last consumer releases it.
+	 */
+	public synchronized void swapBuffers() {
+		GameSnapshot snapshot = snapshotPool.poll();
+		if (snapshot == null) {
+			snapshot = new GameSnapshot(snapshotPool, boardSize);
+			snapshotsCreated++;
 		}
-		return gameBoardCopy;
+		snapshot.write(eventTick, gameBoard, snakeTable, freeTiles.size(), foodCount);
+		GameSnapshot previous = front;
+		front = snapshot;
+		if (previous != null) {
+			previous.release();
+		}
+	}
+
+	/**
+	 * Publish the end of a tick on the event bus and wake blocking subscribers.
+	 * Events published after this belong to the next tick.
+	 * 
+	 * @param tick the tick that has ended
+	 */
+	public synchronized void endTick(int tick) {
+		eventBus.publish(Type.TICK_END, tick, 0, 0, 0, 0);
+		scoreLedger.endTick(tick);
+		eventTick = tick + 1;
+		eventBus.signal();
+	}
+
+	/**
+	 * Publish the end of the game on the event bus, so subscribers can finish. Called
+	 * once the game has ended.
+	 */
+	public synchronized void endGame() {
+		eventBus.publish(Type.GAME_END, eventTick, 0, 0, 0, 0);
+		eventBus.signal();
 	}
 
 	/**
-	 * Thread safe method that clones the snakeModels concurrent hash map.
+	 * Retain the current front snapshot. The caller must release() the snapshot once
+	 * it is done with it.
 	 * 
-	 * @return a deep copy of the snakeModels ConcurrentHashMap.
-	 */
-	public final synchronized ConcurrentHashMap<Integer, SnakeModel> cloneSnakeModels() {
-		ConcurrentHashMap<Integer, SnakeModel> SnakeModelsClone = new ConcurrentHashMap<Integer, SnakeModel>();
-		// for each key,value pair in original
-		for (ConcurrentHashMap.Entry<Integer, SnakeModel> snakeModelEntry : getSnakeModels().entrySet()) {
-			// put a cloned key,value pair in the clone
-			SnakeModelsClone.put(snakeModelEntry.getKey(), new SnakeModel(snakeModelEntry.getValue()));
+	 * @return the latest published snapshot of the game state
+	 */
+	public GameSnapshot acquireSnapshot() {
+		GameSnapshot snapshot;
+		do {
+			snapshot = front;
+			// fails only if the snapshot was replaced and recycled since it was read
+		} while (!snapshot.tryRetain());
+		return snapshot;
+	}
+
+	/**
+	 * Thread safe method to move every snake one tile simultaneously on the back
+	 * buffer. Every move is resolved against the game board as it was at the start
+	 * of the tick, so the outcome does not depend on the order the moves are
+	 * applied in:
+	 * <ul>
+	 * <li>snakes whose new heads land on the same tile collide head on and all die.
+	 * Food on a contested tile is left uneaten.</li>
+	 * <li>a snake whose new head lands on a tile occupied by any snake dies. This
+	 * includes snakes swapping head positions.</li>
+	 * <li>every other snake moves, eating any food on its new head tile.</li>
+	 * </ul>
+	 * Moves are applied in the order given so score changes are reported in a fixed
+	 * order. Moves for snakes that are dead or not in the gamestate are ignored.
+	 * 
+	 * @param snakeIds   the snake ID of each move
+	 * @param directions the direction to move each snake
+	 * @param moveCount  number of moves in the arrays
+	 */
+	public synchronized void resolveMoves(int[] snakeIds, Direction[] directions, int moveCount) {
+		if (moveCount > moveSlots.length) {
+			int capacity = Math.max(moveCount, moveSlots.length * 2);
+			moveSlots = new int[capacity];
+			newHeads = new int[capacity];
+			collided = new boolean[capacity];
+		}
+
+		// collect the new head of every snake, counting snakes per head position
+		for (int i = 0; i < moveCount; i++) {
+			int slot = snakeTable.slotOf(snakeIds[i]);
+			if (slot >= 0 && !snakeTable.alive[slot]) {
+				slot = -1;
+			}
+			moveSlots[i] = slot;
+			if (slot >= 0) {
+				newHeads[i] = nextTile(snakeTable.headTile(slot), directions[i]);
+				headCounts[newHeads[i]]++;
+			}
+		}
+
+		// decide every collision before the board changes
+		for (int i = 0; i < moveCount; i++) {
+			if (moveSlots[i] >= 0) {
+				int newHead = newHeads[i];
+				collided[i] = headCounts[newHead] > 1 || gameBoard[newHead / boardSize][newHead % boardSize] == SNAKE;
+			}
+		}
+
+		// clear collided snakes, then move the rest - no surviving head can land on a tile
+		// another snake is entering or leaving this tick
+		for (int i = 0; i < moveCount; i++) {
+			if (moveSlots[i] >= 0 && collided[i]) {
+				killSnake(moveSlots[i], newHeads[i]);
+			}
+		}
+		for (int i = 0; i < moveCount; i++) {
+			if (moveSlots[i] >= 0) {
+				if (!collided[i]) {
+					moveSnake(moveSlots[i], newHeads[i]);
+				}
+				// clear the head position hash for the next tick
+				headCounts[newHeads[i]] = 0;
+			}
 		}
-		return SnakeModelsClone;
 	}
 
 	/**
-	 * Thread safe method to update the specified Snakemodel in the gamestate given the provided direction.
+	 * Thread safe method to move every snake one tile simultaneously on the back
+	 * buffer, resolved as resolveMoves(int[], Direction[], int). Moves are applied in
+	 * snake id order.
 	 * 
-	 * @param snakeId   the snake identification number for the snake to move
-	 * @param direction the direction to move the snake
+	 * @param moves the direction to move each snake, mapped to snake ID
 	 */
-	public synchronized void moveSnake(int snakeId, Direction direction) {
-		SnakeModel snakemodel = getSnakeModel(snakeId);
-		snakemodel.moveSnake(direction);
+	public synchronized void resolveMoves(SortedMap<Integer, Direction> moves) {
+		int[] snakeIds = new int[moves.size()];
+		Direction[] directions = new Direction[moves.size()];
+		int moveCount = 0;
+		for (Map.Entry<Integer, Direction> move : moves.entrySet()) {
+			snakeIds[moveCount] = move.getKey();
+			directions[moveCount++] = move.getValue();
+		}
+		resolveMoves(snakeIds, directions, moveCount);
 	}
 
 	// ============ SETTER & GETTER METHODS ============
 
 	/**
-	 * Sets the gameboard to match the argument game board array.
+	 * Sets the gameboard to match the argument game board array. The new game board
+	 * is published to readers immediately.
 	 * 
 	 * @param gameBoard a 2-dimensional GameTile array representing the game board
 	 */
 	public synchronized void setGameBoard(GameTile[][] gameBoard) {
 		this.gameBoard = gameBoard;
+		rebuildFreeTiles();
+		swapBuffers();
 	}
 
 	/**
-	 * Sets snakeModels to match the argument snakeModels.
+	 * Lock free getter for the GameTile on the front buffer game board at the coordinate supplied
 	 * 
-	 * @param snakeModels a HashMap representing the position of all the snakes on
-	 *                    the game board mapped to snake ID
+	 * @param row    row coordinate for GameTile
+	 * @param column column coordinate for GameTile
+	 * @return       the GameTile at the give coordinate
 	 */
-	public synchronized void setSnakeModels(ConcurrentHashMap<Integer, SnakeModel> snakeModels) {
-		this.snakeModels = snakeModels;
+	public GameTile getGameTile(int row, int column) {
+		GameSnapshot snapshot;
+		int generation;
+		GameTile tile;
+		do {
+			snapshot = front;
+			generation = snapshot.generation();
+			tile = snapshot.getGameTile(row, column);
+		} while (!snapshot.validate(generation));
+		return tile;
 	}
 
 	/**
-	 * Get the GameTile on the game board at the coordinate supplied
+	 * Lock free bulk read of one row of the front buffer game board.
 	 * 
-	 * @param row    row coordinate for GameTile
-	 * @param column column coordinate for GameTile
-	 * @return       the GameTile at the give coordinate
+	 * @param row         row to copy
+	 * @param destination array of at least board size tiles to copy into, or null to
+	 *                    allocate one
+	 * @return            the destination array holding the row
 	 */
-	public synchronized GameTile getGameTile(int row, int column) {
-		return gameBoard[row][column];
+	public GameTile[] copyRow(int row, GameTile[] destination) {
+		GameSnapshot snapshot;
+		int generation;
+		do {
+			snapshot = front;
+			generation = snapshot.generation();
+			destination = snapshot.copyRow(row, destination);
+		} while (!snapshot.validate(generation));
+		return destination;
 	}
 
 	/**
-	 * Thread-safe getter for the SnakeModel in the gamestate with given snakeID.
+	 * Lock free bulk read of a rectangular region of the front buffer game board.
+	 * Every tile is read from the same published frame, so the region is always
+	 * consistent. The region wraps around the board edges the same way snakes do,
+	 * so it can be centred on any tile.
 	 * 
-	 * @param snakeId  the id for the snakeModel
-	 * @return         the SnakeModel with given snakeId if it exists, null otherwise
+	 * @param row         row coordinate of the top left tile of the region
+	 * @param column      column coordinate of the top left tile of the region
+	 * @param rows        number of rows in the region, at most the board size
+	 * @param columns     number of columns in the region, at most the board size
+	 * @param destination array of at least [rows][columns] tiles to copy into, or null
+	 *                    to allocate one
+	 * @return            the destination array holding the region
 	 */
-	public synchronized SnakeModel getSnakeModel(int snakeId) {
-		return snakeModels.get(snakeId);
+	public GameTile[][] copyRegion(int row, int column, int rows, int columns, GameTile[][] destination) {
+		GameSnapshot snapshot;
+		int generation;
+		do {
+			snapshot = front;
+			generation = snapshot.generation();
+			destination = snapshot.copyRegion(row, column, rows, columns, destination);
+		} while (!snapshot.validate(generation));
+		return destination;
 	}
 
-	// ================ PRIVATE METHODS ================
+	/**
+	 * Thread-safe getter for the back buffer length of the snake with given snakeID.
+	 * 
+	 * @param snakeId  the snake identification number
+	 * @return         the length of the snake, 0 if it is dead or not in the gamestate
+	 */
+	public synchronized int getSnakeLength(int snakeId) {
+		int slot = snakeTable.slotOf(snakeId);
+		return slot < 0 ? 0 : snakeTable.length[slot];
+	}
 
 	/**
-	 * Set the specified gameboard coordinate to the specified GameTile type.
+	 * Thread-safe getter for the number of snakes in the back buffer, alive or dead.
 	 * 
-	 * @param coordinate int array representing [x,y] coordinate on the gameboard
-	 * @param tileType a GameTile enumerated type
+	 * @return number of snakes added to the gamestate
 	 */
-	private synchronized void setGameTile(int[] coordinate, GameTile tileType) {
-		gameBoard[coordinate[0]][coordinate[1]] = tileType;
+	public synchronized int getSnakeCount() {
+		return snakeTable.count;
 	}
 
 	/**
-	 * Returns a random integer between min (inclusive) and max (exclusive) argument
-	 * values.
+	 * Thread-safe getter for the number of live snakes in the back buffer.
 	 * 
-	 * @param min minimum value for random number range (inclusive)
-	 * @param max maximum value for random number range (exclusive)
-	 * @return a random integer
+	 * @return number of live snakes
 	 */
-	private int randomInt(int min, int max) {
-		return ThreadLocalRandom.current().nextInt(min, max);
+	public synchronized int getLiveSnakeCount() {
+		return snakeTable.liveCount;
+	}
+
+	public int getBoardSize() {
+		return boardSize;
 	}
 
 	/**
-	 * Find random coordinates of an empty tile on the game board.
+	 * Get the number of empty tiles on the front buffer game board.
 	 * 
-	 * @return int array representing [x,y] coordinate of an empty tile on the gameboard
+	 * @return number of empty tiles
 	 */
-	private synchronized int[] randomEmptyTile() {
-		GameTile tile;
-		Boolean validPosition = false;
-		int[] coordinate = { 0, 0 };
-
-		while (!validPosition) {
-			// randomise tile coordinate
-			coordinate[0] = randomInt(0, GAME_SIZE);
-			coordinate[1] = randomInt(0, GAME_SIZE);
-			// get tile at random coordinate
-			tile = gameBoard[coordinate[0]][coordinate[1]];
-			if (tile == null) {
-				// if empty tile position is valid
-				validPosition = true;
+	public int getFreeTileCount() {
+		GameSnapshot snapshot;
+		int generation;
+		int freeTileCount;
+		do {
+			snapshot = front;
+			generation = snapshot.generation();
+			freeTileCount = snapshot.getFreeTileCount();
+		} while (!snapshot.validate(generation));
+		return freeTileCount;
+	}
+
+	/**
+	 * Get the number of front buffer tiles holding bonus or malus food.
+	 * 
+	 * @return number of food tiles
+	 */
+	public int getFoodCount() {
+		GameSnapshot snapshot;
+		int generation;
+		int food;
+		do {
+			snapshot = front;
+			generation = snapshot.generation();
+			food = snapshot.getFoodCount();
+		} while (!snapshot.validate(generation));
+		return food;
+	}
+
+	/**
+	 * Get the number of snapshots this game state has ever created. Stays flat once
+	 * the snapshot pool covers every snapshot consumers are holding.
+	 * 
+	 * @return number of snapshots allocated
+	 */
+	public int getSnapshotsCreated() {
+		return snapshotsCreated;
+	}
+
+	/**
+	 * Get the bus the game events of this game state are published on.
+	 */
+	public GameEventBus getEventBus() {
+		return eventBus;
+	}
+
+	/**
+	 * Get the ledger of every score change in this game state.
+	 */
+	public ScoreLedger getScoreLedger() {
+		return scoreLedger;
+	}
+
+	/**
+	 * Get the lock free view of the snakes in this game state. Snakes appear in it as
+	 * they are added and are marked alive and dead as they spawn and die. A copied
+	 * game state has a registry of its own.
+	 */
+	public SnakeRegistry getSnakeRegistry() {
+		return snakeTable.registry;
+	}
+
+	// ================ PRIVATE METHODS ================
+
+	/**
+	 * Give a snake a slot in the snake table and place its head. Caller must hold
+	 * the GameState lock.
+	 */
+	private void placeSnake(Snake snake, int row, int column) {
+		int slot = snakeTable.slotOf(snake.getSnakeId());
+		if (slot >= 0) {
+			clearSnake(slot);
+		}
+		slot = snakeTable.add(snake);
+		scoreLedger.track(snake.getSnakeId());
+		snakeTable.pushHead(slot, row * boardSize + column);
+		setTile(row, column, SNAKE);
+		snake.onSpawn();
+		publishEvent(Type.SPAWN, slot, row * boardSize + column, 0);
+		eventBus.signal();
+	}
+
+	/**
+	 * Moves a Snake on the gameBoard onto a tile that no snake occupies. Will
+	 * increase snake length if fruit was consumed by the snake. Collisions are
+	 * resolved by resolveMoves() before the snake is moved.
+	 * 
+	 * @param slot    the snakes slot in the snake table
+	 * @param newHead packed tile of the new head location
+	 */
+	private void moveSnake(int slot, int newHead) {
+		int row = newHead / boardSize;
+		int column = newHead % boardSize;
+		Snake snake = snakeTable.snakes[slot];
+
+		if (gameBoard[row][column] == FOOD_BONUS) {
+			
+			// gain score
+			snake.adjustScore(1);
+			publishEvent(Type.FOOD_BONUS_EATEN, slot, newHead, 0);
+			publishEvent(Type.SCORE_CHANGE, slot, newHead, 1);
+			scoreLedger.record(snakeTable.ids[slot], eventTick, 1);
+			
+			// move head
+			setTile(row, column, SNAKE);
+
+		} else if (gameBoard[row][column] == FOOD_MALUS) {
+			
+			// remove tail
+			clearTile(snakeTable.removeTail(slot));
+			
+			// move tail
+			if (snakeTable.length[slot] > 0) {
+				clearTile(snakeTable.removeTail(slot));
 			}
+			
+			// lose score
+			snake.adjustScore(-1);
+			publishEvent(Type.FOOD_MALUS_EATEN, slot, newHead, 0);
+			publishEvent(Type.SCORE_CHANGE, slot, newHead, -1);
+			scoreLedger.record(snakeTable.ids[slot], eventTick, -1);
+			
+			if (snakeTable.length[slot] == 0) {
+				// set snake dead - malus food is consumed
+				setTile(row, column, null);
+				snakeTable.kill(slot);
+				publishEvent(Type.MALUS_DEATH, slot, newHead, 0);
+				return;
+			}
+			
+			// move head
+			setTile(row, column, SNAKE);
+
+		} else {
+			
+			// move tail
+			clearTile(snakeTable.removeTail(slot));
+			
+			// move head
+			setTile(row, column, SNAKE);
 		}
-		return coordinate;
+		snakeTable.pushHead(slot, newHead);
 	}
 
-	public ConcurrentHashMap<Integer, SnakeModel> getSnakeModels() {
-		return snakeModels;
+	/**
+	 * Removes a collided snake from the gameBoard and sets it dead.
+	 * 
+	 * @param slot      the snakes slot in the snake table
+	 * @param collision packed tile the snake collided on
+	 */
+	private void killSnake(int slot, int collision) {
+		clearSnake(slot);
+		snakeTable.kill(slot);
+		publishEvent(Type.COLLISION_DEATH, slot, collision, 0);
 	}
 
-	// =================== SNAKE MODEL CLASS ======================
 	/**
-	 * Inner class for the model of the snake on the game board.
+	 * Publish an event about a snake on the event bus. Caller must hold the
+	 * GameState lock.
 	 */
-	public final class SnakeModel {
-		private LinkedList<int[]> model = new LinkedList<int[]>();
-		private Snake snake;
+	private void publishEvent(Type type, int slot, int tile, int value) {
+		eventBus.publish(type, eventTick, snakeTable.ids[slot], tile / boardSize, tile % boardSize, value);
+	}
 
-		/**
-		 * CONSTRUCTOR for snake model.
-		 * 
-		 * @param head  an int array representing [x,y] game board coordinates for the
-		 *              starting position of the snake.
-		 * @param snake the snake this model represents
-		 */
-		public SnakeModel(int head[], Snake snake) {
-			this.snake = snake;
-			model.offerFirst(head);
-			setGameTile(head, SNAKE);
+	/**
+	 * Clear all tiles of a snake from the gameBoard.
+	 */
+	private void clearSnake(int slot) {
+		while (snakeTable.length[slot] > 0) {
+			clearTile(snakeTable.removeTail(slot));
 		}
+	}
 
-		/**
-		 * COPY CONSTRUCTOR.
-		 */
-		public SnakeModel(SnakeModel snakeModel) {
-			this.model = new LinkedList<int[]>(snakeModel.model);
-			this.snake = snakeModel.snake;
+	/**
+	 * Determines the packed tile for a new snake head based on direction.
+	 * 
+	 * @return packed tile for the new head location
+	 */
+	private int nextTile(int tile, Direction direction) {
+		// get x and y coordinates - NOTE: (0,0) is top left
+		int x = tile / boardSize;
+		int y = tile % boardSize;
+
+		// use modulo operation: exiting one side of board = enter other side
+		switch (direction) {
+		case UP:
+			// board size added as Java can produce negative result from modulo operation
+			y = (boardSize + y - 1) % boardSize;
+			break;
+		case DOWN:
+			y = (y + 1) % boardSize;
+			break;
+		case LEFT:
+			x = (boardSize + x - 1) % boardSize;
+			break;
+		case RIGHT:
+			x = (x + 1) % boardSize;
 		}
+		return x * boardSize + y;
+	}
 
-		/**
-		 * Check if this snake model occupies a given location on the game board.
-		 * 
-		 * @param row    row coordinate to check
-		 * @param column column coordinate to check
-		 * @return            true if this snakemodel occupies the given coordinate on the
-		 *                    gameboard, false otherwise
-		 */
-		public boolean occupiesTile(int row, int column) {
-			int[] coordinate;
-			for (int i = 0; i < model.size(); i++) {
-				coordinate = model.get(i);
-				if (coordinate[0] == row && coordinate[1] == column) {
-					return true;
-				}
-			}
-			return false;
+	/**
+	 * Empty a packed game board tile.
+	 */
+	private void clearTile(int tile) {
+		setTile(tile / boardSize, tile % boardSize, null);
+	}
+
+	/**
+	 * Set a game board tile and keep the free tile index and food count up to date.
+	 * All game board writes go through this method. Caller must hold the GameState lock.
+	 * 
+	 * @param row      row coordinate of the tile
+	 * @param column   column coordinate of the tile
+	 * @param tileType a GameTile enumerated type, or null for an empty tile
+	 */
+	private void setTile(int row, int column, GameTile tileType) {
+		GameTile previous = gameBoard[row][column];
+		if (previous == FOOD_BONUS || previous == FOOD_MALUS) {
+			foodCount--;
 		}
+		if (tileType == FOOD_BONUS || tileType == FOOD_MALUS) {
+			foodCount++;
+		}
+		gameBoard[row][column] = tileType;
+		if (tileType == null) {
+			freeTiles.add(row, column);
+		} else {
+			freeTiles.remove(row, column);
+		}
+	}
 
-		/**
-		 * Compares the Linked list model for equality. Checks the snakemodel head
-		 * location only. Other variables are ignored. Used to facilitate checking for
-		 * occupied locations when initiating snakes before a game starts.
-		 */
-		@Override
-		public boolean equals(Object o) {
-			if (this == o)
-				return true;
-			if (o == null || getClass() != o.getClass())
-				return false;
-			SnakeModel snakeModel = (SnakeModel) o;
-			// field comparison
-			return (this.model.getFirst() == snakeModel.model.getFirst());
+	/**
+	 * Set a random empty tile on the game board. Samples the free tile index
+	 * uniformly in O(1) however full the board is.
+	 * 
+	 * @param tileType a GameTile enumerated type
+	 * @return true if the tile was set, false if there are no empty tiles
+	 */
+	private boolean addRandomTile(GameTile tileType) {
+		int tile = freeTiles.randomTile();
+		if (tile < 0) {
+			return false;
 		}
+		setTile(freeTiles.rowOf(tile), freeTiles.columnOf(tile), tileType);
+		return true;
+	}
 
-		/**
-		 * Moves a Snake on the gameBoard. Will increase snake length if fruit was
-		 * consumed by the snake.
-		 * 
-		 * @param direction the direction the snake is moving in
-		 */
-		public synchronized void moveSnake(Direction direction) {
-			int[] tail;
-			int[] newHead = getNewHead(direction);
-
-			if (gameBoard[newHead[0]][newHead[1]] == FOOD_BONUS) {
-				
-				// gain score
-				snake.adjustScore(1);
-				
-				// move head
-				gameBoard[newHead[0]][newHead[1]] = SNAKE;
-
-			} else if (gameBoard[newHead[0]][newHead[1]] == FOOD_MALUS) {
-				
-				// remove tail
-				tail = model.removeLast();
-				gameBoard[tail[0]][tail[1]] = null;
-				
-				// move tail
-				tail = model.removeLast();
-				gameBoard[tail[0]][tail[1]] = null;
-				
-				// lose score
-				snake.adjustScore(-1);
-				
-				if(model.isEmpty()) {
-					// set snake dead
-					snake.setAlive(false);
+	/**
+	 * Rebuild the free tile index and food count from the back buffer game board.
+	 */
+	private void rebuildFreeTiles() {
+		freeTiles = new FreeTileIndex(gameBoard.length, gameBoard[0].length);
+		foodCount = 0;
+		for (int row = 0; row < gameBoard.length; row++) {
+			for (int column = 0; column < gameBoard[row].length; column++) {
+				if (gameBoard[row][column] != null) {
+					freeTiles.remove(row, column);
 				}
-				
-				// move head
-				gameBoard[newHead[0]][newHead[1]] = SNAKE;
-
-			} else if (gameBoard[newHead[0]][newHead[1]] == SNAKE) {
-				
-				// clear all snake tiles
-				while (!model.isEmpty()) {
-					tail = model.removeLast();
-					gameBoard[tail[0]][tail[1]] = null;
+				if (gameBoard[row][column] == FOOD_BONUS || gameBoard[row][column] == FOOD_MALUS) {
+					foodCount++;
 				}
-				
-				// set snake dead
-				snake.setAlive(false);
-
-			} else {
-				
-				// move tail
-				tail = model.removeLast();
-				gameBoard[tail[0]][tail[1]] = null;
-				
-				// move head
-				gameBoard[newHead[0]][newHead[1]] = SNAKE;
 			}
-			model.offerFirst(newHead);
-		}
-
-		/**
-		 * Returns the model representation of a snake as gameBoard coordinates in a
-		 * linked list of integer pairs.
-		 * 
-		 * @return A linked list of integer pairs to represent [x][y] coordinates for
-		 *         the body of the snake body
-		 */
-		public LinkedList<int[]> getSnake() {
-			return model;
 		}
+	}
 
-		/**
-		 * Determines the location for the new snake head based on direction.
-		 * 
-		 * @return [x][y] coordinates for new head location as integer array
-		 */
-		private int[] getNewHead(Direction direction) {
-
-			int[] head = model.peekFirst();
-			// get x and y coordinates - NOTE: (0,0) is top left
-			int x = head[0];
-			int y = head[1];
-
-			// use modulo operation: exiting one side of board = enter other side
-			switch (direction) {
-			case UP:
-				// gameSize added as Java can produce negative result from modulo operation
-				y = (GAME_SIZE + y - 1) % GAME_SIZE;
-				break;
-			case DOWN:
-				y = (y + 1) % GAME_SIZE;
-				break;
-			case LEFT:
-				x = (GAME_SIZE + x - 1) % GAME_SIZE;
-				break;
-			case RIGHT:
-				x = (x + 1) % GAME_SIZE;
-			}
-			// create new head
-			int[] newHead = { x, y };
-			return newHead;
+	/**
+	 * Deep copy a game board.
+	 */
+	private static GameTile[][] cloneBoard(GameTile[][] gameBoard) {
+		GameTile[][] gameBoardCopy = new GameTile[gameBoard.length][];
+		for (int i = 0; i < gameBoard.length; i++) {
+			// for each row clone the column
+			gameBoardCopy[i] = gameBoard[i].clone();
 		}
+		return gameBoardCopy;
 	}
 }
+
@@ -0,0 +1,385 @@
+package server;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.Serializer;
+
+/**
+ * Leaderboard ranking players across all games by total score. Fed by live
+ * score changes during play and by game results at the end of each game.
+ * <p>
+ * Live score changes come from the ticking threads of the games, so recording one
+ * only writes it to a preallocated ring and returns - it allocates nothing and
+ * never waits on the standings or storage. The leaderboards own thread applies the
+ * queued changes every APPLY_MILLIS, so live standings lag play by up to that long;
+ * flush() applies them straight away. Game results are applied as they are
+ * recorded, after the changes queued before them, and committed to storage soon
+ * after by the leaderboards own thread.
+ * <p>
+ * Standings are kept in a concurrent skip list ordered by score, so the top-K
+ * is always up to date, and player ranks are answered from a Fenwick tree of
+ * score counts in O(log score range). Readers take no lock. Standings are
+ * persisted to MapDB and committed after each game result and every
+ * PERSIST_MILLIS, so they survive restarts. Only the leaderboards own thread
+ * writes to storage, outside the Leaderboard lock.
+ */
+public final class Leaderboard {
+	public static final String STANDINGS_MAP = "standings";
+	public static final int MIN_RANKED_SCORE = -(1 << 16); // scores outside range are ranked at the bound
+	public static final int MAX_RANKED_SCORE = (1 << 20) - 1;
+	public static final int QUEUE_CAPACITY = 8192; // queued score changes, a power of two
+	public static final long APPLY_MILLIS = 50; // time between applying queued score changes
+	public static final long PERSIST_MILLIS = 5000; // time between commits of changed standings
+
+	private final DB db;
+	private final Map<String, int[]> persistedStandings; // player -> {score, games, best}
+	private final ConcurrentHashMap<String, Standing> standings;
+	private final ConcurrentSkipListMap<Standing, Standing> ranking; // keyed by score and player
+	private final AtomicIntegerArray scoreCounts; // Fenwick tree: players per ranked score
+	private final ScheduledExecutorService applyScheduler;
+	// score change ring - many producers, consumed under the Leaderboard lock
+	private final String[] queuedPlayers;
+	private final int[] queuedChanges;
+	private final AtomicLongArray queuedSequences; // sequence written to each entry, -1 before the first
+	private final AtomicLong queueTail; // sequence of the next change to be queued
+	private volatile long queueHead; // sequence of the next change to be applied
+	private final HashSet<String> unpersisted; // players changed since the last persist - Leaderboard lock
+	private final AtomicBoolean persistScheduled; // a persist is queued on the apply scheduler
+
+	/**
+	 * Immutable snapshot of a players position on the leaderboard.
+	 */
+	public static final class Standing {
+		private final String player;
+		private final int score;
+		private final int gamesPlayed;
+		private final int bestGameScore;
+
+		private Standing(String player, int score, int gamesPlayed, int bestGameScore) {
+			this.player = player;
+			this.score = score;
+			this.gamesPlayed = gamesPlayed;
+			this.bestGameScore = bestGameScore;
+		}
+
+		public String getPlayer() {
+			return player;
+		}
+
+		public int getScore() {
+			return score;
+		}
+
+		public int getGamesPlayed() {
+			return gamesPlayed;
+		}
+
+		public int getBestGameScore() {
+			return bestGameScore;
+		}
+	}
+
+	private static final Comparator<Standing> BY_SCORE = Comparator.comparingInt((Standing s) -> -s.score)
+			.thenComparing(s -> s.player);
+
+	/**
+	 * CONSTRUCTOR for an in-memory leaderboard.
+	 */
+	public Leaderboard() {
+		this(DBMaker.newMemoryDB().transactionDisable().make());
+	}
+
+	/**
+	 * CONSTRUCTOR for a leaderboard persisted to the given file. Standings already
+	 * in the file are loaded.
+	 *
+	 * @param dbFile the file the leaderboard is stored in
+	 */
+	public Leaderboard(File dbFile) {
+		this(DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make());
+	}
+
+	private Leaderboard(DB db) {
+		this.db = db;
+		standings = new ConcurrentHashMap<String, Standing>();
+		ranking = new ConcurrentSkipListMap<Standing, Standing>(BY_SCORE);
+		scoreCounts = new AtomicIntegerArray(MAX_RANKED_SCORE - MIN_RANKED_SCORE + 2);
+		queuedPlayers = new String[QUEUE_CAPACITY];
+		queuedChanges = new int[QUEUE_CAPACITY];
+		queuedSequences = new AtomicLongArray(QUEUE_CAPACITY);
+		for (int i = 0; i < QUEUE_CAPACITY; i++) {
+			queuedSequences.set(i, -1);
+		}
+		queueTail = new AtomicLong();
+		unpersisted = new HashSet<String>();
+		persistScheduled = new AtomicBoolean();
+		if (db.exists(STANDINGS_MAP)) {
+			persistedStandings = db.getHashMap(STANDINGS_MAP);
+			for (Map.Entry<String, int[]> entry : persistedStandings.entrySet()) {
+				int[] values = entry.getValue();
+				Standing standing = new Standing(entry.getKey(), values[0], values[1], values[2]);
+				standings.put(standing.player, standing);
+				ranking.put(standing, standing);
+				addCount(standing.score, 1);
+			}
+		} else {
+			persistedStandings = db.createHashMap(STANDINGS_MAP).keySerializer(Serializer.STRING).make();
+		}
+		applyScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Leaderboard");
+			thread.setDaemon(true);
+			return thread;
+		});
+		applyScheduler.scheduleWithFixedDelay(this::flush, APPLY_MILLIS, APPLY_MILLIS, TimeUnit.MILLISECONDS);
+		applyScheduler.scheduleWithFixedDelay(this::persist, PERSIST_MILLIS, PERSIST_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Queue a live score change for a player during a game. Called on the ticking
+	 * thread - allocates nothing and does not wait unless the queue is full, when the
+	 * change is applied straight away.
+	 *
+	 * @param player      the players name
+	 * @param scoreChange the amount to add to the players score (may be negative)
+	 */
+	public void recordScoreChange(String player, int scoreChange) {
+		long sequence;
+		do {
+			sequence = queueTail.get();
+			if (sequence - queueHead >= QUEUE_CAPACITY) {
+				synchronized (this) {
+					applyQueued();
+					update(player, scoreChange, 0, Integer.MIN_VALUE);
+				}
+				return;
+			}
+		} while (!queueTail.compareAndSet(sequence, sequence + 1));
+		int index = (int) sequence & (QUEUE_CAPACITY - 1);
+		queuedPlayers[index] = player;
+		queuedChanges[index] = scoreChange;
+		queuedSequences.set(index, sequence); // publish the entry
+	}
+
+	/**
+	 * Record the result of a finished game for a player. The players score is not
+	 * changed (it was updated live during the game) - the game is counted, and the
+	 * leaderboards own thread commits it to storage straight after. Called on the
+	 * ticking thread, so it never waits on storage.
+	 *
+	 * @param player         the players name
+	 * @param finalGameScore the players score at the end of the game
+	 */
+	public void recordGameResult(String player, int finalGameScore) {
+		synchronized (this) {
+			applyQueued();
+			update(player, 0, 1, finalGameScore);
+		}
+		// one persist for the results of a whole game
+		if (!applyScheduler.isShutdown() && persistScheduled.compareAndSet(false, true)) {
+			applyScheduler.execute(this::persist);
+		}
+	}
+
+	/**
+	 * Apply the score changes queued so far.
+	 */
+	public synchronized void flush() {
+		applyQueued();
+	}
+
+	/**
+	 * Get the highest ranked players, best first.
+	 *
+	 * @param k the maximum number of standings to return
+	 * @return up to k standings in rank order
+	 */
+	public List<Standing> topK(int k) {
+		List<Standing> top = new ArrayList<Standing>(Math.min(k, 64));
+		Iterator<Standing> iterator = ranking.values().iterator();
+		while (top.size() < k && iterator.hasNext()) {
+			top.add(iterator.next());
+		}
+		return top;
+	}
+
+	/**
+	 * Get a players rank. Players with equal scores share a rank.
+	 *
+	 * @param player the players name
+	 * @return the players rank counting from 1, or 0 if the player is not on the leaderboard
+	 */
+	public int rank(String player) {
+		Standing standing = standings.get(player);
+		if (standing == null) {
+			return 0;
+		}
+		return countAbove(standing.score) + 1;
+	}
+
+	/**
+	 * Get a players standing.
+	 *
+	 * @param player the players name
+	 * @return the players standing, or null if the player is not on the leaderboard
+	 */
+	public Standing getStanding(String player) {
+		return standings.get(player);
+	}
+
+	/**
+	 * Get the number of players on the leaderboard.
+	 *
+	 * @return number of ranked players
+	 */
+	public int size() {
+		return standings.size();
+	}
+
+	/**
+	 * Applies the queued score changes, then commits and closes the underlying
+	 * database. Waits for a persist already started by the leaderboards own thread.
+	 */
+	public void close() {
+		applyScheduler.shutdown();
+		try {
+			applyScheduler.awaitTermination(PERSIST_MILLIS, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (this) {
+			if (db.isClosed()) {
+				return;
+			}
+			applyQueued();
+		}
+		persist();
+		db.close();
+	}
+
+	// ================ PRIVATE METHODS ================
+
+	/**
+	 * Apply the published score changes in the ring, in the order they were queued.
+	 * Caller must hold the Leaderboard lock.
+	 */
+	private void applyQueued() {
+		long head = queueHead;
+		while (true) {
+			int index = (int) head & (QUEUE_CAPACITY - 1);
+			if (queuedSequences.get(index) != head) {
+				break; // not yet published
+			}
+			String player = queuedPlayers[index];
+			int scoreChange = queuedChanges[index];
+			queuedPlayers[index] = null;
+			head++;
+			queueHead = head; // frees the entry for producers
+			update(player, scoreChange, 0, Integer.MIN_VALUE);
+		}
+	}
+
+	/**
+	 * Write the standings changed since the last persist to storage and commit them.
+	 * Runs on the leaderboards own thread, or in close() once that has stopped. The
+	 * Leaderboard lock is held only to take the changed standings, not to write them.
+	 */
+	private void persist() {
+		persistScheduled.set(false);
+		List<Standing> changed;
+		synchronized (this) {
+			if (db.isClosed()) {
+				return;
+			}
+			changed = new ArrayList<Standing>(unpersisted.size());
+			for (String player : unpersisted) {
+				changed.add(standings.get(player));
+			}
+			unpersisted.clear();
+		}
+		for (Standing standing : changed) {
+			persistedStandings.put(standing.player,
+					new int[] { standing.score, standing.gamesPlayed, standing.bestGameScore });
+		}
+		db.commit();
+	}
+
+	/**
+	 * Replace a players standing. Caller must hold the Leaderboard lock, so there is
+	 * one writer and readers never see a standing half updated.
+	 */
+	private void update(String player, int scoreChange, int gamesPlayed, int gameScore) {
+		Standing old = standings.get(player);
+		Standing updated;
+		if (old == null) {
+			updated = new Standing(player, scoreChange, gamesPlayed, gamesPlayed > 0 ? gameScore : 0);
+		} else {
+			updated = new Standing(player, old.score + scoreChange, old.gamesPlayed + gamesPlayed,
+					Math.max(old.bestGameScore, gameScore));
+		}
+		if (old != null && old.score == updated.score) {
+			// same rank position - swap in the updated standing in one step
+			ranking.put(old, updated);
+		} else {
+			// add new standing before removing old so the player is never absent from the ranking
+			ranking.put(updated, updated);
+			addCount(updated.score, 1);
+			if (old != null) {
+				ranking.remove(old);
+				addCount(old.score, -1);
+			}
+		}
+		standings.put(player, updated);
+		unpersisted.add(player);
+	}
+
+	/**
+	 * Fenwick tree point update of the player count at the given score.
+	 */
+	private void addCount(int score, int delta) {
+		for (int i = scoreIndex(score); i < scoreCounts.length(); i += i & -i) {
+			scoreCounts.addAndGet(i, delta);
+		}
+	}
+
+	/**
+	 * Number of players with a ranked score strictly greater than the given score.
+	 */
+	private int countAbove(int score) {
+		return countAtOrBelow(MAX_RANKED_SCORE) - countAtOrBelow(score);
+	}
+
+	/**
+	 * Fenwick tree prefix sum of the player count up to and including the given score.
+	 */
+	private int countAtOrBelow(int score) {
+		int count = 0;
+		for (int i = scoreIndex(score); i > 0; i -= i & -i) {
+			count += scoreCounts.get(i);
+		}
+		return count;
+	}
+
+	/**
+	 * One-based Fenwick tree index for a score, clamped to the ranked range.
+	 */
+	private static int scoreIndex(int score) {
+		return Math.max(MIN_RANKED_SCORE, Math.min(MAX_RANKED_SCORE, score)) - MIN_RANKED_SCORE + 1;
+	}
+}
@@ -0,0 +1,92 @@
+package server;
+
+/**
+ * Players batched into one game by the Matchmaker. Players are given snake ids
+ * from 1 in the order they joined the queue, and the NPC snakes backfilling the
+ * lobby the ids after them.
+ */
+public final class Lobby {
+	private final int[] playerIds;
+	private final int npcCount;
+	private final int ratingBucket;
+	private volatile GameServer game; // set once the lobby handler has started it
+
+	/**
+	 * CONSTRUCTOR for a formed lobby.
+	 *
+	 * @param playerIds    ids of the queued players, in queue order
+	 * @param npcCount     number of NPC snakes filling the rest of the game
+	 * @param ratingBucket rating bucket the players were matched in
+	 */
+	Lobby(int[] playerIds, int npcCount, int ratingBucket) {
+		this.playerIds = playerIds;
+		this.npcCount = npcCount;
+		this.ratingBucket = ratingBucket;
+	}
+
+	/**
+	 * Get the snake id of a player in the lobby.
+	 *
+	 * @param playerId the id the player queued with
+	 * @return the players snake id, or -1 if the player is not in the lobby
+	 */
+	public int snakeIdOf(int playerId) {
+		for (int i = 0; i < playerIds.length; i++) {
+			if (playerIds[i] == playerId) {
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	public int getPlayerCount() {
+		return playerIds.length;
+	}
+
+	/**
+	 * Get the id of a player in the lobby.
+	 *
+	 * @param index position in queue order, below getPlayerCount()
+	 */
+	public int getPlayerId(int index) {
+		return playerIds[index];
+	}
+
+	public int getNpcCount() {
+		return npcCount;
+	}
+
+	/**
+	 * Get the number of snakes in the lobby, players and NPCs.
+	 */
+	public int getSize() {
+		return playerIds.length + npcCount;
+	}
+
+	/**
+	 * Get the snake id of the first NPC snake. NPC snakes take the ids from here up
+	 * to getSize().
+	 */
+	public int getFirstNpcSnakeId() {
+		return playerIds.length + 1;
+	}
+
+	public int getRatingBucket() {
+		return ratingBucket;
+	}
+
+	/**
+	 * Get the game the lobby plays in.
+	 *
+	 * @return the game started by the lobby handler, or null before it has started
+	 */
+	public GameServer getGame() {
+		return game;
+	}
+
+	void setGame(GameServer game) {
+		this.game = game;
+	}
+}
@@ -0,0 +1,29 @@
+package server;
+
+/**
+ * Starts the games of the lobbies formed by a Matchmaker.
+ */
+public interface LobbyHandler {
+
+	/**
+	 * Start a game for a formed lobby, with room for its players and its NPC snakes.
+	 * Runs on the thread running the matchmaking pass, outside the matchmaker lock,
+	 * once for every lobby the pass formed, so it should return quickly.
+	 *
+	 * @param lobby the players batched into the game
+	 * @return the game the lobby plays in, handed to every player in the lobby
+	 */
+	GameServer startGame(Lobby lobby);
+
+	/**
+	 * Fill the seat of a player who left the queue while its lobby's game was being
+	 * started. The game has already given up the players seat, so it does not wait
+	 * for the login; an NPC snake can be added in its place. Runs on the thread
+	 * running the matchmaking pass. Does nothing by default.
+	 *
+	 * @param lobby   the lobby the player left, with its game set
+	 * @param snakeId the snake id the player was given in the lobby
+	 */
+	default void playerLeft(Lobby lobby, int snakeId) {
+	}
+}
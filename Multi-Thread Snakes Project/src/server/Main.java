@@ -1,9 +1,11 @@
 package server;
 
+import java.io.File;
 import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+import client.KeyScheme;
 import client.NPCSnake;
 import client.PlayerSnake;
 
@@ -14,13 +16,21 @@ import client.PlayerSnake;
 public final class Main {
 	// CONSTANTS
 	private static final int MAX_NPCS = 100;
-	private static final int MAX_PLAYERS = 4; // cannot exceed 4 (only 4 unique keyboard mappings)
+	private static final int MAX_PLAYERS = KeyScheme.DEFAULT_PLAYERS; // local players use the default key schemes
 	public static final int ENCRYPTION_KEY = new Random().nextInt(20) + 1;
+	private static final String USER_DB_FILE = "userdb";
+	private static final String LEADERBOARD_FILE = "leaderboard";
+	private static final int COUNTDOWN_MILLIS = 3000; // time snakes wait on the board before moving
+	private static final int MATCH_ROUNDS = 3; // rounds played before the game is over
+	private static final long BACKFILL_MILLIS = 1000; // time players wait before NPCs fill the game
 
 	private static int npcs;
 	private static int players;
 	private static SetupVC setupDisplay;
-	private static GameServer snakeGame;
+	private static GameHost gameHost;
+	private static Matchmaker matchmaker;
+	private static UserDatabase userDB;
+	private static Leaderboard leaderboard;
 	private static ExecutorService NPCExecutor;
 
 	// MAIN
@@ -35,29 +45,65 @@ public final class Main {
 		// prompt user to select number of non-player characters for game
 		npcs = setupDisplay.selectNPCNumber(MAX_NPCS);		
 
-		// create and start game thread (server)
-		snakeGame = new GameServer(players, ENCRYPTION_KEY);
-		Thread serverThread = new Thread(snakeGame, "Server");
-		serverThread.start();
-		System.out.println("Starting Game Server...");
-
-		// create and start player threads (clients)
-		for (int i = 1; i <= players; i++) { // number players from 1 (not 0)
-			PlayerSnake playerSnake = new PlayerSnake(snakeGame, i, ENCRYPTION_KEY);
-			Thread playerThread = new Thread(playerSnake, "Player-Thread-" + i);
-			playerThread.start();
-		}
+		// open persistent user database and leaderboard
+		userDB = new UserDatabase(new File(USER_DB_FILE));
+		leaderboard = new Leaderboard(new File(LEADERBOARD_FILE));
 
 		// initialise executor service for npc threads
 		if (npcs > 0) {
 			NPCExecutor = Executors.newFixedThreadPool(npcs); // can probably do this with fewer threads
 		}
-		// create npc snake threads and start them
-		for (int i = 1; i <= npcs; i++) {
-			NPCExecutor.submit(new NPCSnake(snakeGame, i + players)); // reserve lowest id numbers for players
+
+		// create game host and matchmaker - the local players are batched into one game,
+		// filled with npcs once they have waited for other players
+		gameHost = new GameHost(userDB, leaderboard);
+		matchmaker = new Matchmaker(players + npcs, Matchmaker.NO_RATING_BUCKETS, BACKFILL_MILLIS, new LobbyHandler() {
+
+			@Override
+			public GameServer startGame(Lobby lobby) {
+				return Main.startGame(lobby);
+			}
+
+			@Override
+			public void playerLeft(Lobby lobby, int snakeId) {
+				// an npc snake takes the seat - the npc pool threads are all in use
+				NPCSnake npcSnake = new NPCSnake(lobby.getGame(), snakeId);
+				Thread npcThread = new Thread(npcSnake, "NPC-Thread-" + snakeId);
+				npcThread.start();
+			}
+		});
+		matchmaker.start();
+
+		// queue the players - players are numbered from 1 (not 0) in queue order
+		for (int i = 1; i <= players; i++) {
+			int playerId = i;
+			matchmaker.enqueue(playerId, 0).thenAccept(lobby -> {
+				// create and start player thread (client)
+				int snakeId = lobby.snakeIdOf(playerId);
+				PlayerSnake playerSnake = new PlayerSnake(lobby.getGame(), snakeId, ENCRYPTION_KEY);
+				Thread playerThread = new Thread(playerSnake, "Player-Thread-" + snakeId);
+				playerThread.start();
+			});
 		}
 
 		// hide title screen
 		setupDisplay.setVisible(false);
 	}
+
+	/**
+	 * Start the game of a lobby formed by the matchmaker, with npc snakes taking the
+	 * ids after the players.
+	 */
+	private static GameServer startGame(Lobby lobby) {
+		GameServer snakeGame = gameHost.createGame(lobby.getPlayerCount(), ENCRYPTION_KEY);
+		snakeGame.setCountdownTicks(COUNTDOWN_MILLIS / GameServer.TICK_MILLIS);
+		snakeGame.setRounds(MATCH_ROUNDS);
+		System.out.println("Starting Game Server...");
+
+		// create npc snake threads and start them
+		for (int i = 0; i < lobby.getNpcCount(); i++) {
+			NPCExecutor.submit(new NPCSnake(snakeGame, lobby.getFirstNpcSnakeId() + i));
+		}
+		return snakeGame;
+	}
 }
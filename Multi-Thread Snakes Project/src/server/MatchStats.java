@@ -0,0 +1,170 @@
+package server;
+
+import java.util.Arrays;
+
+import abstractClasses.Snake;
+
+/**
+ * Running totals of a match played over several rounds. At the end of each round
+ * the score every snake made in the round is added to its match totals, and the
+ * snake with the highest round score is recorded as the round winner. Totals are
+ * kept in growable primitive arrays indexed by snake id.
+ * <p>
+ * Rounds are ended by the ticking thread a few times a match, so the stats are
+ * guarded by the MatchStats lock.
+ */
+public final class MatchStats {
+	public static final int MAX_RESERVED_ROUNDS = 4096; // most round winners made room for up front
+	private static final int INITIAL_SNAKES = 8;
+	private int roundsPlayed;
+	private int[] roundWinners; // winning snake id by round - 1, -1 if no snake played
+	private int[] matchScores; // score at the end of the last round played, by snake id
+	private int[] bestRoundScores;
+	private int[] roundWins;
+	private int[] roundsPlayedById;
+
+	/**
+	 * CONSTRUCTOR for a match with no rounds played.
+	 */
+	public MatchStats() {
+		roundWinners = new int[INITIAL_SNAKES];
+		matchScores = new int[INITIAL_SNAKES];
+		bestRoundScores = new int[INITIAL_SNAKES];
+		roundWins = new int[INITIAL_SNAKES];
+		roundsPlayedById = new int[INITIAL_SNAKES];
+	}
+
+	/**
+	 * Add a finished round to the match. Each snakes round score is the change in its
+	 * score since the end of the last round it played.
+	 *
+	 * @param snakes every snake that played in the round
+	 * @return the id of the round winner, or -1 if no snake played
+	 */
+	synchronized int endRound(Snake[] snakes) {
+		int winner = -1;
+		int winningScore = Integer.MIN_VALUE;
+		for (Snake snake : snakes) {
+			int snakeId = snake.getSnakeId();
+			ensureCapacity(snakeId);
+			int score = snake.getScore();
+			int roundScore = score - matchScores[snakeId];
+			bestRoundScores[snakeId] = roundsPlayedById[snakeId] == 0 ? roundScore
+					: Math.max(bestRoundScores[snakeId], roundScore);
+			matchScores[snakeId] = score;
+			roundsPlayedById[snakeId]++;
+			// equal round scores go to the lowest snake id
+			if (roundScore > winningScore || roundScore == winningScore && snakeId < winner) {
+				winner = snakeId;
+				winningScore = roundScore;
+			}
+		}
+		if (winner >= 0) {
+			roundWins[winner]++;
+		}
+		if (roundsPlayed == roundWinners.length) {
+			roundWinners = Arrays.copyOf(roundWinners, roundsPlayed * 2);
+		}
+		roundWinners[roundsPlayed++] = winner;
+		return winner;
+	}
+
+	/**
+	 * Make room for the winners of the rounds of a match up front, so ending a round
+	 * does not allocate.
+	 *
+	 * @param rounds rounds in the match - room is made for at most MAX_RESERVED_ROUNDS
+	 */
+	synchronized void reserveRounds(int rounds) {
+		int capacity = Math.min(rounds, MAX_RESERVED_ROUNDS);
+		if (capacity > roundWinners.length) {
+			roundWinners = Arrays.copyOf(roundWinners, capacity);
+		}
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	public synchronized int getRoundsPlayed() {
+		return roundsPlayed;
+	}
+
+	/**
+	 * Get the winner of a played round.
+	 *
+	 * @param round the round number, counting from 1
+	 * @return the id of the snake with the highest round score, or -1 if no snake played
+	 */
+	public synchronized int getRoundWinner(int round) {
+		if (round < 1 || round > roundsPlayed) {
+			throw new IndexOutOfBoundsException("round " + round + " of " + roundsPlayed + " played");
+		}
+		return roundWinners[round - 1];
+	}
+
+	/**
+	 * Get a snakes score over every round it played.
+	 */
+	public synchronized int getMatchScore(int snakeId) {
+		return snakeId >= 0 && snakeId < matchScores.length ? matchScores[snakeId] : 0;
+	}
+
+	/**
+	 * Get a snakes highest score in a single round.
+	 */
+	public synchronized int getBestRoundScore(int snakeId) {
+		return snakeId >= 0 && snakeId < bestRoundScores.length ? bestRoundScores[snakeId] : 0;
+	}
+
+	public synchronized int getRoundWins(int snakeId) {
+		return snakeId >= 0 && snakeId < roundWins.length ? roundWins[snakeId] : 0;
+	}
+
+	/**
+	 * Get the number of rounds a snake played, less than the rounds of the match for a
+	 * snake that joined late.
+	 */
+	public synchronized int getRoundsPlayed(int snakeId) {
+		return snakeId >= 0 && snakeId < roundsPlayedById.length ? roundsPlayedById[snakeId] : 0;
+	}
+
+	/**
+	 * Get the match standings.
+	 *
+	 * @return ids of the snakes that played, by round wins then match score, highest
+	 *         first, equal standings by snake id
+	 */
+	public synchronized int[] getStandings() {
+		Integer[] standings = new Integer[roundsPlayedById.length];
+		int ranked = 0;
+		for (int id = 0; id < roundsPlayedById.length; id++) {
+			if (roundsPlayedById[id] > 0) {
+				standings[ranked++] = id;
+			}
+		}
+		Arrays.sort(standings, 0, ranked, (a, b) -> roundWins[a] != roundWins[b] ? roundWins[b] - roundWins[a]
+				: matchScores[a] != matchScores[b] ? Integer.compare(matchScores[b], matchScores[a]) : a - b);
+		int[] ids = new int[ranked];
+		for (int i = 0; i < ranked; i++) {
+			ids[i] = standings[i];
+		}
+		return ids;
+	}
+
+	// ================ PRIVATE METHODS ================
+
+	/**
+	 * Grow the per snake arrays to hold a snake id.
+	 */
+	private void ensureCapacity(int snakeId) {
+		if (snakeId < 0) {
+			throw new IllegalArgumentException("snake id " + snakeId + " is negative");
+		}
+		if (snakeId >= matchScores.length) {
+			int capacity = Math.max(snakeId + 1, matchScores.length * 2);
+			matchScores = Arrays.copyOf(matchScores, capacity);
+			bestRoundScores = Arrays.copyOf(bestRoundScores, capacity);
+			roundWins = Arrays.copyOf(roundWins, capacity);
+			roundsPlayedById = Arrays.copyOf(roundsPlayedById, capacity);
+		}
+	}
+}
@@ -0,0 +1,312 @@
+package server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue of players waiting for a game. Players are queued by rating bucket, and a
+ * matchmaking pass run every MATCH_MILLIS batches the waiting players of each
+ * bucket into lobbies of the game size, first come first served. Players left
+ * waiting longer than the backfill time are put in a lobby of their own, filled
+ * up to the game size with NPC snakes. Each formed lobby is handed to the lobby
+ * handler to start its game, and then to its players.
+ * <p>
+ * Queueing a player is an O(1) append to its buckets queue, and a pass costs O(1)
+ * per player matched plus one check per bucket, however many players are
+ * waiting. Players leaving the queue cancel their future and are swept out by the
+ * next pass that reaches them, so leaving is O(1) too. The queues are guarded by
+ * the Matchmaker lock; lobby handlers and player futures run outside it. Players
+ * who leave after their lobby has formed have their seats filled with NPC snakes.
+ */
+public final class Matchmaker {
+	public static final long MATCH_MILLIS = 100; // time between matchmaking passes
+	public static final int NO_RATING_BUCKETS = Integer.MAX_VALUE; // bucket width putting every player in one bucket
+
+	private final int gameSize;
+	private final int ratingBucketWidth;
+	private final long backfillNanos;
+	private final LobbyHandler lobbyHandler;
+	private final HashMap<Integer, ArrayDeque<Ticket>> buckets; // rating bucket -> players in queue order
+	private int queuedCount; // tickets in the buckets, including cancelled tickets not yet swept
+	private long lobbiesFormed;
+	private long npcsBackfilled;
+	private ScheduledExecutorService matchScheduler;
+
+	/**
+	 * CONSTRUCTOR for a matchmaker.
+	 *
+	 * @param gameSize          number of snakes in each game
+	 * @param ratingBucketWidth width of the rating range players are matched within,
+	 *                          or NO_RATING_BUCKETS to match all players together
+	 * @param backfillMillis    time a player waits before the lobby is filled with NPC
+	 *                          snakes
+	 * @param lobbyHandler      starts the game of each formed lobby
+	 */
+	public Matchmaker(int gameSize, int ratingBucketWidth, long backfillMillis, LobbyHandler lobbyHandler) {
+		if (gameSize < 1) {
+			throw new IllegalArgumentException("game size " + gameSize);
+		}
+		if (ratingBucketWidth < 1) {
+			throw new IllegalArgumentException("rating bucket width " + ratingBucketWidth);
+		}
+		this.gameSize = gameSize;
+		this.ratingBucketWidth = ratingBucketWidth;
+		this.backfillNanos = TimeUnit.MILLISECONDS.toNanos(backfillMillis);
+		this.lobbyHandler = lobbyHandler;
+		buckets = new HashMap<Integer, ArrayDeque<Ticket>>();
+	}
+
+	/**
+	 * Start running a matchmaking pass every MATCH_MILLIS on the matchmakers own
+	 * thread. Does nothing if the passes are already running.
+	 */
+	public synchronized void start() {
+		if (matchScheduler != null) {
+			return;
+		}
+		matchScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "Matchmaker"));
+		matchScheduler.scheduleAtFixedRate(() -> formLobbies(System.nanoTime()), MATCH_MILLIS, MATCH_MILLIS,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stop the matchmaking passes. Players still queued stay queued.
+	 */
+	public synchronized void shutdown() {
+		if (matchScheduler != null) {
+			matchScheduler.shutdown();
+			matchScheduler = null;
+		}
+	}
+
+	/**
+	 * Queue a player for a game.
+	 *
+	 * @param playerId id of the player, used to find the players snake id in the lobby
+	 * @param rating   the players rating, matched against players in the same bucket
+	 * @return a future completed with the players lobby once its game has started.
+	 *         Cancel it to leave the queue. Completed exceptionally if the lobby
+	 *         handler failed to start the game.
+	 */
+	public CompletableFuture<Lobby> enqueue(int playerId, int rating) {
+		Ticket ticket = new Ticket(playerId, System.nanoTime());
+		int bucket = Math.floorDiv(rating, ratingBucketWidth);
+		synchronized (this) {
+			ArrayDeque<Ticket> tickets = buckets.get(bucket);
+			if (tickets == null) {
+				tickets = new ArrayDeque<Ticket>();
+				buckets.put(bucket, tickets);
+			}
+			tickets.add(ticket);
+			queuedCount++;
+		}
+		return ticket.lobby;
+	}
+
+	/**
+	 * Run one matchmaking pass. Forms a lobby for every game size of players waiting in
+	 * a bucket, then a backfilled lobby for the players of any bucket where the
+	 * longest waiting player has waited the backfill time. Lobbies are started in the
+	 * order they were formed, and dropped if all their players left before then.
+	 *
+	 * @param now the time of the pass, from System.nanoTime()
+	 * @return the number of lobbies started
+	 */
+	public int formLobbies(long now) {
+		List<Lobby> formed = new ArrayList<Lobby>();
+		List<Ticket[]> members = new ArrayList<Ticket[]>();
+		synchronized (this) {
+			for (Map.Entry<Integer, ArrayDeque<Ticket>> entry : buckets.entrySet()) {
+				int bucket = entry.getKey();
+				ArrayDeque<Ticket> tickets = entry.getValue();
+				// full lobbies
+				while (tickets.size() >= gameSize) {
+					if (!takeLobby(tickets, bucket, false, formed, members)) {
+						break;
+					}
+				}
+				// backfilled lobby once the first player has waited long enough
+				Ticket first = firstWaiting(tickets);
+				if (first != null && now - first.queuedAt >= backfillNanos) {
+					takeLobby(tickets, bucket, true, formed, members);
+				}
+			}
+		}
+		int started = 0;
+		for (int i = 0; i < formed.size(); i++) {
+			if (startLobby(formed.get(i), members.get(i))) {
+				started++;
+			}
+		}
+		return started;
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	public int getGameSize() {
+		return gameSize;
+	}
+
+	/**
+	 * Get the number of players in the queue. Players who left the queue are counted
+	 * until a pass sweeps them out.
+	 */
+	public synchronized int getQueuedCount() {
+		return queuedCount;
+	}
+
+	public synchronized long getLobbiesFormed() {
+		return lobbiesFormed;
+	}
+
+	/**
+	 * Get the number of NPC snakes added to fill backfilled lobbies.
+	 */
+	public synchronized long getNpcsBackfilled() {
+		return npcsBackfilled;
+	}
+
+	// ================ PRIVATE METHODS ================
+
+	/**
+	 * Take up to a game size of waiting players from the front of a bucket. Caller
+	 * must hold the Matchmaker lock.
+	 *
+	 * @param backfill true to form the lobby with fewer players, filled with NPC snakes
+	 * @return true if a lobby was formed, false if too few players were waiting for a
+	 *         full lobby - they are left at the front of the bucket
+	 */
+	private boolean takeLobby(ArrayDeque<Ticket> tickets, int bucket, boolean backfill, List<Lobby> formed,
+			List<Ticket[]> members) {
+		Ticket[] lobbyTickets = new Ticket[gameSize];
+		int players = 0;
+		while (players < gameSize && !tickets.isEmpty()) {
+			Ticket ticket = tickets.poll();
+			queuedCount--;
+			// players who left the queue are swept out here
+			if (!ticket.lobby.isDone()) {
+				lobbyTickets[players++] = ticket;
+			}
+		}
+		if (players == 0 || players < gameSize && !backfill) {
+			// put the players back in queue order
+			for (int i = players - 1; i >= 0; i--) {
+				tickets.addFirst(lobbyTickets[i]);
+			}
+			queuedCount += players;
+			return false;
+		}
+		int[] playerIds = new int[players];
+		for (int i = 0; i < players; i++) {
+			playerIds[i] = lobbyTickets[i].playerId;
+		}
+		formed.add(new Lobby(playerIds, gameSize - players, bucket));
+		members.add(lobbyTickets);
+		lobbiesFormed++;
+		npcsBackfilled += gameSize - players;
+		return true;
+	}
+
+	/**
+	 * Get the longest waiting player of a bucket, sweeping out players ahead of it who
+	 * left the queue. Caller must hold the Matchmaker lock.
+	 *
+	 * @return the first player still waiting, or null if there is none
+	 */
+	private Ticket firstWaiting(ArrayDeque<Ticket> tickets) {
+		Ticket first = tickets.peek();
+		while (first != null && first.lobby.isDone()) {
+			tickets.poll();
+			queuedCount--;
+			first = tickets.peek();
+		}
+		return first;
+	}
+
+	/**
+	 * Start the game of a formed lobby and hand the lobby to its players. Players who
+	 * left the queue since the lobby was formed are swept out first and their seats
+	 * filled with NPC snakes. A player leaving while the game is being started gives
+	 * up its seat in the game, and the lobby handler is asked to fill it.
+	 *
+	 * @return false if every player left and the lobby was dropped
+	 */
+	private boolean startLobby(Lobby lobby, Ticket[] lobbyTickets) {
+		int players = 0;
+		for (int i = 0; i < lobby.getPlayerCount(); i++) {
+			if (!lobbyTickets[i].lobby.isDone()) {
+				lobbyTickets[players++] = lobbyTickets[i];
+			}
+		}
+		if (players < lobby.getPlayerCount()) {
+			lobby = backfillLeft(lobby, lobbyTickets, players);
+			if (lobby == null) {
+				return false;
+			}
+		}
+		try {
+			lobby.setGame(lobbyHandler.startGame(lobby));
+		} catch (RuntimeException e) {
+			for (int i = 0; i < players; i++) {
+				lobbyTickets[i].lobby.completeExceptionally(e);
+			}
+			return true;
+		}
+		for (int i = 0; i < players; i++) {
+			// only a cancelled ticket is already done
+			if (!lobbyTickets[i].lobby.complete(lobby)) {
+				if (lobby.getGame() != null) {
+					lobby.getGame().releaseSeat();
+				}
+				lobbyHandler.playerLeft(lobby, lobby.snakeIdOf(lobbyTickets[i].playerId));
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Form a lobby again without the players who left it before its game started,
+	 * with NPC snakes in their seats.
+	 *
+	 * @param lobbyTickets the tickets of the players still waiting, first
+	 * @param players      number of players still waiting
+	 * @return the lobby, or null if every player left and the lobby is dropped
+	 */
+	private synchronized Lobby backfillLeft(Lobby lobby, Ticket[] lobbyTickets, int players) {
+		if (players == 0) {
+			lobbiesFormed--;
+			npcsBackfilled -= lobby.getNpcCount();
+			return null;
+		}
+		int[] playerIds = new int[players];
+		for (int i = 0; i < players; i++) {
+			playerIds[i] = lobbyTickets[i].playerId;
+		}
+		npcsBackfilled += lobby.getPlayerCount() - players;
+		return new Lobby(playerIds, gameSize - players, lobby.getRatingBucket());
+	}
+
+	// ========== INNER WORKER CLASSES ==========
+
+	/**
+	 * A queued player and the future completed with its lobby.
+	 */
+	private static final class Ticket {
+		final int playerId;
+		final long queuedAt; // from System.nanoTime()
+		final CompletableFuture<Lobby> lobby;
+
+		Ticket(int playerId, long queuedAt) {
+			this.playerId = playerId;
+			this.queuedAt = queuedAt;
+			lobby = new CompletableFuture<Lobby>();
+		}
+	}
+}
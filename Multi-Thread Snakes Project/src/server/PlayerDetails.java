@@ -87,8 +87,6 @@ public final class PlayerDetails {
 				array[i] = (char) (array[i] - encryptionKey);
 			}
 			decryptedPlayerDetails.password = new String(array);
-			System.out.println(
-					"In playerDetails.decrypt() -  decrypted password is " + decryptedPlayerDetails.getPassword());
 
 			// decrypt username
 			array = username.toCharArray();
@@ -96,8 +94,6 @@ public final class PlayerDetails {
 				array[i] = (char) (array[i] - encryptionKey);
 			}
 			decryptedPlayerDetails.username = new String(array);
-			System.out.println(
-					"In playerDetails.decrypt() -  decrypted username is " + decryptedPlayerDetails.getUsername());
 		}
 		return decryptedPlayerDetails;
 
@@ -0,0 +1,395 @@
+package server;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+import server.GameEventBus.Subscription;
+import server.GameEventBus.WaitStrategy;
+
+/**
+ * Ledger of every score change in a game. Each change is recorded with the tick
+ * it happened in, its cause and the score it left, so the ledger holds a score
+ * time series per snake as well as the live score. Series are indexed by snake id.
+ * <p>
+ * The tick keeps only what must be live. It updates each snakes score and a ring
+ * of the latest changes, allocated when the snake is first placed - a snake
+ * changes score at most once a tick, so the ring always holds the last minute of
+ * changes for score rates. Updating them never allocates, so the ledger adds
+ * nothing to the warm tick.
+ * <p>
+ * The full history is built off the tick, by a subscriber to the game event bus
+ * that appends every SCORE_CHANGE to chunks of primitive arrays. Chunks are never
+ * moved or overwritten, so the history grows for the whole game without copying.
+ * It trails the tick by the events not yet handled - getHistoryTick() tells how
+ * far it has got. Its subscription ends with the GAME_END event.
+ * <p>
+ * Each part has a single writer - the ticking thread under the GameState lock, or
+ * the history subscriber. Entries are published by a volatile entry count after
+ * they are written, so a reader always sees whole entries - the change, its cause
+ * and the score after it together. Dashboards read the ledger without any lock
+ * and never hold up the tick.
+ */
+public final class ScoreLedger {
+	private static final int CHUNK_SHIFT = 10; // history chunks of 1024 entries
+	private static final Cause[] CAUSES = Cause.values();
+	private final int tickMillis;
+	private final int recentEntries; // ring capacity of each recent series, a power of two
+	private volatile RecentSeries[] recentById; // copy on write, grown by the tick
+	private volatile HistorySeries[] historyById; // copy on write, grown by the subscriber
+	private volatile int latestTick; // last tick ended, written by the tick
+	private volatile int historyTick; // last tick the history holds every change of
+	private volatile Subscription subscription;
+	private Cause eatenCause; // cause of the food event before a SCORE_CHANGE, subscriber only
+
+	/**
+	 * Cause of a score change.
+	 */
+	public enum Cause {
+		BONUS, // ate bonus food
+		MALUS // ate malus food
+	}
+
+	/**
+	 * CONSTRUCTOR for an empty score ledger. Subscribes to the events of the game
+	 * to build the score history.
+	 *
+	 * @param tickMillis time between ticks, for score rates over time
+	 * @param eventBus   bus the score changes of the game are published on
+	 */
+	public ScoreLedger(int tickMillis, GameEventBus eventBus) {
+		this.tickMillis = tickMillis;
+		// a minute of ticks, plus the slot being written
+		recentEntries = Integer.highestOneBit(60_000 / tickMillis + 1) * 2;
+		recentById = new RecentSeries[0];
+		historyById = new HistorySeries[0];
+		historyTick = -1;
+		subscription = eventBus.subscribe("ScoreLedger", this::onEvent, WaitStrategy.BLOCKING);
+	}
+
+	/**
+	 * Allocate the recent series of a snake, so its score changes are recorded
+	 * without allocating. Called by the tick when the snake is placed.
+	 *
+	 * @param snakeId the snake
+	 */
+	void track(int snakeId) {
+		recentFor(snakeId);
+	}
+
+	/**
+	 * Record a score change in the live score and the recent changes. Called by the
+	 * tick. The history picks the change up from the SCORE_CHANGE event.
+	 *
+	 * @param snakeId the snake whose score changed
+	 * @param tick    the tick the change happened in
+	 * @param change  the amount added to the score (may be negative)
+	 */
+	void record(int snakeId, int tick, int change) {
+		RecentSeries series = recentFor(snakeId);
+		series.append(tick, series.score + change);
+	}
+
+	/**
+	 * Mark a tick as ended, the end of the window for score rates. Called by the
+	 * tick.
+	 */
+	void endTick(int tick) {
+		latestTick = tick;
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	/**
+	 * Get a snakes live score.
+	 *
+	 * @return the score, 0 for a snake without changes
+	 */
+	public int getScore(int snakeId) {
+		RecentSeries series = recent(snakeId);
+		return series == null ? 0 : series.score;
+	}
+
+	/**
+	 * Get the number of score changes the tick has recorded for a snake. The history
+	 * catches up with it once getHistoryTick() reaches the last tick ended.
+	 */
+	public int getChangeCount(int snakeId) {
+		RecentSeries series = recent(snakeId);
+		return series == null ? 0 : series.count;
+	}
+
+	/**
+	 * Get the last tick the history holds every score change of.
+	 *
+	 * @return the tick, -1 before the first tick has been added to the history
+	 */
+	public int getHistoryTick() {
+		return historyTick;
+	}
+
+	/**
+	 * Get the number of score changes in the history of a snake.
+	 */
+	public int getEntryCount(int snakeId) {
+		HistorySeries series = history(snakeId);
+		return series == null ? 0 : series.count;
+	}
+
+	/**
+	 * Get the tick of a score change in the history.
+	 *
+	 * @param snakeId the snake
+	 * @param entry   index of the change, from 0 up to getEntryCount()
+	 */
+	public int getTick(int snakeId, int entry) {
+		return chunk(snakeId, entry).ticks[entry & HistoryChunk.MASK];
+	}
+
+	/**
+	 * Get the cause of a score change in the history.
+	 */
+	public Cause getCause(int snakeId, int entry) {
+		return CAUSES[chunk(snakeId, entry).causes[entry & HistoryChunk.MASK]];
+	}
+
+	/**
+	 * Get the score a change in the history left the snake with.
+	 */
+	public int getScoreAfter(int snakeId, int entry) {
+		return chunk(snakeId, entry).scores[entry & HistoryChunk.MASK];
+	}
+
+	/**
+	 * Get the change in a snakes score over the last minute of ticks, up to the
+	 * last tick ended.
+	 */
+	public int getScorePerMinute(int snakeId) {
+		RecentSeries series = recent(snakeId);
+		if (series == null) {
+			return 0;
+		}
+		int windowStart = latestTick - 60_000 / tickMillis;
+		while (true) {
+			int count = series.count;
+			if (count == 0) {
+				return 0;
+			}
+			// first change inside the window - ticks are recorded in order
+			int low = Math.max(0, count - recentEntries + 1);
+			int high = count;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (series.ticks[middle & series.mask] > windowStart) {
+					high = middle;
+				} else {
+					low = middle + 1;
+				}
+			}
+			int scoreBefore = low == 0 ? 0 : series.scores[(low - 1) & series.mask];
+			int scoreAfter = series.scores[(count - 1) & series.mask];
+			VarHandle.acquireFence();
+			// retry if the ring wrapped over the entries read
+			if (low == 0 || series.count - (low - 1) < recentEntries) {
+				return scoreAfter - scoreBefore;
+			}
+		}
+	}
+
+	/**
+	 * Get the live ranking of the snakes in the ledger.
+	 *
+	 * @return snake ids by score, highest first, equal scores by snake id
+	 */
+	public int[] getRanking() {
+		RecentSeries[] all = recentById;
+		long[] keys = new long[all.length];
+		int ranked = 0;
+		for (int id = 0; id < all.length; id++) {
+			if (all[id] != null && all[id].count > 0) {
+				// highest score sorts first, then the lowest id
+				keys[ranked++] = ((long) -all[id].score << 32) | id;
+			}
+		}
+		Arrays.sort(keys, 0, ranked);
+		int[] ranking = new int[ranked];
+		for (int i = 0; i < ranked; i++) {
+			ranking[i] = (int) keys[i];
+		}
+		return ranking;
+	}
+
+	// ================ PRIVATE METHODS ================
+
+	/**
+	 * Add the score changes of the game to the history. Runs on the subscriber
+	 * thread. A SCORE_CHANGE is published straight after the food event that caused
+	 * it.
+	 */
+	private void onEvent(GameEvent event, long sequence, boolean endOfBatch) {
+		switch (event.getType()) {
+
+		case FOOD_BONUS_EATEN:
+			eatenCause = Cause.BONUS;
+			break;
+
+		case FOOD_MALUS_EATEN:
+			eatenCause = Cause.MALUS;
+			break;
+
+		case SCORE_CHANGE:
+			Cause cause = eatenCause;
+			if (cause == null) {
+				// the food event was lost to an overrun
+				cause = event.getValue() > 0 ? Cause.BONUS : Cause.MALUS;
+			}
+			historyFor(event.getSnakeId()).append(event.getTick(), cause, event.getValue());
+			eatenCause = null;
+			break;
+
+		case TICK_END:
+			historyTick = event.getTick();
+			break;
+
+		case GAME_END:
+			subscription.close();
+			break;
+
+		default:
+			// not a score event
+		}
+	}
+
+	private RecentSeries recent(int snakeId) {
+		RecentSeries[] all = recentById;
+		return snakeId >= 0 && snakeId < all.length ? all[snakeId] : null;
+	}
+
+	private HistorySeries history(int snakeId) {
+		HistorySeries[] all = historyById;
+		return snakeId >= 0 && snakeId < all.length ? all[snakeId] : null;
+	}
+
+	/**
+	 * Get the history chunk holding an entry.
+	 *
+	 * @throws IndexOutOfBoundsException if the history has no such entry
+	 */
+	private HistoryChunk chunk(int snakeId, int entry) {
+		HistorySeries series = history(snakeId);
+		// read the count before the chunks it publishes
+		if (series == null || entry < 0 || entry >= series.count) {
+			throw new IndexOutOfBoundsException("no score entry " + entry + " for snake " + snakeId);
+		}
+		return series.chunks[entry >>> CHUNK_SHIFT];
+	}
+
+	/**
+	 * Get the recent series of a snake, adding it if the snake has none. Called by
+	 * the tick.
+	 */
+	private RecentSeries recentFor(int snakeId) {
+		if (snakeId < 0) {
+			throw new IllegalArgumentException("snake id " + snakeId + " is negative");
+		}
+		RecentSeries[] all = recentById;
+		if (snakeId >= all.length) {
+			all = Arrays.copyOf(all, Math.max(snakeId + 1, all.length * 2));
+			recentById = all;
+		}
+		if (all[snakeId] == null) {
+			all[snakeId] = new RecentSeries(recentEntries);
+			// republish so readers see the new series
+			recentById = all;
+		}
+		return all[snakeId];
+	}
+
+	/**
+	 * Get the history of a snake, adding it if the snake has none. Called by the
+	 * subscriber.
+	 */
+	private HistorySeries historyFor(int snakeId) {
+		HistorySeries[] all = historyById;
+		if (snakeId >= all.length) {
+			all = Arrays.copyOf(all, Math.max(snakeId + 1, all.length * 2));
+			historyById = all;
+		}
+		if (all[snakeId] == null) {
+			all[snakeId] = new HistorySeries();
+			// republish so readers see the new series
+			historyById = all;
+		}
+		return all[snakeId];
+	}
+
+	// ========== INNER WORKER CLASSES ==========
+
+	/**
+	 * Latest score changes of one snake in a ring of parallel primitive arrays, entry
+	 * n at position n & mask. A reader that reads the count before an entry sees the
+	 * whole entry, as long as the count read after it shows the ring has not wrapped
+	 * over it.
+	 */
+	private static final class RecentSeries {
+		final int[] ticks;
+		final int[] scores;
+		final int mask;
+		volatile int count;
+		volatile int score; // score after the last entry
+
+		RecentSeries(int capacity) {
+			ticks = new int[capacity];
+			scores = new int[capacity];
+			mask = capacity - 1;
+		}
+
+		void append(int tick, int newScore) {
+			int position = count & mask;
+			ticks[position] = tick;
+			scores[position] = newScore;
+			score = newScore;
+			// publish the entry
+			count = count + 1;
+		}
+	}
+
+	/**
+	 * Every score change of one snake, entry n at position n & MASK of chunk
+	 * n >> CHUNK_SHIFT. Full chunks are kept as they are and a new chunk is added
+	 * for the next entry, so entries never move. The count is written after the
+	 * entry and the chunk table, so a reader that reads the count first sees both.
+	 */
+	private static final class HistorySeries {
+		HistoryChunk[] chunks = new HistoryChunk[1];
+		volatile int count;
+		int score; // score after the last entry, subscriber only
+
+		void append(int tick, Cause cause, int change) {
+			int chunkIndex = count >>> CHUNK_SHIFT;
+			if (chunkIndex == chunks.length) {
+				chunks = Arrays.copyOf(chunks, chunks.length * 2);
+			}
+			if (chunks[chunkIndex] == null) {
+				chunks[chunkIndex] = new HistoryChunk();
+			}
+			HistoryChunk chunk = chunks[chunkIndex];
+			int position = count & HistoryChunk.MASK;
+			score += change;
+			chunk.ticks[position] = tick;
+			chunk.causes[position] = (byte) cause.ordinal();
+			chunk.scores[position] = score;
+			// publish the entry
+			count = count + 1;
+		}
+	}
+
+	/**
+	 * One chunk of parallel primitive arrays of a score history.
+	 */
+	private static final class HistoryChunk {
+		static final int MASK = (1 << CHUNK_SHIFT) - 1;
+		final int[] ticks = new int[1 << CHUNK_SHIFT];
+		final byte[] causes = new byte[1 << CHUNK_SHIFT];
+		final int[] scores = new int[1 << CHUNK_SHIFT];
+	}
+}
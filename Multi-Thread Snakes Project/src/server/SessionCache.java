@@ -0,0 +1,110 @@
+package server;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread safe cache of issued session tokens with time-to-live eviction. Expired
+ * tokens are rejected on lookup and swept from the cache at most once per TTL
+ * period by whichever thread issues the next token - no sweeper thread needed.
+ */
+public final class SessionCache {
+	public static final long DEFAULT_TTL_MILLIS = 5 * 60 * 1000; // 5 minutes
+	private static final int TOKEN_BYTES = 16;
+
+	private final ConcurrentHashMap<String, SessionToken> sessions;
+	private final SecureRandom random;
+	private final long ttlMillis;
+	private volatile long nextSweep;
+
+	/**
+	 * CONSTRUCTOR for session cache with default time-to-live.
+	 */
+	public SessionCache() {
+		this(DEFAULT_TTL_MILLIS);
+	}
+
+	/**
+	 * CONSTRUCTOR for session cache.
+	 * 
+	 * @param ttlMillis time in milliseconds a session token stays valid
+	 */
+	public SessionCache(long ttlMillis) {
+		this.ttlMillis = ttlMillis;
+		sessions = new ConcurrentHashMap<String, SessionToken>();
+		random = new SecureRandom();
+		nextSweep = System.currentTimeMillis() + ttlMillis;
+	}
+
+	/**
+	 * Issue a new session token for the given player.
+	 * 
+	 * @param username the authenticated players name
+	 * @return a session token valid for the cache time-to-live
+	 */
+	public SessionToken issue(String username) {
+		long now = System.currentTimeMillis();
+		byte[] bytes = new byte[TOKEN_BYTES];
+		random.nextBytes(bytes);
+		SessionToken session = new SessionToken(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes),
+				username, now + ttlMillis);
+		sessions.put(session.getToken(), session);
+
+		if (now >= nextSweep) {
+			nextSweep = now + ttlMillis;
+			evictExpired(now);
+		}
+		return session;
+	}
+
+	/**
+	 * Look up a session by token string. Expired sessions are evicted and not returned.
+	 * 
+	 * @param token the session token string
+	 * @return the session if valid, null otherwise
+	 */
+	public SessionToken validate(String token) {
+		if (token == null) {
+			return null;
+		}
+		SessionToken session = sessions.get(token);
+		if (session == null) {
+			return null;
+		}
+		if (session.isExpired(System.currentTimeMillis())) {
+			sessions.remove(token, session);
+			return null;
+		}
+		return session;
+	}
+
+	/**
+	 * End a session before it expires.
+	 * 
+	 * @param token the session token string
+	 */
+	public void invalidate(String token) {
+		sessions.remove(token);
+	}
+
+	/**
+	 * Remove all sessions that have expired at the given time.
+	 * 
+	 * @param now current time in milliseconds
+	 */
+	public void evictExpired(long now) {
+		sessions.values().removeIf(session -> session.isExpired(now));
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	/**
+	 * Get the number of sessions currently held, including any expired sessions not yet swept.
+	 * 
+	 * @return number of cached sessions
+	 */
+	public int size() {
+		return sessions.size();
+	}
+}
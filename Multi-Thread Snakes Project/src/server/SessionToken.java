@@ -0,0 +1,49 @@
+package server;
+
+/**
+ * Immutable session token issued to a player on successful authentication. A
+ * token stands in for the players credentials until it expires - reconnects and
+ * rematches present the token instead of logging in again.
+ */
+public final class SessionToken {
+	private final String token;
+	private final String username;
+	private final long expiresAt; // System.currentTimeMillis() time of expiry
+
+	/**
+	 * CONSTRUCTOR for session token.
+	 * 
+	 * @param token     random token string identifying the session
+	 * @param username  the name of the player the session belongs to
+	 * @param expiresAt time in milliseconds at which the token expires
+	 */
+	public SessionToken(String token, String username, long expiresAt) {
+		this.token = token;
+		this.username = username;
+		this.expiresAt = expiresAt;
+	}
+
+	/**
+	 * Check if the token has expired at the given time.
+	 * 
+	 * @param now current time in milliseconds
+	 * @return true if the token is no longer valid
+	 */
+	public boolean isExpired(long now) {
+		return now >= expiresAt;
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	public String getToken() {
+		return token;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+}
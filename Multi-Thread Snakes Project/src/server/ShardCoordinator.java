@@ -0,0 +1,356 @@
+package server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinator of a sharded game cluster. Games run in ShardWorker processes; the
+ * coordinator keeps a table of the workers and the games placed on them, and
+ * takes requests over the ShardProtocol:
+ * <ul>
+ * <li>REGISTER host port capacity - from a starting worker, returns OK workerId</li>
+ * <li>LOAD workerId host port games snakes tickRatio - load report from a worker,
+ * returns OK</li>
+ * <li>ASSIGN players npcs - place a new game on the least loaded worker, returns
+ * GAME clusterGameId workerId host port gameId</li>
+ * <li>ROUTE clusterGameId - find the worker a client connects to for a game,
+ * returns GAME clusterGameId workerId host port gameId</li>
+ * <li>CAPACITY - returns CAPACITY workers games capacity snakes tickRatio for the
+ * whole cluster</li>
+ * </ul>
+ * A worker's load is the fraction of its capacity in use, from its last report plus
+ * the games placed on it since. Workers that have not reported for WORKER_TIMEOUT_MILLIS
+ * are left out of placement and capacity until they report again.
+ * <p>
+ * The coordinator is a plain in-memory stand-in with no outside services, so a
+ * cluster can be run from several JVMs on one host.
+ */
+public final class ShardCoordinator {
+	public static final long WORKER_TIMEOUT_MILLIS = 4 * ShardWorker.REPORT_MILLIS;
+	static final String UNKNOWN_WORKER = "unknown worker"; // error answering a load report from a forgotten worker
+
+	private final ServerSocket serverSocket;
+	private final ExecutorService connectionExecutor;
+	// guarded by the ShardCoordinator lock
+	private final List<WorkerEntry> workers;
+	private final HashMap<Integer, Placement> placements; // cluster game id -> placement
+	private int nextWorkerId;
+	private int nextGameId;
+
+	/**
+	 * CONSTRUCTOR for a coordinator listening on the local host.
+	 *
+	 * @param port the port to listen on, 0 for an ephemeral port
+	 * @throws IOException if the port cannot be listened on
+	 */
+	public ShardCoordinator(int port) throws IOException {
+		serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		connectionExecutor = ShardProtocol.newConnectionExecutor("Shard-Coordinator");
+		workers = new ArrayList<WorkerEntry>();
+		placements = new HashMap<Integer, Placement>();
+		nextWorkerId = 1;
+		nextGameId = 1;
+	}
+
+	/**
+	 * Start taking requests on a thread of the coordinators own.
+	 */
+	public void start() {
+		Thread acceptThread = new Thread(() -> ShardProtocol.serve(serverSocket, connectionExecutor, this::answer),
+				"Shard-Coordinator-Accept");
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+	}
+
+	/**
+	 * Stop taking requests.
+	 */
+	public void shutdown() {
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			// already closed
+		}
+		connectionExecutor.shutdown();
+	}
+
+	/**
+	 * Place a new game on the live worker with the lowest load that has room for it.
+	 *
+	 * @param players number of players who will log in to the game
+	 * @param npcs    number of NPC snakes the worker adds to the game
+	 * @return where the game was placed
+	 * @throws IOException if no worker has room or the chosen worker failed to create
+	 *                     the game
+	 */
+	public Placement assignGame(int players, int npcs) throws IOException {
+		WorkerEntry worker;
+		synchronized (this) {
+			worker = leastLoaded(System.nanoTime());
+			if (worker == null) {
+				throw new IOException("no worker has room for a game");
+			}
+			// count the game now so a burst of games spreads over the workers
+			worker.games++;
+		}
+		int gameId;
+		try {
+			String response = ShardProtocol.request(worker.host, worker.port, "CREATE " + players + " " + npcs);
+			gameId = Integer.parseInt(response.split(" ")[1]);
+		} catch (IOException e) {
+			synchronized (this) {
+				worker.games--;
+			}
+			throw e;
+		}
+		synchronized (this) {
+			Placement placement = new Placement(nextGameId++, worker.id, worker.host, worker.port, gameId);
+			placements.put(placement.clusterGameId, placement);
+			return placement;
+		}
+	}
+
+	/**
+	 * Find where a game was placed.
+	 *
+	 * @param clusterGameId the id the coordinator gave the game
+	 * @return the placement, or null if no game with this id was placed
+	 */
+	public synchronized Placement route(int clusterGameId) {
+		return placements.get(clusterGameId);
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Get the number of workers that have reported recently.
+	 */
+	public synchronized int getWorkerCount() {
+		long now = System.nanoTime();
+		int live = 0;
+		for (WorkerEntry worker : workers) {
+			if (worker.isLive(now)) {
+				live++;
+			}
+		}
+		return live;
+	}
+
+	/**
+	 * Get the capacity of the live workers of the cluster.
+	 *
+	 * @return CAPACITY workers games capacity snakes tickRatio, with the tick ratio
+	 *         of the workers weighted by their games
+	 */
+	public synchronized String getCapacityReport() {
+		long now = System.nanoTime();
+		int live = 0;
+		int games = 0;
+		int capacity = 0;
+		int snakes = 0;
+		double weightedTickRatio = 0;
+		for (WorkerEntry worker : workers) {
+			if (worker.isLive(now)) {
+				live++;
+				games += worker.games;
+				capacity += worker.capacity;
+				snakes += worker.snakes;
+				weightedTickRatio += worker.tickRatio * worker.games;
+			}
+		}
+		return "CAPACITY " + live + " " + games + " " + capacity + " " + snakes + " "
+				+ (games == 0 ? 1.0 : weightedTickRatio / games);
+	}
+
+	// ================ PRIVATE METHODS ================
+
+	/**
+	 * Answer a request from a worker or a client.
+	 */
+	private String answer(String[] words) {
+		switch (words[0]) {
+		case "REGISTER":
+			return "OK " + register(ShardProtocol.word(words, 1), ShardProtocol.intWord(words, 2),
+					ShardProtocol.intWord(words, 3));
+
+		case "LOAD":
+			report(ShardProtocol.intWord(words, 1), ShardProtocol.word(words, 2), ShardProtocol.intWord(words, 3),
+					ShardProtocol.intWord(words, 4), ShardProtocol.intWord(words, 5),
+					Double.parseDouble(ShardProtocol.word(words, 6)));
+			return "OK";
+
+		case "ASSIGN":
+			try {
+				return assignGame(ShardProtocol.intWord(words, 1), ShardProtocol.intWord(words, 2)).toString();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+
+		case "ROUTE":
+			Placement placement = route(ShardProtocol.intWord(words, 1));
+			if (placement == null) {
+				throw new IllegalArgumentException("no game " + words[1]);
+			}
+			return placement.toString();
+
+		case "CAPACITY":
+			return getCapacityReport();
+
+		default:
+			throw new IllegalArgumentException("unknown request " + words[0]);
+		}
+	}
+
+	/**
+	 * Add a worker to the cluster.
+	 *
+	 * @return the id of the worker
+	 */
+	private synchronized int register(String host, int port, int capacity) {
+		WorkerEntry worker = new WorkerEntry(nextWorkerId++, host, port, capacity);
+		worker.lastReport = System.nanoTime();
+		workers.add(worker);
+		return worker.id;
+	}
+
+	/**
+	 * Record a load report from a worker. The worker is matched on its address as
+	 * well as its id, as a restarted coordinator may have given the id to another
+	 * worker.
+	 *
+	 * @throws IllegalArgumentException if the worker is not registered, so it
+	 *                                  registers again
+	 */
+	private synchronized void report(int workerId, String host, int port, int games, int snakes, double tickRatio) {
+		for (WorkerEntry worker : workers) {
+			if (worker.id == workerId && worker.port == port && worker.host.equals(host)) {
+				worker.games = games;
+				worker.snakes = snakes;
+				worker.tickRatio = tickRatio;
+				worker.lastReport = System.nanoTime();
+				return;
+			}
+		}
+		throw new IllegalArgumentException(UNKNOWN_WORKER + " " + workerId);
+	}
+
+	/**
+	 * Get the live worker with the lowest fraction of its capacity in use and room for
+	 * another game, the lowest id first. Caller must hold the ShardCoordinator lock.
+	 *
+	 * @return the worker, or null if no live worker has room
+	 */
+	private WorkerEntry leastLoaded(long now) {
+		WorkerEntry best = null;
+		for (WorkerEntry worker : workers) {
+			if (worker.isLive(now) && worker.games < worker.capacity
+					&& (best == null || worker.load() < best.load())) {
+				best = worker;
+			}
+		}
+		return best;
+	}
+
+	// ========== INNER WORKER CLASSES ==========
+
+	/**
+	 * Where a game of the cluster runs.
+	 */
+	public static final class Placement {
+		private final int clusterGameId;
+		private final int workerId;
+		private final String host;
+		private final int port;
+		private final int gameId;
+
+		Placement(int clusterGameId, int workerId, String host, int port, int gameId) {
+			this.clusterGameId = clusterGameId;
+			this.workerId = workerId;
+			this.host = host;
+			this.port = port;
+			this.gameId = gameId;
+		}
+
+		public int getClusterGameId() {
+			return clusterGameId;
+		}
+
+		public int getWorkerId() {
+			return workerId;
+		}
+
+		public String getHost() {
+			return host;
+		}
+
+		public int getPort() {
+			return port;
+		}
+
+		/**
+		 * Get the id of the game on its worker.
+		 */
+		public int getGameId() {
+			return gameId;
+		}
+
+		@Override
+		public String toString() {
+			return "GAME " + clusterGameId + " " + workerId + " " + host + " " + port + " " + gameId;
+		}
+	}
+
+	/**
+	 * A registered worker and its last reported load. Guarded by the ShardCoordinator
+	 * lock.
+	 */
+	private static final class WorkerEntry {
+		final int id;
+		final String host;
+		final int port;
+		final int capacity;
+		int games;
+		int snakes;
+		double tickRatio = 1;
+		long lastReport; // from System.nanoTime()
+
+		WorkerEntry(int id, String host, int port, int capacity) {
+			this.id = id;
+			this.host = host;
+			this.port = port;
+			this.capacity = capacity;
+		}
+
+		double load() {
+			return games / (double) capacity;
+		}
+
+		boolean isLive(long now) {
+			return now - lastReport < TimeUnit.MILLISECONDS.toNanos(WORKER_TIMEOUT_MILLIS);
+		}
+	}
+
+	// MAIN
+	/**
+	 * Run a coordinator process until it is killed.
+	 * <p>
+	 * Usage: ShardCoordinator [port]
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+		ShardCoordinator coordinator = new ShardCoordinator(port);
+		coordinator.start();
+		System.out.println("shard coordinator listening on port " + coordinator.getPort());
+	}
+}
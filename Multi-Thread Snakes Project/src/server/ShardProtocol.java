@@ -0,0 +1,188 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Line protocol spoken between the shard coordinator, its workers and clients.
+ * Every exchange is one connection carrying one request line and one response
+ * line of space separated words, so any process on the host - or a person with a
+ * telnet client - can talk to the cluster without a client library. A response
+ * starting with ERROR carries the reason after it.
+ */
+public final class ShardProtocol {
+	public static final int TIMEOUT_MILLIS = 5000; // connect and read timeout of one exchange
+	public static final String ERROR = "ERROR";
+	public static final String BUSY = "busy"; // reason of the ERROR answering a request with no room to queue it
+	public static final int CONNECTION_THREADS = 8; // requests answered at once by a coordinator or worker
+	public static final int CONNECTION_QUEUE = 256; // requests waiting for a connection thread
+	private static final long CONNECTION_KEEP_ALIVE_SECONDS = 30; // idle time before a connection thread exits
+
+	private ShardProtocol() {
+	}
+
+	/**
+	 * Send one request and wait for its response.
+	 *
+	 * @param host the host to connect to
+	 * @param port the port the coordinator or worker listens on
+	 * @param line the request, without a line break
+	 * @return the response line
+	 * @throws IOException if the connection fails or the response starts with ERROR
+	 */
+	public static String request(String host, int port, String line) throws IOException {
+		try (Socket socket = new Socket()) {
+			socket.connect(new InetSocketAddress(host, port), TIMEOUT_MILLIS);
+			socket.setSoTimeout(TIMEOUT_MILLIS);
+			PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			out.println(line);
+			String response = in.readLine();
+			if (response == null) {
+				throw new IOException("no response to " + line + " from " + host + ":" + port);
+			}
+			if (response.startsWith(ERROR)) {
+				throw new IOException(response.substring(ERROR.length()).trim());
+			}
+			return response;
+		}
+	}
+
+	/**
+	 * Create a bounded pool to answer requests on - CONNECTION_THREADS named threads
+	 * and a queue of CONNECTION_QUEUE requests. A request arriving while the queue is
+	 * full is rejected, and serve() answers it with an ERROR.
+	 *
+	 * @param threadName name of the pool threads, numbered from 1
+	 */
+	static ThreadPoolExecutor newConnectionExecutor(String threadName) {
+		AtomicInteger threadNumber = new AtomicInteger(1);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(CONNECTION_THREADS, CONNECTION_THREADS,
+				CONNECTION_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(CONNECTION_QUEUE),
+				runnable -> new Thread(runnable, threadName + "-" + threadNumber.getAndIncrement()),
+				new ThreadPoolExecutor.AbortPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Accept connections until the server socket is closed, answering each request on
+	 * the connection executor. A request the executor rejects is answered with ERROR
+	 * busy on the calling thread. Runs on the calling thread.
+	 *
+	 * @param serverSocket       the socket to accept connections on
+	 * @param connectionExecutor pool each request is answered on
+	 * @param handler            turns the words of a request into a response line - an
+	 *                           IllegalArgumentException or UncheckedIOException it
+	 *                           throws is sent back as an ERROR response
+	 */
+	static void serve(ServerSocket serverSocket, ExecutorService connectionExecutor,
+			Function<String[], String> handler) {
+		while (!serverSocket.isClosed()) {
+			Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (SocketException e) {
+				// server socket closed
+				return;
+			} catch (IOException e) {
+				System.err.println("accept failed: " + e.getMessage());
+				continue;
+			}
+			try {
+				connectionExecutor.execute(() -> answer(socket, handler));
+			} catch (RejectedExecutionException e) {
+				reject(socket);
+			}
+		}
+	}
+
+	/**
+	 * Get a word of a request.
+	 *
+	 * @throws IllegalArgumentException if the request is too short
+	 */
+	static String word(String[] words, int index) {
+		if (index >= words.length) {
+			throw new IllegalArgumentException(words[0] + " needs " + index + " arguments");
+		}
+		return words[index];
+	}
+
+	/**
+	 * Get a whole number word of a request.
+	 *
+	 * @throws IllegalArgumentException if the request is too short or the word is not a
+	 *                                  number
+	 */
+	static int intWord(String[] words, int index) {
+		return Integer.parseInt(word(words, index));
+	}
+
+	// ================ PRIVATE METHODS ================
+
+	/**
+	 * Read one request from a connection, answer it and close the connection.
+	 */
+	private static void answer(Socket socket, Function<String[], String> handler) {
+		try {
+			socket.setSoTimeout(TIMEOUT_MILLIS);
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+			String line = in.readLine();
+			if (line == null) {
+				return;
+			}
+			String response;
+			try {
+				response = handler.apply(line.trim().split("\\s+"));
+			} catch (IllegalArgumentException e) {
+				response = ERROR + " " + e.getMessage();
+			} catch (UncheckedIOException e) {
+				response = ERROR + " " + e.getCause().getMessage();
+			}
+			out.println(response);
+		} catch (IOException e) {
+			System.err.println("shard connection failed: " + e.getMessage());
+		} finally {
+			close(socket);
+		}
+	}
+
+	/**
+	 * Answer a connection with ERROR busy without reading its request, and close it.
+	 */
+	private static void reject(Socket socket) {
+		try {
+			PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+			out.println(ERROR + " " + BUSY);
+		} catch (IOException e) {
+			// the client sees the connection close instead
+		} finally {
+			close(socket);
+		}
+	}
+
+	private static void close(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// nothing left to do with the connection
+		}
+	}
+}
@@ -0,0 +1,253 @@
+package server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import abstractClasses.Snake.Direction;
+import client.NPCSnake;
+
+/**
+ * Worker process of a sharded game cluster. Hosts games on its own GameHost and
+ * takes requests from the ShardCoordinator over the ShardProtocol:
+ * <ul>
+ * <li>CREATE players npcs - create a game, returns OK gameId</li>
+ * <li>STATUS gameId - returns GAME gameId phase tickCount snakeCount</li>
+ * </ul>
+ * The worker registers with the coordinator when it starts, then reports its load
+ * every REPORT_MILLIS: the games it hosts, their snakes, and the fraction of the
+ * target tick rate its ticking games achieved since the last report. A worker the
+ * coordinator answers is unknown - the coordinator restarted and forgot it -
+ * registers again; any other failed report keeps the workers id.
+ */
+public final class ShardWorker {
+	public static final long REPORT_MILLIS = 500; // time between load reports
+	public static final int DEFAULT_CAPACITY = 1000; // games a worker takes by default
+	private static final int ENCRYPTION_KEY = new Random().nextInt(20) + 1;
+
+	private final GameHost gameHost;
+	private final int capacity;
+	private final String coordinatorHost;
+	private final int coordinatorPort;
+	private final ServerSocket serverSocket;
+	private final ExecutorService connectionExecutor;
+	private final ScheduledExecutorService reportScheduler;
+	private volatile int workerId; // -1 until registered
+	private final HashMap<GameServer, Integer> reportedTicks; // tick count at the last report - report thread only
+
+	/**
+	 * CONSTRUCTOR for a worker listening on an ephemeral port of the local host.
+	 *
+	 * @param gameHost        hosts the games of this worker
+	 * @param capacity        most games the coordinator assigns to this worker
+	 * @param coordinatorHost host of the coordinator
+	 * @param coordinatorPort port of the coordinator
+	 * @throws IOException if the worker cannot listen for requests
+	 */
+	public ShardWorker(GameHost gameHost, int capacity, String coordinatorHost, int coordinatorPort)
+			throws IOException {
+		this.gameHost = gameHost;
+		this.capacity = capacity;
+		this.coordinatorHost = coordinatorHost;
+		this.coordinatorPort = coordinatorPort;
+		serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		connectionExecutor = ShardProtocol.newConnectionExecutor("Shard-Worker");
+		reportScheduler = Executors
+				.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "Shard-Worker-Report"));
+		workerId = -1;
+		reportedTicks = new HashMap<GameServer, Integer>();
+	}
+
+	// MAIN
+	/**
+	 * Run a worker process until it is killed.
+	 * <p>
+	 * Usage: ShardWorker coordinatorHost coordinatorPort [capacity] [tickMillis] [tickThreads]
+	 */
+	public static void main(String[] args) throws IOException {
+		String coordinatorHost = args[0];
+		int coordinatorPort = Integer.parseInt(args[1]);
+		int capacity = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_CAPACITY;
+		long tickMillis = args.length > 3 ? Long.parseLong(args[3]) : GameServer.TICK_MILLIS;
+		int tickThreads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+		GameHost gameHost = new GameHost(new UserDatabase(), new Leaderboard(), tickMillis, tickThreads);
+		ShardWorker worker = new ShardWorker(gameHost, capacity, coordinatorHost, coordinatorPort);
+		worker.start();
+		System.out.println("shard worker " + worker.getWorkerId() + " listening on port " + worker.getPort());
+	}
+
+	/**
+	 * Start taking requests, register with the coordinator and start reporting load.
+	 *
+	 * @throws IOException if the coordinator cannot be reached
+	 */
+	public void start() throws IOException {
+		Thread acceptThread = new Thread(() -> ShardProtocol.serve(serverSocket, connectionExecutor, this::answer),
+				"Shard-Worker-Accept");
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+		register();
+		reportScheduler.scheduleAtFixedRate(this::report, REPORT_MILLIS, REPORT_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stop taking requests and reporting. The game host is left to its owner.
+	 */
+	public void shutdown() {
+		reportScheduler.shutdown();
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			// already closed
+		}
+		connectionExecutor.shutdown();
+	}
+
+	/**
+	 * Create a game on this worker, with NPC snakes taking the snake ids after the
+	 * players.
+	 *
+	 * @param players number of players who will log in to the game
+	 * @param npcs    number of NPC snakes to add
+	 * @return the id of the game on this worker
+	 */
+	public int createGame(int players, int npcs) {
+		if (players < 0 || npcs < 0) {
+			throw new IllegalArgumentException("game of " + players + " players and " + npcs + " npcs");
+		}
+		GameServer game = gameHost.createGame(players, ENCRYPTION_KEY);
+		for (int i = 1; i <= npcs; i++) {
+			game.npcLoginAsync(new ShardNPCSnake(game, players + i));
+		}
+		return game.getGameId();
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	/**
+	 * Get the id the coordinator gave this worker.
+	 *
+	 * @return the worker id, or -1 before the worker has registered
+	 */
+	public int getWorkerId() {
+		return workerId;
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public GameHost getGameHost() {
+		return gameHost;
+	}
+
+	// ================ PRIVATE METHODS ================
+
+	/**
+	 * Answer a request from the coordinator or a client.
+	 */
+	private String answer(String[] words) {
+		switch (words[0]) {
+		case "CREATE":
+			return "OK " + createGame(ShardProtocol.intWord(words, 1), ShardProtocol.intWord(words, 2));
+
+		case "STATUS":
+			GameServer game = gameHost.getGame(ShardProtocol.intWord(words, 1));
+			if (game == null) {
+				throw new IllegalArgumentException("no game " + words[1] + " on worker " + workerId);
+			}
+			return "GAME " + game.getGameId() + " " + game.getPhase() + " " + game.getTickCount() + " "
+					+ game.getSnakeCount();
+
+		default:
+			throw new IllegalArgumentException("unknown request " + words[0]);
+		}
+	}
+
+	/**
+	 * Register with the coordinator.
+	 */
+	private void register() throws IOException {
+		String response = ShardProtocol.request(coordinatorHost, coordinatorPort,
+				"REGISTER " + InetAddress.getLoopbackAddress().getHostAddress() + " " + getPort() + " " + capacity);
+		workerId = Integer.parseInt(response.split(" ")[1]);
+	}
+
+	/**
+	 * Report the load of this worker to the coordinator. Runs on the report thread.
+	 */
+	private void report() {
+		int games = 0;
+		int snakes = 0;
+		long ticks = 0;
+		int measuredGames = 0;
+		HashMap<GameServer, Integer> lastTicks = new HashMap<GameServer, Integer>(reportedTicks);
+		reportedTicks.clear();
+		for (GameServer game : gameHost.getGames()) {
+			games++;
+			snakes += game.getSnakeCount();
+			if (game.isReadyToStart() && !game.isGameEnded()) {
+				Integer previous = lastTicks.get(game);
+				if (previous != null) {
+					ticks += game.getTickCount() - previous;
+					measuredGames++;
+				}
+				reportedTicks.put(game, game.getTickCount());
+			}
+		}
+		double expectedTicks = measuredGames * (double) REPORT_MILLIS / gameHost.getTickMillis();
+		double tickRatio = measuredGames == 0 ? 1 : Math.min(1, ticks / expectedTicks);
+		try {
+			ShardProtocol.request(coordinatorHost, coordinatorPort,
+					"LOAD " + workerId + " " + InetAddress.getLoopbackAddress().getHostAddress() + " " + getPort() + " "
+							+ games + " " + snakes + " " + tickRatio);
+		} catch (IOException e) {
+			if (e.getMessage() == null || !e.getMessage().startsWith(ShardCoordinator.UNKNOWN_WORKER)) {
+				// a timeout or lost connection - the coordinator still knows this worker
+				System.err.println("shard worker " + workerId + " cannot reach coordinator: " + e.getMessage());
+				return;
+			}
+			// the coordinator restarted and forgot this worker
+			try {
+				register();
+			} catch (IOException registerFailed) {
+				System.err.println("shard worker " + workerId + " cannot register again: " + registerFailed.getMessage());
+			}
+		}
+	}
+
+	// ========== INNER WORKER CLASSES ==========
+
+	/**
+	 * NPC snake that turns at random whenever it is sent the game state, so the
+	 * worker needs no thread per NPC snake.
+	 */
+	private static final class ShardNPCSnake extends NPCSnake {
+
+		ShardNPCSnake(GameServer gameServer, int snakeId) {
+			super(gameServer, snakeId);
+		}
+
+		@Override
+		public void submitGameState(GameSnapshot serverSnapshot) {
+			serverSnapshot.release();
+			try {
+				directionBufferProduce(Direction.values()[ThreadLocalRandom.current().nextInt(4)]);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,166 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import abstractClasses.Snake;
+
+/**
+ * Lock free view of the snakes of a game, for readers outside the game state lock.
+ * Slots are the slots of the games SnakeTable, which owns the id to slot map and the
+ * snakes; the registry holds a copy on write array of the snakes indexed by slot, an
+ * alive bitset over the slots and an atomic live count, so checking for live snakes
+ * is O(1) and iterating the live snakes skips dead ones 64 slots at a time.
+ * <p>
+ * The registry is changed only by its SnakeTable as snakes join, spawn and die,
+ * under the GameState lock, so it cannot drift from the table. Reads never lock, so
+ * the tick and any other reader see the registry without waiting.
+ */
+public final class SnakeRegistry {
+	private static final int INITIAL_SLOTS = 64;
+	private volatile Snake[] snakes; // indexed by slot, copy on write
+	private volatile AtomicLongArray aliveBits; // one bit per slot, replaced when grown
+	private final AtomicInteger liveCount;
+
+	/**
+	 * CONSTRUCTOR for an empty snake registry.
+	 */
+	SnakeRegistry() {
+		snakes = new Snake[0];
+		aliveBits = new AtomicLongArray(INITIAL_SLOTS / 64);
+		liveCount = new AtomicInteger(0);
+	}
+
+	/**
+	 * Replace the snakes of the table, indexed by slot. Called by the table when a slot
+	 * is added or given a new snake, before the slot is marked alive.
+	 *
+	 * @param tableSnakes a copy of the snakes of the table, not changed afterwards
+	 */
+	void publish(Snake[] tableSnakes) {
+		while (tableSnakes.length > aliveBits.length() * 64) {
+			growAliveBits();
+		}
+		snakes = tableSnakes;
+	}
+
+	/**
+	 * Set the alive bit of a slot, keeping the live count in step. Called by the table.
+	 */
+	void setAlive(int slot, boolean alive) {
+		AtomicLongArray bits = aliveBits;
+		int word = slot >>> 6;
+		long mask = 1L << slot;
+		long old = bits.get(word);
+		if (((old & mask) != 0) == alive) {
+			return;
+		}
+		bits.set(word, alive ? old | mask : old & ~mask);
+		if (alive) {
+			liveCount.incrementAndGet();
+		} else {
+			liveCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Get the next live slot, for iterating the live snakes without allocating:
+	 * <pre>
+	 * for (int slot = registry.nextLiveSlot(0); slot &gt;= 0; slot = registry.nextLiveSlot(slot + 1))
+	 * </pre>
+	 *
+	 * @param fromSlot the first slot to check
+	 * @return the first live slot at or after fromSlot, or -1 if there is none
+	 */
+	public int nextLiveSlot(int fromSlot) {
+		AtomicLongArray bits = aliveBits;
+		int word = fromSlot >>> 6;
+		if (fromSlot < 0 || word >= bits.length()) {
+			return -1;
+		}
+		long live = bits.get(word) & (-1L << fromSlot);
+		while (live == 0) {
+			if (++word == bits.length()) {
+				return -1;
+			}
+			live = bits.get(word);
+		}
+		return (word << 6) + Long.numberOfTrailingZeros(live);
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	/**
+	 * Check if any snake is alive.
+	 */
+	public boolean anyAlive() {
+		return liveCount.get() > 0;
+	}
+
+	public int getLiveCount() {
+		return liveCount.get();
+	}
+
+	/**
+	 * Get the number of snakes that have ever joined, alive or dead.
+	 */
+	public int size() {
+		return snakes.length;
+	}
+
+	/**
+	 * Get the snake in a slot.
+	 *
+	 * @param slot the snakes slot, below size()
+	 */
+	public Snake get(int slot) {
+		return snakes[slot];
+	}
+
+	/**
+	 * Get every snake, indexed by slot. The array is shared and must not be modified;
+	 * it is replaced, never changed, when a snake joins.
+	 */
+	public Snake[] getSnakes() {
+		return snakes;
+	}
+
+	/**
+	 * Check if the snake in a slot is alive.
+	 */
+	public boolean isAlive(int slot) {
+		AtomicLongArray bits = aliveBits;
+		return slot >= 0 && (slot >>> 6) < bits.length() && (bits.get(slot >>> 6) & (1L << slot)) != 0;
+	}
+
+	/**
+	 * Get the slot of a snake by scanning the snakes - the id to slot map is kept by
+	 * the table.
+	 *
+	 * @param snakeId the snake identification number
+	 * @return the snakes slot, or -1 if the snake has not joined
+	 */
+	public int slotOf(int snakeId) {
+		Snake[] joined = snakes;
+		for (int slot = 0; slot < joined.length; slot++) {
+			if (joined[slot].getSnakeId() == snakeId) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	// ================ PRIVATE METHODS ================
+
+	/**
+	 * Double the alive bitset.
+	 */
+	private void growAliveBits() {
+		AtomicLongArray bits = aliveBits;
+		AtomicLongArray grown = new AtomicLongArray(bits.length() * 2);
+		for (int word = 0; word < bits.length(); word++) {
+			grown.set(word, bits.get(word));
+		}
+		aliveBits = grown;
+	}
+}
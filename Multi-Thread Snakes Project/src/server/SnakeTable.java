@@ -0,0 +1,193 @@
+package server;
+
+import java.util.Arrays;
+
+import abstractClasses.Snake;
+
+/**
+ * Struct-of-arrays storage for the snakes of one game. Every snake has a slot,
+ * assigned in join order, and its data lives in parallel primitive arrays
+ * indexed by slot, so tick loops scan contiguous memory instead of chasing map
+ * entries, model objects and list nodes. Each snake body is a ring buffer of
+ * packed tiles (row * board size + column) with the head at the ring head, so
+ * moving a snake writes one tile and drops one tile without allocating. Body
+ * buffers are sized for a snake filling the whole board when the slot is added,
+ * so a growing snake never allocates either. Not thread safe - guarded by the
+ * owning GameState.
+ * <p>
+ * The table owns the id to slot map and the snakes. It keeps its SnakeRegistry, the
+ * lock free view of its slots for readers outside the GameState lock, in step as
+ * slots are added and snakes spawn and die.
+ */
+final class SnakeTable {
+	private static final int INITIAL_SLOTS = 8;
+	private final int bodyCapacity; // power of two, at least the tiles on the board
+
+	int count; // slots in use, [0, count)
+	int liveCount;
+	int[] ids;
+	Snake[] snakes;
+	boolean[] alive;
+	int[] length;
+	int[] head; // ring position of the head tile in the body buffer
+	int[][] bodies; // ring buffer of packed tiles per slot, capacity a power of two
+	private int[] slotById; // snake id -> slot, -1 if the snake has no slot
+	final SnakeRegistry registry;
+
+	/**
+	 * CONSTRUCTOR for an empty snake table.
+	 *
+	 * @param boardTiles number of tiles on the game board, the longest a snake can be
+	 */
+	SnakeTable(int boardTiles) {
+		bodyCapacity = Math.max(1, Integer.highestOneBit(Math.max(1, boardTiles - 1)) * 2);
+		ids = new int[INITIAL_SLOTS];
+		snakes = new Snake[INITIAL_SLOTS];
+		alive = new boolean[INITIAL_SLOTS];
+		length = new int[INITIAL_SLOTS];
+		head = new int[INITIAL_SLOTS];
+		bodies = new int[INITIAL_SLOTS][];
+		slotById = new int[INITIAL_SLOTS];
+		Arrays.fill(slotById, -1);
+		registry = new SnakeRegistry();
+	}
+
+	/**
+	 * COPY CONSTRUCTOR. The copy has a registry of its own over the copied slots.
+	 */
+	SnakeTable(SnakeTable snakeTable) {
+		bodyCapacity = snakeTable.bodyCapacity;
+		count = snakeTable.count;
+		liveCount = snakeTable.liveCount;
+		ids = snakeTable.ids.clone();
+		snakes = snakeTable.snakes.clone();
+		alive = snakeTable.alive.clone();
+		length = snakeTable.length.clone();
+		head = snakeTable.head.clone();
+		bodies = new int[snakeTable.bodies.length][];
+		for (int slot = 0; slot < count; slot++) {
+			bodies[slot] = snakeTable.bodies[slot].clone();
+		}
+		slotById = snakeTable.slotById.clone();
+		registry = new SnakeRegistry();
+		registry.publish(Arrays.copyOf(snakes, count));
+		for (int slot = 0; slot < count; slot++) {
+			registry.setAlive(slot, alive[slot]);
+		}
+	}
+
+	/**
+	 * Give a snake a slot, or reuse its slot if it already has one. The slot starts
+	 * alive with an empty body.
+	 *
+	 * @param snake the snake
+	 * @return the snakes slot
+	 */
+	int add(Snake snake) {
+		int snakeId = snake.getSnakeId();
+		int slot = slotOf(snakeId);
+		if (slot < 0) {
+			if (count == ids.length) {
+				growSlots();
+			}
+			if (snakeId >= slotById.length) {
+				int previous = slotById.length;
+				slotById = Arrays.copyOf(slotById, Math.max(snakeId + 1, previous * 2));
+				Arrays.fill(slotById, previous, slotById.length, -1);
+			}
+			slot = count++;
+			slotById[snakeId] = slot;
+			ids[slot] = snakeId;
+			bodies[slot] = new int[bodyCapacity];
+		} else if (alive[slot]) {
+			liveCount--;
+		}
+		if (snakes[slot] != snake) {
+			// a new slot or a new snake in an old slot - a respawn keeps the view
+			snakes[slot] = snake;
+			registry.publish(Arrays.copyOf(snakes, count));
+		}
+		snake.setAlive(true);
+		alive[slot] = true;
+		length[slot] = 0;
+		head[slot] = 0;
+		liveCount++;
+		registry.setAlive(slot, true);
+		return slot;
+	}
+
+	/**
+	 * Get the slot of a snake.
+	 *
+	 * @param snakeId the snake identification number
+	 * @return the snakes slot, or -1 if the snake has no slot
+	 */
+	int slotOf(int snakeId) {
+		return snakeId >= 0 && snakeId < slotById.length ? slotById[snakeId] : -1;
+	}
+
+	/**
+	 * Get the packed head tile of a snake.
+	 */
+	int headTile(int slot) {
+		return bodies[slot][head[slot]];
+	}
+
+	/**
+	 * Get a packed body tile of a snake.
+	 *
+	 * @param slot the snakes slot
+	 * @param i    position along the body, 0 for the head
+	 * @return packed tile
+	 */
+	int bodyTile(int slot, int i) {
+		int[] body = bodies[slot];
+		return body[(head[slot] + i) & (body.length - 1)];
+	}
+
+	/**
+	 * Add a new head tile to a snake.
+	 */
+	void pushHead(int slot, int tile) {
+		int[] body = bodies[slot];
+		head[slot] = (head[slot] - 1) & (body.length - 1);
+		body[head[slot]] = tile;
+		length[slot]++;
+	}
+
+	/**
+	 * Remove the tail tile of a snake.
+	 *
+	 * @return the packed tile removed
+	 */
+	int removeTail(int slot) {
+		int tail = bodyTile(slot, length[slot] - 1);
+		length[slot]--;
+		return tail;
+	}
+
+	/**
+	 * Mark a snake dead and tell the snake. Its body must already be empty.
+	 */
+	void kill(int slot) {
+		snakes[slot].setAlive(false);
+		if (alive[slot]) {
+			alive[slot] = false;
+			liveCount--;
+			registry.setAlive(slot, false);
+			snakes[slot].onDeath();
+		}
+	}
+
+	// ================ PRIVATE METHODS ================
+
+	private void growSlots() {
+		int capacity = ids.length * 2;
+		ids = Arrays.copyOf(ids, capacity);
+		snakes = Arrays.copyOf(snakes, capacity);
+		alive = Arrays.copyOf(alive, capacity);
+		length = Arrays.copyOf(length, capacity);
+		head = Arrays.copyOf(head, capacity);
+		bodies = Arrays.copyOf(bodies, capacity);
+	}
+}
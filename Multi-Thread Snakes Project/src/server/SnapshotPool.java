@@ -0,0 +1,52 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded pool of released game state snapshots. Snapshots are released by any
+ * consumer thread and taken by the ticking thread, so the pool is a fixed array of
+ * slots claimed by compare and set - unlike a blocking queue it takes no lock, and
+ * a tick taking a snapshot never allocates a lock queue node when a consumer is
+ * releasing one at the same time.
+ */
+final class SnapshotPool {
+	private final AtomicReferenceArray<GameSnapshot> slots;
+
+	/**
+	 * CONSTRUCTOR for an empty pool.
+	 *
+	 * @param capacity most snapshots kept for reuse
+	 */
+	SnapshotPool(int capacity) {
+		slots = new AtomicReferenceArray<GameSnapshot>(capacity);
+	}
+
+	/**
+	 * Keep a released snapshot for reuse.
+	 *
+	 * @return false if the pool is full and the snapshot is left for garbage collection
+	 */
+	boolean offer(GameSnapshot snapshot) {
+		for (int i = 0; i < slots.length(); i++) {
+			if (slots.get(i) == null && slots.compareAndSet(i, null, snapshot)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Take a snapshot for reuse.
+	 *
+	 * @return a released snapshot, or null if the pool is empty
+	 */
+	GameSnapshot poll() {
+		for (int i = 0; i < slots.length(); i++) {
+			GameSnapshot snapshot = slots.get(i);
+			if (snapshot != null && slots.compareAndSet(i, snapshot, null)) {
+				return snapshot;
+			}
+		}
+		return null;
+	}
+}
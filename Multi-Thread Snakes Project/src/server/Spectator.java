@@ -0,0 +1,21 @@
+package server;
+
+/**
+ * Read-only viewer of a game. Spectators are not snakes - they never join the
+ * game state, they only receive the encoded frames of a games SpectatorFeed.
+ * Every spectator of a game is handed the same immutable frame each tick.
+ */
+public interface Spectator {
+
+	/**
+	 * Offer the spectator the next frame. Runs on a PUBLISH pool thread shared with
+	 * every other spectator of the game, so it must not block - a spectator that
+	 * cannot take the frame straight away (for example because its connection is
+	 * backed up) returns false. A spectator that refuses a frame is skipped forward:
+	 * it is offered no more delta frames until it accepts a keyframe.
+	 *
+	 * @param frame the encoded frame, shared with every other spectator
+	 * @return true if the spectator took the frame
+	 */
+	boolean offerFrame(SpectatorFrame frame);
+}
@@ -0,0 +1,315 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import server.GameState.GameTile;
+
+/**
+ * Fan-out of one games ticks to any number of read-only spectators. The tick
+ * only leaves its snapshot in the feed, which costs the same however many
+ * spectators are watching. A feed worker on the PUBLISH pool then encodes the
+ * snapshot once into a SpectatorFrame and offers that one frame to every
+ * spectator.
+ * <p>
+ * Frames are keyframes every KEYFRAME_FRAMES frames, or when a spectator joins,
+ * and deltas against the previous frame otherwise. Spectators that refuse a
+ * frame are never waited for - they are skipped forward to the next keyframe.
+ * If the feed worker falls behind the tick, older snapshots are dropped for the
+ * latest one, and deltas stay consistent because each is taken against the
+ * previous encoded frame rather than the previous tick.
+ */
+public final class SpectatorFeed {
+	public static final int KEYFRAME_FRAMES = 25; // frames between keyframes
+
+	private final int boardSize;
+	private final ExecutorService publishExecutor;
+	private final FeedWorker feedWorker;
+	private final AtomicReference<GameSnapshot> pending; // latest snapshot not yet encoded
+	private volatile SpectatorSlot[] spectatorSlots; // copy on write
+	private final AtomicBoolean keyframeRequested; // a spectator joined since the last keyframe
+	private volatile SpectatorFrame latestKeyframe;
+	private volatile long framesSkipped; // frames not delivered to a spectator, written by the feed worker
+	// encoder state - only touched by the worker holding the drain flag
+	private final GameTile[][] previousBoard;
+	private final GameTile[][] board;
+	private long frameSequence;
+
+	/**
+	 * CONSTRUCTOR for spectator feed.
+	 *
+	 * @param boardSize       number of rows and columns on the game board
+	 * @param publishExecutor pool the feed worker encodes and fans out frames on
+	 */
+	public SpectatorFeed(int boardSize, ExecutorService publishExecutor) {
+		this.boardSize = boardSize;
+		this.publishExecutor = publishExecutor;
+		feedWorker = new FeedWorker();
+		pending = new AtomicReference<GameSnapshot>();
+		keyframeRequested = new AtomicBoolean(false);
+		spectatorSlots = new SpectatorSlot[0];
+		previousBoard = new GameTile[boardSize][boardSize];
+		board = new GameTile[boardSize][boardSize];
+		frameSequence = 0;
+	}
+
+	/**
+	 * Add a spectator to the feed. The next frame is a keyframe so the spectator
+	 * starts watching straight away.
+	 *
+	 * @param spectator the spectator to add
+	 */
+	public synchronized void addSpectator(Spectator spectator) {
+		SpectatorSlot[] grown = Arrays.copyOf(spectatorSlots, spectatorSlots.length + 1);
+		grown[grown.length - 1] = new SpectatorSlot(spectator);
+		spectatorSlots = grown;
+		keyframeRequested.set(true);
+	}
+
+	/**
+	 * Remove a spectator from the feed. A frame already being fanned out may still
+	 * be offered to the spectator.
+	 *
+	 * @param spectator the spectator to remove
+	 * @return true if the spectator was watching
+	 */
+	public synchronized boolean removeSpectator(Spectator spectator) {
+		SpectatorSlot[] remaining = new SpectatorSlot[spectatorSlots.length];
+		int count = 0;
+		for (SpectatorSlot spectatorSlot : spectatorSlots) {
+			if (spectatorSlot.spectator != spectator) {
+				remaining[count++] = spectatorSlot;
+			}
+		}
+		boolean removed = count < spectatorSlots.length;
+		spectatorSlots = Arrays.copyOf(remaining, count);
+		return removed;
+	}
+
+	/**
+	 * Leave the latest snapshot of a game state in the feed and start the feed
+	 * worker. Called by the ticking thread once per tick; does nothing while there
+	 * are no spectators.
+	 *
+	 * @param gameState the game state to take the latest snapshot of
+	 * @param tick      the tick being published
+	 */
+	public void offer(GameState gameState, int tick) {
+		if (spectatorSlots.length == 0) {
+			return;
+		}
+		GameSnapshot stale = pending.getAndSet(gameState.acquireSnapshot());
+		if (stale != null) {
+			// feed worker fell behind - spectators skip the older tick
+			stale.release();
+		}
+		feedWorker.schedule(tick);
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	public int getSpectatorCount() {
+		return spectatorSlots.length;
+	}
+
+	/**
+	 * Get the latest keyframe encoded by the feed.
+	 *
+	 * @return the latest keyframe, null before the first frame
+	 */
+	public SpectatorFrame getLatestKeyframe() {
+		return latestKeyframe;
+	}
+
+	/**
+	 * Get the number of frames not delivered to a spectator because it refused
+	 * them or was waiting for a keyframe, totalled over all spectators.
+	 */
+	public long getFramesSkipped() {
+		return framesSkipped;
+	}
+
+	// ================ PRIVATE METHODS ================
+
+	/**
+	 * Encode a snapshot into a frame and offer it to every spectator. Runs on the
+	 * feed worker holding the drain flag.
+	 */
+	private void publish(GameSnapshot snapshot) {
+		SpectatorFrame frame;
+		try {
+			boolean keyframe = keyframeRequested.getAndSet(false) || frameSequence % KEYFRAME_FRAMES == 0;
+			frame = keyframe ? encodeKeyframe(snapshot) : encodeDelta(snapshot);
+		} finally {
+			snapshot.release();
+		}
+		if (frame.isKeyframe()) {
+			latestKeyframe = frame;
+		}
+
+		long skipped = 0;
+		for (SpectatorSlot spectatorSlot : spectatorSlots) {
+			if (!spectatorSlot.inSync && !frame.isKeyframe()) {
+				// missed a frame - wait for the next keyframe
+				skipped++;
+				continue;
+			}
+			try {
+				spectatorSlot.inSync = spectatorSlot.spectator.offerFrame(frame);
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+				spectatorSlot.inSync = false;
+			}
+			if (!spectatorSlot.inSync) {
+				skipped++;
+			}
+		}
+		framesSkipped += skipped;
+	}
+
+	/**
+	 * Encode the whole board and every snake body of a snapshot.
+	 */
+	private SpectatorFrame encodeKeyframe(GameSnapshot snapshot) {
+		snapshot.copyRegion(0, 0, boardSize, boardSize, board);
+		int size = SpectatorFrame.HEADER_BYTES + boardSize * boardSize + 4;
+		for (int i = 0; i < snapshot.getSnakeCount(); i++) {
+			size += 8 + 4 * snapshot.getSnakeLength(i);
+		}
+
+		ByteBuffer out = ByteBuffer.allocate(size);
+		writeHeader(out, SpectatorFrame.KEYFRAME, snapshot.getTick());
+		for (int row = 0; row < boardSize; row++) {
+			for (int column = 0; column < boardSize; column++) {
+				out.put(SpectatorFrame.encodeTile(board[row][column]));
+			}
+		}
+		out.putInt(snapshot.getSnakeCount());
+		for (int i = 0; i < snapshot.getSnakeCount(); i++) {
+			out.putInt(snapshot.getSnakeId(i));
+			out.putInt(snapshot.getSnakeLength(i));
+			for (int t = 0; t < snapshot.getSnakeLength(i); t++) {
+				out.putInt(snapshot.getSnakeTile(i, t));
+			}
+		}
+		return nextFrame(out, snapshot.getTick(), true);
+	}
+
+	/**
+	 * Encode the tiles that changed since the previous frame and the head of every
+	 * snake of a snapshot.
+	 */
+	private SpectatorFrame encodeDelta(GameSnapshot snapshot) {
+		snapshot.copyRegion(0, 0, boardSize, boardSize, board);
+		int changes = 0;
+		for (int row = 0; row < boardSize; row++) {
+			for (int column = 0; column < boardSize; column++) {
+				if (board[row][column] != previousBoard[row][column]) {
+					changes++;
+				}
+			}
+		}
+
+		ByteBuffer out = ByteBuffer.allocate(SpectatorFrame.HEADER_BYTES + 4 + changes * 5 + 4
+				+ snapshot.getSnakeCount() * 12);
+		writeHeader(out, SpectatorFrame.DELTA, snapshot.getTick());
+		out.putInt(changes);
+		for (int row = 0; row < boardSize; row++) {
+			for (int column = 0; column < boardSize; column++) {
+				if (board[row][column] != previousBoard[row][column]) {
+					out.putInt(row * boardSize + column);
+					out.put(SpectatorFrame.encodeTile(board[row][column]));
+				}
+			}
+		}
+		out.putInt(snapshot.getSnakeCount());
+		for (int i = 0; i < snapshot.getSnakeCount(); i++) {
+			out.putInt(snapshot.getSnakeId(i));
+			out.putInt(snapshot.getSnakeLength(i));
+			out.putInt(snapshot.getSnakeLength(i) > 0 ? snapshot.getSnakeTile(i, 0) : -1);
+		}
+		return nextFrame(out, snapshot.getTick(), false);
+	}
+
+	private void writeHeader(ByteBuffer out, byte frameType, int tick) {
+		out.put(frameType);
+		out.putLong(frameSequence);
+		out.putInt(tick);
+		out.putShort((short) boardSize);
+	}
+
+	/**
+	 * Finish an encoded frame and make the encoded board the previous board for the
+	 * next delta.
+	 */
+	private SpectatorFrame nextFrame(ByteBuffer out, int tick, boolean keyframe) {
+		for (int row = 0; row < boardSize; row++) {
+			System.arraycopy(board[row], 0, previousBoard[row], 0, boardSize);
+		}
+		return new SpectatorFrame(frameSequence++, tick, keyframe, out.array());
+	}
+
+	// ========== INNER WORKER CLASSES ==========
+
+	/**
+	 * Feed state of one spectator.
+	 */
+	private static final class SpectatorSlot {
+		final Spectator spectator;
+		boolean inSync; // took every frame since its last keyframe, written by the feed worker
+
+		SpectatorSlot(Spectator spectator) {
+			this.spectator = spectator;
+		}
+	}
+
+	/**
+	 * Worker class to encode and fan out frames on the PUBLISH pool. Submitted at most
+	 * once per tick like the game servers publish worker, and resubmitted after
+	 * GameServer.PUBLISH_RETRY_TICKS if the pool dropped it. Only one run drains the
+	 * feed at a time, so frames are encoded in order.
+	 */
+	private class FeedWorker implements Runnable {
+		private final AtomicBoolean scheduled; // true from submission until the worker starts
+		private final AtomicBoolean draining; // true while a run is encoding and fanning out
+		private int scheduledTick; // written by the ticking thread
+
+		FeedWorker() {
+			scheduled = new AtomicBoolean(false);
+			draining = new AtomicBoolean(false);
+		}
+
+		/**
+		 * Submit the worker to the PUBLISH pool unless it is already waiting to run.
+		 * Runs on the ticking thread.
+		 */
+		void schedule(int tick) {
+			if (scheduled.compareAndSet(false, true) || tick - scheduledTick >= GameServer.PUBLISH_RETRY_TICKS) {
+				scheduledTick = tick;
+				publishExecutor.execute(this);
+			}
+		}
+
+		public void run() {
+			scheduled.set(false);
+			do {
+				if (!draining.compareAndSet(false, true)) {
+					// the draining run picks up the latest snapshot
+					return;
+				}
+				try {
+					GameSnapshot snapshot;
+					while ((snapshot = pending.getAndSet(null)) != null) {
+						publish(snapshot);
+					}
+				} finally {
+					draining.set(false);
+				}
+				// a snapshot left after the drain but before the flag cleared
+			} while (pending.get() != null);
+		}
+	}
+}
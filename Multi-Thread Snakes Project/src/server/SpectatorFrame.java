@@ -0,0 +1,144 @@
+package server;
+
+import java.nio.ByteBuffer;
+
+import server.GameState.GameTile;
+
+/**
+ * One tick of a game encoded for spectators. A frame is encoded once and the
+ * same immutable bytes are shared by every spectator of the game. Frames are
+ * either keyframes, holding the whole board, or delta frames, holding the tiles
+ * that changed since the previous frame - a delta can only be applied by a
+ * spectator that received every frame since the last keyframe.
+ * <p>
+ * Encoding (big endian):<p>
+ * - byte frame type (KEYFRAME or DELTA), long frame sequence, int tick, short board size.<p>
+ * - keyframe: one tile code per tile, row by row, then int snake count and for
+ *   each snake int id, int length and length packed tiles (row * board size + column), head first.<p>
+ * - delta: int change count and for each change int packed tile and byte tile
+ *   code, then int snake count and for each snake int id, int length and int head tile.<p>
+ */
+public final class SpectatorFrame {
+	public static final byte KEYFRAME = 0;
+	public static final byte DELTA = 1;
+	// tile codes
+	public static final byte EMPTY = 0;
+	public static final byte FOOD_BONUS = 1;
+	public static final byte FOOD_MALUS = 2;
+	public static final byte SNAKE = 3;
+	static final int HEADER_BYTES = 1 + 8 + 4 + 2;
+
+	private final long sequence;
+	private final int tick;
+	private final boolean keyframe;
+	private final ByteBuffer data; // read-only, never read through directly - see getData()
+
+	/**
+	 * CONSTRUCTOR for an encoded frame.
+	 *
+	 * @param sequence frame number, counting every frame of the feed
+	 * @param tick     tick the frame was taken from
+	 * @param keyframe true for a keyframe, false for a delta frame
+	 * @param bytes    the encoded frame, not modified after this call
+	 */
+	SpectatorFrame(long sequence, int tick, boolean keyframe, byte[] bytes) {
+		this.sequence = sequence;
+		this.tick = tick;
+		this.keyframe = keyframe;
+		data = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Get the encoded frame. The bytes are shared by every spectator; each call
+	 * returns a new read-only view with its own position, starting at 0.
+	 *
+	 * @return read-only view of the encoded frame
+	 */
+	public ByteBuffer getData() {
+		return data.duplicate();
+	}
+
+	/**
+	 * Get the size of the encoded frame in bytes.
+	 */
+	public int getLength() {
+		return data.capacity();
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public int getTick() {
+		return tick;
+	}
+
+	public boolean isKeyframe() {
+		return keyframe;
+	}
+
+	/**
+	 * Decode the board tiles of the frame onto a board. A keyframe overwrites every
+	 * tile, a delta frame overwrites the tiles that changed.
+	 *
+	 * @param board board of the frames board size to update
+	 */
+	public void applyTo(GameTile[][] board) {
+		ByteBuffer in = getData();
+		in.position(HEADER_BYTES - 2);
+		int boardSize = in.getShort();
+		if (keyframe) {
+			for (int row = 0; row < boardSize; row++) {
+				for (int column = 0; column < boardSize; column++) {
+					board[row][column] = decodeTile(in.get());
+				}
+			}
+		} else {
+			int changes = in.getInt();
+			for (int i = 0; i < changes; i++) {
+				int tile = in.getInt();
+				board[tile / boardSize][tile % boardSize] = decodeTile(in.get());
+			}
+		}
+	}
+
+	/**
+	 * Get the tile code of a GameTile.
+	 */
+	static byte encodeTile(GameTile tile) {
+		if (tile == null) {
+			return EMPTY;
+		}
+		switch (tile) {
+
+		case FOOD_BONUS:
+			return FOOD_BONUS;
+
+		case FOOD_MALUS:
+			return FOOD_MALUS;
+
+		default:
+			return SNAKE;
+		}
+	}
+
+	/**
+	 * Get the GameTile of a tile code.
+	 */
+	static GameTile decodeTile(byte code) {
+		switch (code) {
+
+		case FOOD_BONUS:
+			return GameTile.FOOD_BONUS;
+
+		case FOOD_MALUS:
+			return GameTile.FOOD_MALUS;
+
+		case SNAKE:
+			return GameTile.SNAKE;
+
+		default:
+			return null;
+		}
+	}
+}
@@ -1,47 +1,133 @@
 package server;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Random;
+import java.io.File;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentMap;
+
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.Serializer;
 
 /**
- * Database that stores the player details of authorised players.
+ * Database that stores the player details of authorised players. Player details
+ * are held in a MapDB hash map keyed by username, so a login is a single hashed
+ * lookup rather than a scan of every registered player. The map is segment
+ * locked internally - concurrent logins do not queue behind a global lock.
  */
 public final class UserDatabase {
-	protected static final List<PlayerDetails> players = new ArrayList<>(
-			Arrays.asList(new PlayerDetails("1", "[1]"), new PlayerDetails("Ryan", "[1, 2, 3]"),
-					new PlayerDetails("Bevan", "[1, 2, 3, 4]"), new PlayerDetails("Tony", "[1, 2, 3, 4, 5]")));
+	public static final String USER_MAP = "users";
+	public static final int IMPORT_BATCH_SIZE = 100_000; // players written between commits on bulk import
+	protected static final PlayerDetails[] DEFAULT_PLAYERS = { new PlayerDetails("1", "[1]"),
+			new PlayerDetails("Ryan", "[1, 2, 3]"), new PlayerDetails("Bevan", "[1, 2, 3, 4]"),
+			new PlayerDetails("Tony", "[1, 2, 3, 4, 5]") };
+
+	private final DB db;
+	private final ConcurrentMap<String, String> players; // username -> password
 
 	/**
-	 * CONSTRUCTOR for user database.
+	 * CONSTRUCTOR for an in-memory user database seeded with the default players.
 	 */
 	public UserDatabase() {
+		this(DBMaker.newMemoryDB().transactionDisable().make());
+	}
+
+	/**
+	 * CONSTRUCTOR for a user database persisted to the given file. The default
+	 * players are added the first time the file is created.
+	 *
+	 * @param dbFile the file the user database is stored in
+	 */
+	public UserDatabase(File dbFile) {
+		this(DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make());
+	}
+
+	/**
+	 * CONSTRUCTOR for a user database backed by the given MapDB database.
+	 *
+	 * @param db an open MapDB database
+	 */
+	private UserDatabase(DB db) {
+		this.db = db;
+		if (db.exists(USER_MAP)) {
+			players = db.getHashMap(USER_MAP);
+		} else {
+			players = db.createHashMap(USER_MAP).keySerializer(Serializer.STRING)
+					.valueSerializer(Serializer.STRING).make();
+			for (PlayerDetails player : DEFAULT_PLAYERS) {
+				players.put(player.getUsername(), player.getPassword());
+			}
+			db.commit();
+		}
 	}
 
 	/**
 	 * Thread safe method that compares provided player details to user database.
-	 * 
+	 * Does not block other authenticating threads.
+	 *
 	 * @param playerDetails an object containing player password and username
-	 * @param encryptionKey
+	 * @param encryptionKey key used to decrypt the player details
 	 * @return true if the player was found in the DB
 	 */
-	public synchronized boolean authenticate(PlayerDetails playerDetails, int encryptionKey) {
-		// console print for debug
-		System.out.println("In UserDataBase.authenticate() - username is " + playerDetails.getUsername()
-				+ " password is " + playerDetails.getPassword());
+	public boolean authenticate(PlayerDetails playerDetails, int encryptionKey) {
 		// decrypt player details
 		PlayerDetails decryptedPlayerDetails = playerDetails.decrypt(encryptionKey);
-		// console print for debug
-		System.out.println(
-				"In UserDataBase.authenticate() - decrypted username is " + decryptedPlayerDetails.getUsername()
-						+ " decrypted password is " + decryptedPlayerDetails.getPassword());
+		if (!decryptedPlayerDetails.notNull()) {
+			return false;
+		}
 		// check DB for player
-		for (PlayerDetails player : players) {
-			if (player.equals(decryptedPlayerDetails)) {
-				return true;
+		String password = players.get(decryptedPlayerDetails.getUsername());
+		return password != null && password.equals(decryptedPlayerDetails.getPassword());
+	}
+
+	/**
+	 * Add a player to the database, replacing the password of an existing player
+	 * with the same username.
+	 *
+	 * @param playerDetails an object containing (unencrypted) player password and username
+	 */
+	public void addPlayer(PlayerDetails playerDetails) {
+		players.put(playerDetails.getUsername(), playerDetails.getPassword());
+		db.commit();
+	}
+
+	/**
+	 * Bulk import of player details. Players are written in batches of
+	 * IMPORT_BATCH_SIZE with one commit per batch rather than one per player.
+	 *
+	 * @param newPlayers iterator over (unencrypted) player details to import
+	 * @return the number of players imported
+	 */
+	public long importPlayers(Iterator<PlayerDetails> newPlayers) {
+		long imported = 0;
+		while (newPlayers.hasNext()) {
+			PlayerDetails player = newPlayers.next();
+			players.put(player.getUsername(), player.getPassword());
+			imported++;
+			if (imported % IMPORT_BATCH_SIZE == 0) {
+				db.commit();
 			}
 		}
-		return false;
+		db.commit();
+		return imported;
+	}
+
+	/**
+	 * Closes the underlying database. The user database cannot be used after closing.
+	 */
+	public void close() {
+		if (!db.isClosed()) {
+			db.close();
+		}
+	}
+
+	// ============ SETTER & GETTER METHODS ============
+
+	/**
+	 * Get the number of registered players.
+	 *
+	 * @return number of players in the database
+	 */
+	public int size() {
+		return players.size();
 	}
 }
@@ -0,0 +1,105 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import server.ExecutorRegistry;
+import server.ExecutorRegistry.Pool;
+import server.ExecutorRegistry.PoolStats;
+
+public class ExecutorRegistryTest {
+
+	// test variables
+	private ExecutorRegistry registry;
+	private CountDownLatch release;
+
+	@BeforeEach
+	public void beforeEach() {
+		registry = new ExecutorRegistry(1);
+		release = new CountDownLatch(1);
+	}
+
+	@AfterEach
+	public void afterEach() {
+		release.countDown();
+		registry.shutdown();
+	}
+
+	@AfterAll
+	public static void ReportCard() {
+		System.out.println("Tests complete");
+	}
+
+	// =============================== TESTS =================================
+
+	@Test
+	public void threadsAreNamed() throws InterruptedException {
+		String[] threadName = new String[1];
+		CountDownLatch ran = new CountDownLatch(1);
+		registry.get(Pool.TICK).execute(() -> {
+			threadName[0] = Thread.currentThread().getName();
+			ran.countDown();
+		});
+		ran.await();
+		assertEquals("tick-1", threadName[0]);
+	}
+
+	@Test
+	public void fullTickPoolRejects() throws InterruptedException {
+		ThreadPoolExecutor tickPool = registry.get(Pool.TICK);
+		CountDownLatch started = new CountDownLatch(1);
+		tickPool.execute(() -> {
+			started.countDown();
+			awaitRelease();
+		});
+		started.await();
+		for (int i = 0; i < Pool.TICK.getQueueCapacity(); i++) {
+			tickPool.execute(() -> {
+			});
+		}
+		assertThrows(RejectedExecutionException.class, () -> tickPool.execute(() -> {
+		}));
+
+		PoolStats stats = registry.getStats(Pool.TICK);
+		assertEquals(1, stats.getActiveThreads());
+		assertEquals(1.0, stats.getUtilisation());
+		assertEquals(1.0, stats.getQueueFill());
+		assertEquals(1, stats.getRejected());
+		assertEquals(1, tickPool.getPoolSize()); // never grows past its bound
+	}
+
+	@Test
+	public void fullPublishPoolDropsOldest() throws InterruptedException {
+		ThreadPoolExecutor publishPool = registry.get(Pool.PUBLISH);
+		CountDownLatch started = new CountDownLatch(publishPool.getMaximumPoolSize());
+		for (int i = 0; i < publishPool.getMaximumPoolSize(); i++) {
+			publishPool.execute(() -> {
+				started.countDown();
+				awaitRelease();
+			});
+		}
+		started.await();
+		for (int i = 0; i <= Pool.PUBLISH.getQueueCapacity(); i++) {
+			publishPool.execute(() -> {
+			});
+		}
+		assertEquals(1, registry.getStats(Pool.PUBLISH).getRejected());
+		assertEquals(Pool.PUBLISH.getQueueCapacity(), registry.getStats(Pool.PUBLISH).getQueued());
+	}
+
+	private void awaitRelease() {
+		try {
+			release.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
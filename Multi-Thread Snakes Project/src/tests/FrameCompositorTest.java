@@ -0,0 +1,104 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import abstractClasses.Snake.Direction;
+import abstractClasses.ViewController.DisplayPanel;
+import client.FrameCompositor;
+import client.NPCSnake;
+import client.PlayerSnake;
+import server.GameState;
+
+public class FrameCompositorTest {
+
+	// test variables
+	private GameState testGameState;
+	private FrameCompositor testCompositor;
+	private PlayerSnake[] players;
+	private DisplayPanel[] panels;
+
+	@BeforeEach
+	public void beforeEach() {
+		testGameState = new GameState();
+		testGameState.addSnakeModel(new NPCSnake(null, 1), 5, 5);
+		testGameState.addSnakeModel(new NPCSnake(null, 2), 9, 9);
+		testCompositor = new FrameCompositor();
+		players = new PlayerSnake[4];
+		panels = new DisplayPanel[4];
+		for (int i = 0; i < players.length; i++) {
+			players[i] = new PlayerSnake(null, i + 1, 0);
+			panels[i] = new DisplayPanel(0, 400, 400);
+			testCompositor.addPlayer(players[i], panels[i]);
+		}
+	}
+
+	@AfterEach
+	public void afterEach() {
+		for (PlayerSnake player : players) {
+			testCompositor.removePlayer(player);
+			player.onGameOver();
+		}
+	}
+
+	@AfterAll
+	public static void ReportCard() {
+		System.out.println("Tests complete");
+	}
+
+	// =============================== TESTS =================================
+
+	@Test
+	public void oneFrameBuiltForAllPlayers() {
+		publishTick(0);
+		publishTick(1);
+
+		// drawn once the frame has caught up with the latest tick
+		assertEquals(4, testCompositor.compose(System.nanoTime() + 1_000_000_000L));
+
+		assertEquals(1, testCompositor.getFramesBuilt());
+		// same frame, each player sees their own snake in cyan
+		assertEquals(Color.CYAN, panels[0].getCellColor(5, 3));
+		assertEquals(Color.BLUE, panels[1].getCellColor(5, 3));
+		assertEquals(Color.BLUE, panels[0].getCellColor(9, 7));
+		assertEquals(Color.CYAN, panels[1].getCellColor(9, 7));
+		assertEquals(Color.BLUE, panels[2].getCellColor(9, 7));
+	}
+
+	@Test
+	public void settledFramesNotRedrawn() {
+		publishTick(0);
+
+		// a second after the tick arrived every frame has caught up with it
+		long later = System.nanoTime() + 1_000_000_000L;
+		assertEquals(4, testCompositor.compose(later));
+		assertEquals(0, testCompositor.compose(later + 1));
+
+		assertEquals(1, testCompositor.getFramesBuilt());
+	}
+
+	// =========================== HELPER METHODS ============================
+
+	/**
+	 * Move both snakes one tile up and hand the tick to every player, the same
+	 * snapshot to each like the game server does.
+	 */
+	private void publishTick(int tick) {
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		moves.put(1, Direction.UP);
+		moves.put(2, Direction.UP);
+		testGameState.resolveMoves(moves);
+		testGameState.swapBuffers();
+		testGameState.endTick(tick);
+		for (PlayerSnake player : players) {
+			player.submitGameState(testGameState.acquireSnapshot());
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import abstractClasses.Snake.Direction;
+import client.FrameInterpolator;
+import client.NPCSnake;
+import server.GameSnapshot;
+import server.GameState;
+
+public class FrameInterpolatorTest {
+
+	// test variables
+	private GameState testGameState;
+	private FrameInterpolator testInterpolator;
+
+	@BeforeEach
+	public void beforeEach() {
+		testGameState = new GameState();
+		testInterpolator = new FrameInterpolator(GameState.GAME_SIZE);
+	}
+
+	@AfterAll
+	public static void ReportCard() {
+		System.out.println("Tests complete");
+	}
+
+	// =============================== TESTS =================================
+
+	@Test
+	public void headAndTailSlideBetweenTicks() {
+		testGameState.addSnakeModel(new NPCSnake(null, 1), 5, 5);
+		GameSnapshot previous = testGameState.acquireSnapshot();
+		GameSnapshot latest = move(Direction.RIGHT);
+
+		testInterpolator.interpolate(previous, latest, 0.25);
+
+		// both tiles show the background under the sliding snake
+		assertEquals(Color.WHITE, testInterpolator.getCellColor(5, 5, 1));
+		assertEquals(Color.WHITE, testInterpolator.getCellColor(6, 5, 1));
+		assertEquals(2, testInterpolator.getPartialCount());
+		assertPartial(0, 6, 5, Direction.LEFT, 0.25);
+		assertPartial(1, 5, 5, Direction.RIGHT, 0.75);
+		previous.release();
+		latest.release();
+	}
+
+	@Test
+	public void latestTickDrawnWhole() {
+		testGameState.addSnakeModel(new NPCSnake(null, 1), 5, 5);
+		testGameState.addSnakeModel(new NPCSnake(null, 2), 9, 9);
+		GameSnapshot previous = testGameState.acquireSnapshot();
+		GameSnapshot latest = move(Direction.DOWN);
+
+		testInterpolator.interpolate(previous, latest, 1.5);
+
+		assertEquals(0, testInterpolator.getPartialCount());
+		assertEquals(Color.CYAN, testInterpolator.getCellColor(5, 6, 1));
+		assertEquals(Color.BLUE, testInterpolator.getCellColor(9, 10, 1));
+		assertEquals(Color.WHITE, testInterpolator.getCellColor(5, 5, 1));
+		previous.release();
+		latest.release();
+	}
+
+	@Test
+	public void slideWrapsAroundEdge() {
+		testGameState.addSnakeModel(new NPCSnake(null, 1), GameState.GAME_SIZE - 1, 5);
+		GameSnapshot previous = testGameState.acquireSnapshot();
+		GameSnapshot latest = move(Direction.RIGHT);
+
+		testInterpolator.interpolate(previous, latest, 0.5);
+
+		assertEquals(2, testInterpolator.getPartialCount());
+		assertPartial(0, 0, 5, Direction.LEFT, 0.5);
+		assertPartial(1, GameState.GAME_SIZE - 1, 5, Direction.RIGHT, 0.5);
+		previous.release();
+		latest.release();
+	}
+
+	@Test
+	public void firstTickDrawnWhole() {
+		testGameState.addSnakeModel(new NPCSnake(null, 1), 5, 5);
+		GameSnapshot latest = testGameState.acquireSnapshot();
+
+		testInterpolator.interpolate(null, latest, 0.5);
+
+		assertEquals(0, testInterpolator.getPartialCount());
+		assertEquals(Color.CYAN, testInterpolator.getCellColor(5, 5, 1));
+		latest.release();
+	}
+
+	// =========================== HELPER METHODS ============================
+
+	/**
+	 * Move snake 1 (and snake 2 if there is one) one tile and get the new snapshot.
+	 */
+	private GameSnapshot move(Direction direction) {
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		moves.put(1, direction);
+		if (testGameState.getSnakeCount() > 1) {
+			moves.put(2, direction);
+		}
+		testGameState.resolveMoves(moves);
+		testGameState.swapBuffers();
+		return testGameState.acquireSnapshot();
+	}
+
+	private void assertPartial(int i, int row, int column, Direction edge, double fraction) {
+		assertEquals(row, testInterpolator.getPartialRow(i));
+		assertEquals(column, testInterpolator.getPartialColumn(i));
+		assertEquals(edge, testInterpolator.getPartialEdge(i));
+		assertEquals(fraction, testInterpolator.getPartialFraction(i), 1e-9);
+	}
+}
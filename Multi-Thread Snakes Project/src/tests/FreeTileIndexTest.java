@@ -0,0 +1,80 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import server.FreeTileIndex;
+
+public class FreeTileIndexTest {
+
+	// test variables
+	private FreeTileIndex freeTiles;
+
+	@BeforeEach
+	public void beforeEach() {
+		freeTiles = new FreeTileIndex(4, 5);
+	}
+
+	@AfterAll
+	public static void ReportCard() {
+		System.out.println("Tests complete");
+	}
+
+	// =============================== TESTS =================================
+
+	@Test
+	public void newIndexAllFree() {
+		assertEquals(20, freeTiles.size());
+		assertTrue(freeTiles.contains(3, 4));
+	}
+
+	@Test
+	public void removeAndAddTile() {
+		freeTiles.remove(2, 3);
+		freeTiles.remove(2, 3);
+		assertEquals(19, freeTiles.size());
+		assertFalse(freeTiles.contains(2, 3));
+
+		freeTiles.add(2, 3);
+		freeTiles.add(2, 3);
+		assertEquals(20, freeTiles.size());
+		assertTrue(freeTiles.contains(2, 3));
+	}
+
+	@Test
+	public void randomTileIsFree() {
+		// occupy every tile but the last row
+		for (int row = 0; row < 3; row++) {
+			for (int col = 0; col < 5; col++) {
+				freeTiles.remove(row, col);
+			}
+		}
+		for (int i = 0; i < 100; i++) {
+			int tile = freeTiles.randomTile();
+			assertEquals(3, freeTiles.rowOf(tile));
+			assertTrue(freeTiles.contains(freeTiles.rowOf(tile), freeTiles.columnOf(tile)));
+		}
+	}
+
+	@Test
+	public void fullBoardHasNoRandomTile() {
+		for (int row = 0; row < 4; row++) {
+			for (int col = 0; col < 5; col++) {
+				freeTiles.remove(row, col);
+			}
+		}
+		assertEquals(0, freeTiles.size());
+		assertEquals(-1, freeTiles.randomTile());
+	}
+
+	@Test
+	public void copyIsIndependent() {
+		FreeTileIndex copy = new FreeTileIndex(freeTiles);
+		freeTiles.remove(0, 0);
+		assertTrue(copy.contains(0, 0));
+		assertEquals(20, copy.size());
+	}
+}
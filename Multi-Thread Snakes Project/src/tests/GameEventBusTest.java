@@ -0,0 +1,138 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import abstractClasses.Snake.Direction;
+import client.NPCSnake;
+import server.GameEvent;
+import server.GameEventBus;
+import server.GameEventBus.Subscription;
+import server.GameEventBus.WaitStrategy;
+import server.GameState;
+import server.GameState.GameTile;
+
+public class GameEventBusTest {
+
+	// test variables
+	private GameState testGameState;
+
+	@BeforeEach
+	public void beforeEach() {
+		testGameState = new GameState();
+	}
+
+	@AfterAll
+	public static void ReportCard() {
+		System.out.println("Tests complete");
+	}
+
+	// =============================== TESTS =================================
+
+	@Test
+	public void everySubscriberSeesEveryEvent() throws InterruptedException {
+		List<String> blockingEvents = new ArrayList<String>();
+		List<String> yieldingEvents = new ArrayList<String>();
+		CountDownLatch delivered = new CountDownLatch(2);
+		GameEventBus eventBus = testGameState.getEventBus();
+		Subscription blocking = eventBus.subscribe("blocking", recorder(blockingEvents, delivered, 8), WaitStrategy.BLOCKING);
+		Subscription yielding = eventBus.subscribe("yielding", recorder(yieldingEvents, delivered, 8), WaitStrategy.YIELDING);
+
+		// snake 1 eats bonus food, snakes 2 and 3 meet head on
+		GameTile[][] board = new GameTile[GameState.GAME_SIZE][GameState.GAME_SIZE];
+		board[5][6] = GameTile.FOOD_BONUS;
+		testGameState.setGameBoard(board);
+		testGameState.addSnakeModel(new NPCSnake(null, 1), 5, 5);
+		testGameState.addSnakeModel(new NPCSnake(null, 2), 10, 10);
+		testGameState.addSnakeModel(new NPCSnake(null, 3), 12, 10);
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		moves.put(1, Direction.DOWN);
+		moves.put(2, Direction.RIGHT);
+		moves.put(3, Direction.LEFT);
+		testGameState.resolveMoves(moves);
+		// blocking subscribers are woken for the moves when the tick ends
+		testGameState.endTick(0);
+
+		assertTrue(delivered.await(5, TimeUnit.SECONDS), "events not delivered");
+		blocking.close();
+		yielding.close();
+		// collisions are resolved before any snake moves
+		List<String> expected = List.of("SPAWN 1", "SPAWN 2", "SPAWN 3", "COLLISION_DEATH 2", "COLLISION_DEATH 3",
+				"FOOD_BONUS_EATEN 1", "SCORE_CHANGE 1", "TICK_END 0");
+		synchronized (blockingEvents) {
+			assertEquals(expected, blockingEvents);
+		}
+		synchronized (yieldingEvents) {
+			assertEquals(expected, yieldingEvents);
+		}
+	}
+
+	@Test
+	public void lappedSubscriberCountsOverruns() throws InterruptedException {
+		GameEventBus eventBus = testGameState.getEventBus();
+		CountDownLatch stalled = new CountDownLatch(1);
+		CountDownLatch resume = new CountDownLatch(1);
+		AtomicLong handled = new AtomicLong();
+		Subscription slow = eventBus.subscribe("slow", (event, sequence, endOfBatch) -> {
+			stalled.countDown();
+			try {
+				resume.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			handled.incrementAndGet();
+		}, WaitStrategy.SLEEPING);
+
+		// every respawn of the snake is a SPAWN event - publish more than the ring holds
+		NPCSnake snake = new NPCSnake(null, 1);
+		int eventCount = eventBus.getCapacity() + 1000;
+		testGameState.addSnakeModel(snake, 0, 0);
+		assertTrue(stalled.await(5, TimeUnit.SECONDS));
+		for (int i = 1; i < eventCount; i++) {
+			testGameState.addSnakeModel(snake, i % 2, 0);
+		}
+		resume.countDown();
+
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (slow.getSequence() < eventBus.getCursor() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		slow.close();
+		assertEquals(eventBus.getCursor(), slow.getSequence());
+		// only the first event and the last ring full can have been handled
+		assertTrue(slow.getOverruns() >= eventCount - eventBus.getCapacity() - 1, "overruns " + slow.getOverruns());
+		assertEquals(eventCount, handled.get() + slow.getOverruns());
+	}
+
+	@Test
+	public void capacityMustBePowerOfTwo() {
+		assertThrows(IllegalArgumentException.class, () -> new GameEventBus(1000));
+	}
+
+	// =========================== HELPER METHODS ============================
+
+	/**
+	 * Handler recording the type and snake of each event, counting down once the
+	 * expected number of events have arrived.
+	 */
+	private static GameEventBus.Handler recorder(List<String> events, CountDownLatch delivered, int expected) {
+		return (GameEvent event, long sequence, boolean endOfBatch) -> {
+			synchronized (events) {
+				events.add(event.getType() + " " + event.getSnakeId());
+				if (events.size() == expected) {
+					delivered.countDown();
+				}
+			}
+		};
+	}
+}
@@ -0,0 +1,323 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import abstractClasses.Snake.Direction;
+import client.NPCSnake;
+import client.PlayerSnake;
+import server.AllocationGauge;
+import server.GameHost;
+import server.GameServer;
+import server.GameSnapshot;
+import server.Leaderboard;
+import server.MatchStats;
+import server.PlayerDetails;
+import server.UserDatabase;
+
+public class GameHostTest {
+
+	// test variables
+	private UserDatabase userDB;
+	private Leaderboard leaderboard;
+	private GameHost gameHost;
+
+	@BeforeEach
+	public void beforeEach() {
+		userDB = new UserDatabase();
+		leaderboard = new Leaderboard();
+		gameHost = new GameHost(userDB, leaderboard, 50, 2);
+	}
+
+	@AfterEach
+	public void afterEach() {
+		gameHost.shutdown();
+		leaderboard.close();
+		userDB.close();
+	}
+
+	@AfterAll
+	public static void ReportCard() {
+		System.out.println("Tests complete");
+	}
+
+	// =============================== TESTS =================================
+
+	@Test
+	public void gamesAreIsolated() {
+		GameServer first = gameHost.createGame(1, 3);
+		GameServer second = gameHost.createGame(1, 7);
+		first.npcLogin(new NPCSnake(first, 1));
+		first.npcLogin(new NPCSnake(first, 2));
+		second.npcLogin(new NPCSnake(second, 1));
+
+		assertNotEquals(first.getGameId(), second.getGameId());
+		assertEquals(2, first.getSnakeCount());
+		assertEquals(1, second.getSnakeCount());
+	}
+
+	@Test
+	public void destroyGame() {
+		GameServer game = gameHost.createGame(1, 3);
+		assertEquals(1, gameHost.getGameCount());
+
+		assertTrue(gameHost.destroyGame(game.getGameId()));
+		assertFalse(gameHost.destroyGame(game.getGameId()));
+		assertNull(gameHost.getGame(game.getGameId()));
+		assertTrue(game.isGameEnded());
+		assertFalse(game.npcLogin(new NPCSnake(game, 1)));
+	}
+
+	@Test
+	public void gamesTickOnceReady() throws InterruptedException {
+		GameServer waiting = gameHost.createGame(1, 3);
+		GameServer ready = gameHost.createGame(0, 3);
+		waiting.npcLogin(new NPCSnake(waiting, 1));
+		ready.npcLogin(new NPCSnake(ready, 1));
+		Thread.sleep(300);
+
+		assertEquals(0, waiting.getTickCount());
+		assertTrue(ready.getTickCount() > 0);
+	}
+
+	@Test
+	public void joinRunningGame() throws InterruptedException {
+		GameServer game = gameHost.createGame(0, 3);
+		assertEquals(GameServer.Phase.LOBBY, game.getPhase());
+		game.npcLogin(new NPCSnake(game, 1));
+		assertTrue(game.awaitPhase(GameServer.Phase.RUNNING, 2, TimeUnit.SECONDS));
+
+		// placed at the next tick boundary
+		NPCSnake late = spy(new NPCSnake(game, 2));
+		assertTrue(game.npcLogin(late));
+		verify(late).onSpawn();
+		assertEquals(2, game.getSnakeCount());
+	}
+
+	@Test
+	public void lifecycleCallbacks() {
+		GameServer game = gameHost.createGame(1, 3);
+		NPCSnake snake = spy(new NPCSnake(game, 1));
+		game.npcLogin(snake);
+		verify(snake).onSpawn();
+		assertTrue(game.authenticate(new PlayerDetails("Ryan", "[1, 2, 3]").encrypt(3), new NPCSnake(game, 2)));
+
+		verify(snake, timeout(2000)).onRoundStart(1);
+		gameHost.destroyGame(game.getGameId());
+		verify(snake).onGameOver();
+	}
+
+	@Test
+	public void matchPlaysEveryRound() throws InterruptedException {
+		GameHost fastHost = new GameHost(userDB, leaderboard, 1, 1);
+		try {
+			GameServer game = fastHost.createGame(1, 3);
+			game.setRounds(3);
+			// a snake eating food every tick soon dies, of malus food or running into itself
+			game.setFoodDensity(1.0);
+			NPCSnake snake = spy(new TurningSnake(game, 1));
+			assertTrue(game.authenticate(new PlayerDetails("Ryan", "[1, 2, 3]").encrypt(3), snake));
+
+			assertTrue(game.awaitPhase(GameServer.Phase.ENDED, 10, TimeUnit.SECONDS));
+			MatchStats matchStats = game.getMatchStats();
+			assertEquals(3, game.getRound());
+			assertEquals(3, matchStats.getRoundsPlayed());
+			assertEquals(3, matchStats.getRoundWins(1));
+			assertEquals(snake.getScore(), matchStats.getMatchScore(1));
+			// spawned on joining, then respawned for rounds 2 and 3
+			verify(snake, times(3)).onSpawn();
+			verify(snake).onRoundStart(3);
+			// the game ends before the ticking thread tells the snakes
+			verify(snake, timeout(2000)).onGameOver();
+		} finally {
+			fastHost.shutdown();
+		}
+	}
+
+	@Test
+	public void lastFrameShowsMatchEnding() throws InterruptedException {
+		GameHost fastHost = new GameHost(userDB, leaderboard, 1, 1);
+		try {
+			GameServer game = fastHost.createGame(1, 3);
+			game.setRounds(1);
+			game.setFoodDensity(1.0);
+			DeathWatchingSnake snake = new DeathWatchingSnake(game, 1);
+			assertTrue(game.authenticate(new PlayerDetails("Ryan", "[1, 2, 3]").encrypt(3), snake));
+
+			assertTrue(game.awaitPhase(GameServer.Phase.ENDED, 10, TimeUnit.SECONDS));
+			// the client is sent the frame with the death that ended the match
+			assertTrue(snake.deathFrame.await(2, TimeUnit.SECONDS));
+		} finally {
+			fastHost.shutdown();
+		}
+	}
+
+	@Test
+	public void playerGetsLastFrameBeforeGameOver() throws InterruptedException {
+		GameHost fastHost = new GameHost(userDB, leaderboard, 1, 1);
+		try {
+			GameServer game = fastHost.createGame(1, 3);
+			game.setRounds(1);
+			game.setFoodDensity(1.0);
+			WatchingPlayerSnake snake = new WatchingPlayerSnake(game, 1);
+			assertTrue(game.authenticate(new PlayerDetails("Ryan", "[1, 2, 3]").encrypt(3), snake));
+
+			assertTrue(snake.gameOver.await(10, TimeUnit.SECONDS));
+			// the frame with the death that ended the match reached the player first
+			assertTrue(snake.deathFrameBeforeGameOver);
+		} finally {
+			fastHost.shutdown();
+		}
+	}
+
+	@Test
+	public void warmTickAllocatesNothing() throws InterruptedException {
+		assumeTrue(AllocationGauge.isSupported());
+		GameHost fastHost = new GameHost(userDB, leaderboard, 1, 1);
+		try {
+			// hold the game in login until the snakes have joined - turning snakes eat,
+			// score and die, and rounds reset the board until the test ends
+			GameServer game = fastHost.createGame(1, 3);
+			game.setFoodDensity(0.2);
+			game.setRounds(MatchStats.MAX_RESERVED_ROUNDS);
+			for (int id = 1; id <= 10; id++) {
+				game.npcLogin(new TurningSnake(game, id));
+			}
+			// a ranked player, so score changes reach the leaderboard
+			assertTrue(game.authenticate(new PlayerDetails("Ryan", "[1, 2, 3]").encrypt(3), new TurningSnake(game, 11)));
+
+			// warm up until the JIT has settled on the tick path. Food density changes
+			// through the warm-up, so the tick takes every branch - eating every tick,
+			// starving, malus deaths - before it is compiled, and a branch first taken
+			// after compiling deoptimizes and recompiles during the warm-up rather than
+			// in a measured window. Then every window of warm ticks must allocate nothing
+			double[] densities = { 1.0, 0.0, 0.5, 0.2 };
+			for (int phase = 0; phase < 24; phase++) {
+				game.setFoodDensity(densities[phase % densities.length]);
+				awaitTicks(game, game.getTickCount() + 250);
+			}
+			game.setFoodDensity(0.2);
+			awaitTicks(game, game.getTickCount() + 2000);
+			int startRounds = game.getMatchStats().getRoundsPlayed();
+			int startScoreChanges = scoreChanges(game);
+			for (int window = 0; window < 10; window++) {
+				long startBytes = game.getTickBytesAllocated();
+				awaitTicks(game, game.getTickCount() + 200);
+				assertEquals(0, game.getTickBytesAllocated() - startBytes, "bytes allocated by warm window " + window);
+			}
+
+			// the windows covered eating, score changes, deaths and round resets
+			assertTrue(scoreChanges(game) > startScoreChanges);
+			assertTrue(game.getMatchStats().getRoundsPlayed() > startRounds);
+		} finally {
+			fastHost.shutdown();
+		}
+	}
+
+	// =========================== HELPER METHODS ============================
+
+	/**
+	 * Snake that turns at random every tick, so it never settles into a loop.
+	 */
+	private static class TurningSnake extends NPCSnake {
+
+		TurningSnake(GameServer gameServer, int snakeId) {
+			super(gameServer, snakeId);
+		}
+
+		@Override
+		public void submitGameState(GameSnapshot serverSnapshot) {
+			serverSnapshot.release();
+			try {
+				directionBufferProduce(Direction.values()[ThreadLocalRandom.current().nextInt(4)]);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Turning snake that watches for a frame showing it dead.
+	 */
+	private static class DeathWatchingSnake extends TurningSnake {
+		final CountDownLatch deathFrame = new CountDownLatch(1);
+
+		DeathWatchingSnake(GameServer gameServer, int snakeId) {
+			super(gameServer, snakeId);
+		}
+
+		@Override
+		public void submitGameState(GameSnapshot serverSnapshot) {
+			int index = serverSnapshot.indexOf(getSnakeId());
+			if (index >= 0 && serverSnapshot.getSnakeLength(index) == 0) {
+				deathFrame.countDown();
+			}
+			super.submitGameState(serverSnapshot);
+		}
+	}
+
+	/**
+	 * Player snake without a window that turns at random and watches for a frame
+	 * showing it dead before the game over.
+	 */
+	private static class WatchingPlayerSnake extends PlayerSnake {
+		final CountDownLatch gameOver = new CountDownLatch(1);
+		volatile boolean deathFrameBeforeGameOver;
+		private volatile boolean deathFrameSeen;
+
+		WatchingPlayerSnake(GameServer gameServer, int snakeId) {
+			super(gameServer, snakeId, 3);
+		}
+
+		@Override
+		public void submitGameState(GameSnapshot serverSnapshot) {
+			int index = serverSnapshot.indexOf(getSnakeId());
+			if (index >= 0 && serverSnapshot.getSnakeLength(index) == 0) {
+				deathFrameSeen = true;
+			}
+			try {
+				directionBufferProduce(Direction.values()[ThreadLocalRandom.current().nextInt(4)]);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			super.submitGameState(serverSnapshot);
+		}
+
+		@Override
+		public void onGameOver() {
+			deathFrameBeforeGameOver = deathFrameSeen;
+			super.onGameOver();
+			gameOver.countDown();
+		}
+	}
+
+	private static int scoreChanges(GameServer game) {
+		int changes = 0;
+		for (int id = 1; id <= 11; id++) {
+			changes += game.getScoreLedger().getChangeCount(id);
+		}
+		return changes;
+	}
+
+	private static void awaitTicks(GameServer game, int tickCount) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 30_000;
+		while (game.getTickCount() < tickCount) {
+			assertFalse(game.isGameEnded(), "game ended");
+			assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for tick " + tickCount);
+			Thread.sleep(10);
+		}
+	}
+}
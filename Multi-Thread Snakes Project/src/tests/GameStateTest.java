@@ -1,12 +1,18 @@
 package tests;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.Mockito.when;
 
 import java.util.LinkedList;
+import java.util.Random;
+import java.util.TreeMap;
 
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.AfterAll;
@@ -14,10 +20,14 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 
+import abstractClasses.Snake.Direction;
+import client.NPCSnake;
 import client.PlayerSnake;
+import server.AllocationGauge;
 import server.GameServer;
+import server.GameSnapshot;
 import server.GameState;
-import server.GameState.SnakeModel;
+import server.GameState.GameTile;
 import server.PlayerDetails;
 import server.UserDatabase;
 
@@ -105,4 +115,306 @@ public class GameStateTest {
 //		assertEquals(3, snakeID3);
 //		assertEquals(4, snakeID4);
 	}
+
+	@Test
+	public void headOnCollisionKillsBoth() {
+		NPCSnake snake1 = placeSnake(1, 5, 5);
+		NPCSnake snake2 = placeSnake(2, 7, 5);
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		moves.put(1, Direction.RIGHT);
+		moves.put(2, Direction.LEFT);
+
+		testGameBoard.resolveMoves(moves);
+		testGameBoard.swapBuffers();
+
+		assertFalse(snake1.isAlive());
+		assertFalse(snake2.isAlive());
+		assertNull(testGameBoard.getGameTile(5, 5));
+		assertNull(testGameBoard.getGameTile(6, 5));
+		assertNull(testGameBoard.getGameTile(7, 5));
+	}
+
+	@Test
+	public void deathCallbackOnlyForDeadSnake() {
+		NPCSnake survivor = spy(new NPCSnake(null, 1));
+		NPCSnake victim = spy(new NPCSnake(null, 2));
+		testGameBoard.addSnakeModel(survivor, 5, 5);
+		testGameBoard.addSnakeModel(victim, 6, 5);
+		verify(survivor).onSpawn();
+		verify(victim).onSpawn();
+
+		// victim moves into the survivors body
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		moves.put(2, Direction.LEFT);
+		testGameBoard.resolveMoves(moves);
+
+		verify(victim).onDeath();
+		verify(survivor, never()).onDeath();
+		assertFalse(victim.isAlive());
+		assertTrue(survivor.isAlive());
+	}
+
+	@Test
+	public void contestedFoodLeftUneaten() {
+		GameTile[][] board = new GameTile[GameState.GAME_SIZE][GameState.GAME_SIZE];
+		board[6][5] = GameTile.FOOD_BONUS;
+		testGameBoard.setGameBoard(board);
+		NPCSnake snake1 = placeSnake(1, 5, 5);
+		NPCSnake snake2 = placeSnake(2, 7, 5);
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		moves.put(1, Direction.RIGHT);
+		moves.put(2, Direction.LEFT);
+
+		testGameBoard.resolveMoves(moves);
+		testGameBoard.swapBuffers();
+
+		assertFalse(snake1.isAlive());
+		assertFalse(snake2.isAlive());
+		assertEquals(0, snake1.getScore());
+		assertEquals(0, snake2.getScore());
+		assertEquals(GameTile.FOOD_BONUS, testGameBoard.getGameTile(6, 5));
+	}
+
+	@Test
+	public void swappingHeadsKillsBoth() {
+		NPCSnake snake1 = placeSnake(1, 5, 5);
+		NPCSnake snake2 = placeSnake(2, 6, 5);
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		moves.put(1, Direction.RIGHT);
+		moves.put(2, Direction.LEFT);
+
+		testGameBoard.resolveMoves(moves);
+		testGameBoard.swapBuffers();
+
+		assertFalse(snake1.isAlive());
+		assertFalse(snake2.isAlive());
+	}
+
+	@Test
+	public void moveIntoBodyKillsMoverOnly() {
+		NPCSnake snake1 = placeSnake(1, 5, 5);
+		NPCSnake snake2 = placeSnake(2, 6, 5);
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		moves.put(2, Direction.LEFT);
+
+		testGameBoard.resolveMoves(moves);
+		testGameBoard.swapBuffers();
+
+		assertTrue(snake1.isAlive());
+		assertFalse(snake2.isAlive());
+		assertEquals(GameTile.SNAKE, testGameBoard.getGameTile(5, 5));
+		assertNull(testGameBoard.getGameTile(6, 5));
+	}
+
+	@Test
+	public void uncontestedSnakeEatsFood() {
+		GameTile[][] board = new GameTile[GameState.GAME_SIZE][GameState.GAME_SIZE];
+		board[6][5] = GameTile.FOOD_BONUS;
+		testGameBoard.setGameBoard(board);
+		NPCSnake snake1 = placeSnake(1, 5, 5);
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		moves.put(1, Direction.RIGHT);
+
+		testGameBoard.resolveMoves(moves);
+		testGameBoard.swapBuffers();
+
+		assertTrue(snake1.isAlive());
+		assertEquals(1, snake1.getScore());
+		assertEquals(2, testGameBoard.getSnakeLength(1));
+		assertEquals(0, testGameBoard.getFoodCount());
+	}
+
+	@Test
+	public void movesHiddenUntilSwap() {
+		placeSnake(1, 5, 5);
+		testGameBoard.swapBuffers();
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		moves.put(1, Direction.RIGHT);
+
+		testGameBoard.resolveMoves(moves);
+		assertEquals(GameTile.SNAKE, testGameBoard.getGameTile(5, 5));
+		assertNull(testGameBoard.getGameTile(6, 5));
+
+		testGameBoard.swapBuffers();
+		assertNull(testGameBoard.getGameTile(5, 5));
+		assertEquals(GameTile.SNAKE, testGameBoard.getGameTile(6, 5));
+	}
+
+	@Test
+	public void copyUnaffectedBySwap() {
+		placeSnake(1, 5, 5);
+		testGameBoard.swapBuffers();
+		GameState copy = new GameState(testGameBoard);
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		moves.put(1, Direction.RIGHT);
+
+		testGameBoard.resolveMoves(moves);
+		testGameBoard.swapBuffers();
+
+		assertEquals(GameTile.SNAKE, copy.getGameTile(5, 5));
+		assertTrue(copy.givenSnakeOccupies(1, 5, 5));
+	}
+
+	@Test
+	public void copyRowReadsWholeRow() {
+		placeSnake(1, 5, 5);
+		testGameBoard.swapBuffers();
+
+		GameTile[] row = testGameBoard.copyRow(5, null);
+
+		assertEquals(GameState.GAME_SIZE, row.length);
+		assertEquals(GameTile.SNAKE, row[5]);
+		assertNull(row[4]);
+	}
+
+	@Test
+	public void copyRegionWrapsAroundEdges() {
+		int last = GameState.GAME_SIZE - 1;
+		placeSnake(1, 0, 0);
+		placeSnake(2, last, last);
+		testGameBoard.swapBuffers();
+
+		// 3x3 region centred on the top left tile
+		GameTile[][] region = testGameBoard.copyRegion(-1, -1, 3, 3, null);
+
+		assertEquals(GameTile.SNAKE, region[0][0]);
+		assertEquals(GameTile.SNAKE, region[1][1]);
+		assertNull(region[2][2]);
+	}
+
+	@Test
+	public void retainedSnapshotUnchangedBySwap() {
+		placeSnake(1, 5, 5);
+		testGameBoard.swapBuffers();
+		GameSnapshot snapshot = testGameBoard.acquireSnapshot();
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		moves.put(1, Direction.RIGHT);
+
+		testGameBoard.resolveMoves(moves);
+		testGameBoard.swapBuffers();
+		testGameBoard.swapBuffers();
+
+		assertEquals(GameTile.SNAKE, snapshot.getGameTile(5, 5));
+		assertNull(snapshot.getGameTile(6, 5));
+		assertTrue(snapshot.givenSnakeOccupies(1, 5, 5));
+		snapshot.release();
+	}
+
+	@Test
+	public void releasedSnapshotsRecycled() {
+		placeSnake(1, 5, 5);
+		for (int i = 0; i < 100; i++) {
+			testGameBoard.swapBuffers();
+			testGameBoard.acquireSnapshot().release();
+		}
+		assertTrue(testGameBoard.getSnapshotsCreated() <= 2);
+	}
+
+	@Test
+	public void warmMovesAllocateNothing() {
+		assumeTrue(AllocationGauge.isSupported());
+		FoodGameState game = new FoodGameState();
+		testGameBoard = game;
+		int[] snakeIds = new int[10];
+		for (int i = 0; i < 10; i++) {
+			// one snake per row
+			snakeIds[i] = placeSnake(i + 1, i * 4, 0).getSnakeId();
+		}
+		// scripted turns, so snakes eat, score, collide and die
+		Random random = new Random(42);
+		Direction[][] script = new Direction[1024][snakeIds.length];
+		for (Direction[] directions : script) {
+			for (int i = 0; i < directions.length; i++) {
+				directions[i] = Direction.values()[random.nextInt(4)];
+			}
+		}
+
+		// warm up, then every window of warm ticks must allocate nothing - see GameHostTest
+		int tick = 0;
+		int rounds = 0;
+		int scoreChanges = 0;
+		for (int window = 0; window < 25; window++) {
+			if (window == 20) {
+				scoreChanges = scoreChanges(snakeIds);
+			}
+			AllocationGauge gauge = new AllocationGauge();
+			for (int i = 0; i < 1000; i++, tick++) {
+				game.topUpFood(0.2);
+				testGameBoard.resolveMoves(snakeIds, script[tick & (script.length - 1)], snakeIds.length);
+				testGameBoard.swapBuffers();
+				testGameBoard.endTick(tick);
+				testGameBoard.acquireSnapshot().release();
+				if (testGameBoard.getLiveSnakeCount() == 0) {
+					testGameBoard.resetRound();
+					if (window >= 20) {
+						rounds++;
+					}
+				}
+			}
+			if (window >= 20) {
+				assertEquals(0, gauge.getBytesAllocated(), "bytes allocated by warm window " + window);
+			}
+		}
+
+		// the windows covered eating, score changes, deaths and round resets
+		assertTrue(scoreChanges(snakeIds) > scoreChanges);
+		assertTrue(rounds > 0);
+	}
+
+	@Test
+	public void resetRoundRespawnsSnakes() {
+		GameTile[][] board = new GameTile[GameState.GAME_SIZE][GameState.GAME_SIZE];
+		board[20][20] = GameTile.FOOD_BONUS;
+		testGameBoard.setGameBoard(board);
+		NPCSnake snake1 = placeSnake(1, 5, 5);
+		NPCSnake snake2 = placeSnake(2, 7, 5);
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		moves.put(1, Direction.RIGHT);
+		moves.put(2, Direction.LEFT);
+		testGameBoard.resolveMoves(moves);
+		snake1.setScore(3);
+		assertEquals(0, testGameBoard.getLiveSnakeCount());
+		int snapshots = testGameBoard.getSnapshotsCreated();
+
+		assertEquals(2, testGameBoard.resetRound());
+
+		assertTrue(snake1.isAlive());
+		assertTrue(snake2.isAlive());
+		assertEquals(2, testGameBoard.getSnakeCount());
+		assertEquals(2, testGameBoard.getLiveSnakeCount());
+		assertEquals(1, testGameBoard.getSnakeLength(1));
+		assertEquals(0, testGameBoard.getFoodCount());
+		assertEquals(GameState.GAME_SIZE * GameState.GAME_SIZE - 2, testGameBoard.getFreeTileCount());
+		assertEquals(3, snake1.getScore());
+		assertEquals(snapshots, testGameBoard.getSnapshotsCreated());
+	}
+
+	// =========================== HELPER METHODS ============================
+
+	/**
+	 * Place a length 1 snake with no game server at the given coordinate.
+	 */
+	private NPCSnake placeSnake(int snakeId, int row, int column) {
+		NPCSnake snake = new NPCSnake(null, snakeId);
+		testGameBoard.addSnakeModel(snake, row, column);
+		return snake;
+	}
+
+	private int scoreChanges(int[] snakeIds) {
+		int changes = 0;
+		for (int snakeId : snakeIds) {
+			changes += testGameBoard.getScoreLedger().getChangeCount(snakeId);
+		}
+		return changes;
+	}
+
+	/**
+	 * Game state that lets the test add food, as the game server does every tick.
+	 */
+	private static class FoodGameState extends GameState {
+
+		void topUpFood(double foodDensity) {
+			addFoodToDensity(foodDensity);
+		}
+	}
 }
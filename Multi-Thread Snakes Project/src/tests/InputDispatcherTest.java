@@ -0,0 +1,84 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.jnativehook.keyboard.NativeKeyEvent;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import abstractClasses.Snake.Direction;
+import client.InputDispatcher;
+import client.KeyScheme;
+import client.PlayerSnake;
+
+public class InputDispatcherTest {
+
+	// test variables
+	private InputDispatcher testDispatcher;
+	private PlayerSnake playerOne;
+	private PlayerSnake playerTwo;
+
+	@BeforeEach
+	public void beforeEach() {
+		testDispatcher = new InputDispatcher();
+		playerOne = new PlayerSnake(null, 1, 0);
+		playerTwo = new PlayerSnake(null, 2, 0);
+		testDispatcher.addPlayer(playerOne, playerOne.getKeyScheme());
+		testDispatcher.addPlayer(playerTwo, playerTwo.getKeyScheme());
+	}
+
+	@AfterAll
+	public static void ReportCard() {
+		System.out.println("Tests complete");
+	}
+
+	// =============================== TESTS =================================
+
+	@Test
+	public void keysRoutedToBoundSnake() {
+		assertTrue(testDispatcher.dispatch(NativeKeyEvent.VC_A));
+		assertTrue(testDispatcher.dispatch(NativeKeyEvent.VC_K));
+		assertFalse(testDispatcher.dispatch(NativeKeyEvent.VC_Q));
+
+		assertEquals(Direction.LEFT, playerOne.directionBufferPoll());
+		assertNull(playerOne.directionBufferPoll());
+		assertEquals(Direction.DOWN, playerTwo.directionBufferPoll());
+		assertEquals(1, testDispatcher.getKeysDropped());
+	}
+
+	@Test
+	public void configuredSchemeBeyondFourPlayers() {
+		PlayerSnake playerFive = new PlayerSnake(null, 5, 0);
+		assertNull(playerFive.getKeyScheme());
+		playerFive.setKeyScheme(new KeyScheme(NativeKeyEvent.VC_T, NativeKeyEvent.VC_F, NativeKeyEvent.VC_G,
+				NativeKeyEvent.VC_H, "T,F,G,H"));
+		testDispatcher.addPlayer(playerFive, playerFive.getKeyScheme());
+
+		testDispatcher.dispatch(NativeKeyEvent.VC_H);
+		assertEquals(Direction.RIGHT, playerFive.directionBufferPoll());
+
+		// keys already taken are refused, and removed players stop moving
+		assertThrows(IllegalArgumentException.class, () -> testDispatcher.addPlayer(new PlayerSnake(null, 6, 0),
+				new KeyScheme(NativeKeyEvent.VC_W, NativeKeyEvent.VC_1, NativeKeyEvent.VC_2, NativeKeyEvent.VC_3, "W,1,2,3")));
+		assertTrue(testDispatcher.removePlayer(playerOne));
+		assertFalse(testDispatcher.dispatch(NativeKeyEvent.VC_W));
+		assertEquals(8, testDispatcher.getBoundKeyCount());
+	}
+
+	@Test
+	public void newSchemeReplacesOldKeys() {
+		testDispatcher.addPlayer(playerOne, new KeyScheme(NativeKeyEvent.VC_T, NativeKeyEvent.VC_F, NativeKeyEvent.VC_G,
+				NativeKeyEvent.VC_H, "T,F,G,H"));
+
+		assertFalse(testDispatcher.dispatch(NativeKeyEvent.VC_A));
+		assertTrue(testDispatcher.dispatch(NativeKeyEvent.VC_F));
+		assertEquals(Direction.LEFT, playerOne.directionBufferPoll());
+		assertEquals(8, testDispatcher.getBoundKeyCount());
+
+		// a refused scheme leaves the old keys bound
+		assertThrows(IllegalArgumentException.class, () -> testDispatcher.addPlayer(playerOne,
+				new KeyScheme(NativeKeyEvent.VC_I, NativeKeyEvent.VC_1, NativeKeyEvent.VC_2, NativeKeyEvent.VC_3, "I,1,2,3")));
+		assertTrue(testDispatcher.dispatch(NativeKeyEvent.VC_F));
+	}
+}
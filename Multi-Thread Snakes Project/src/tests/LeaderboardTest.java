@@ -0,0 +1,145 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import server.Leaderboard;
+import server.Leaderboard.Standing;
+
+public class LeaderboardTest {
+
+	// test variables
+	private Leaderboard leaderboard;
+
+	@BeforeEach
+	public void beforeEach() {
+		leaderboard = new Leaderboard();
+	}
+
+	@AfterEach
+	public void afterEach() {
+		leaderboard.close();
+	}
+
+	@AfterAll
+	public static void ReportCard() {
+		System.out.println("Tests complete");
+	}
+
+	// =============================== TESTS =================================
+
+	@Test
+	public void rankByScore() {
+		leaderboard.recordScoreChange("Ryan", 3);
+		leaderboard.recordScoreChange("Bevan", 5);
+		leaderboard.recordScoreChange("Tony", 1);
+		leaderboard.recordScoreChange("Tony", 6);
+		leaderboard.flush();
+
+		assertEquals(1, leaderboard.rank("Tony"));
+		assertEquals(2, leaderboard.rank("Bevan"));
+		assertEquals(3, leaderboard.rank("Ryan"));
+		assertEquals(0, leaderboard.rank("Nobody"));
+	}
+
+	@Test
+	public void tiedScoresShareRank() {
+		leaderboard.recordScoreChange("Ryan", 2);
+		leaderboard.recordScoreChange("Bevan", 2);
+		leaderboard.recordScoreChange("Tony", 1);
+		leaderboard.flush();
+
+		assertEquals(1, leaderboard.rank("Ryan"));
+		assertEquals(1, leaderboard.rank("Bevan"));
+		assertEquals(3, leaderboard.rank("Tony"));
+	}
+
+	@Test
+	public void topK() {
+		for (int i = 0; i < 10; i++) {
+			leaderboard.recordScoreChange("player" + i, i);
+		}
+		leaderboard.flush();
+		List<Standing> top = leaderboard.topK(3);
+		assertEquals(3, top.size());
+		assertEquals("player9", top.get(0).getPlayer());
+		assertEquals("player8", top.get(1).getPlayer());
+		assertEquals("player7", top.get(2).getPlayer());
+	}
+
+	@Test
+	public void gameResultCounted() {
+		leaderboard.recordScoreChange("Ryan", 4);
+		leaderboard.recordGameResult("Ryan", 4);
+		leaderboard.recordGameResult("Ryan", 2);
+
+		Standing standing = leaderboard.getStanding("Ryan");
+		assertEquals(4, standing.getScore());
+		assertEquals(2, standing.getGamesPlayed());
+		assertEquals(4, standing.getBestGameScore());
+		assertEquals(1, leaderboard.topK(10).size());
+	}
+
+	@Test
+	public void concurrentUpdates() throws InterruptedException {
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 1000; i++) {
+					leaderboard.recordScoreChange("player" + (i % 50), 1);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		leaderboard.flush();
+		assertEquals(50, leaderboard.size());
+		assertEquals(50, leaderboard.topK(100).size());
+		for (int i = 0; i < 50; i++) {
+			assertEquals(160, leaderboard.getStanding("player" + i).getScore());
+			assertEquals(1, leaderboard.rank("player" + i));
+		}
+	}
+
+	@Test
+	public void fullQueueAppliedInOrder() {
+		// more changes than the queue holds - the overflow is applied straight away
+		for (int i = 0; i < Leaderboard.QUEUE_CAPACITY + 100; i++) {
+			leaderboard.recordScoreChange("Ryan", i % 2 == 0 ? 2 : -1);
+		}
+		leaderboard.flush();
+
+		assertEquals((Leaderboard.QUEUE_CAPACITY + 100) / 2, leaderboard.getStanding("Ryan").getScore());
+		assertEquals(1, leaderboard.topK(10).size());
+	}
+
+	@Test
+	public void persistedStandings(@TempDir Path tempDir) {
+		File dbFile = tempDir.resolve("leaderboard").toFile();
+		leaderboard.close();
+		leaderboard = new Leaderboard(dbFile);
+		leaderboard.recordScoreChange("Ryan", 3);
+		leaderboard.recordScoreChange("Tony", 5);
+		leaderboard.recordGameResult("Ryan", 3);
+		leaderboard.close();
+
+		leaderboard = new Leaderboard(dbFile);
+		assertEquals(1, leaderboard.rank("Tony"));
+		assertEquals(2, leaderboard.rank("Ryan"));
+		assertEquals(1, leaderboard.getStanding("Ryan").getGamesPlayed());
+		leaderboard.close();
+	}
+}
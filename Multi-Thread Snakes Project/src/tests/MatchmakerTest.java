@@ -0,0 +1,177 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import server.GameServer;
+import server.Lobby;
+import server.LobbyHandler;
+import server.Matchmaker;
+
+public class MatchmakerTest {
+
+	// test variables
+	private List<Lobby> startedLobbies;
+	private Matchmaker testMatchmaker;
+
+	@BeforeEach
+	public void beforeEach() {
+		startedLobbies = new ArrayList<Lobby>();
+		// lobbies are recorded, not played
+		testMatchmaker = new Matchmaker(4, 100, 1000, lobby -> {
+			startedLobbies.add(lobby);
+			return null;
+		});
+	}
+
+	@AfterAll
+	public static void ReportCard() {
+		System.out.println("Tests complete");
+	}
+
+	// =============================== TESTS =================================
+
+	@Test
+	public void waitingPlayersBatchedIntoFullLobbies() {
+		List<CompletableFuture<Lobby>> tickets = new ArrayList<CompletableFuture<Lobby>>();
+		for (int playerId = 1; playerId <= 9; playerId++) {
+			tickets.add(testMatchmaker.enqueue(playerId, 50));
+		}
+
+		assertEquals(2, testMatchmaker.formLobbies(System.nanoTime()));
+
+		assertEquals(2, startedLobbies.size());
+		Lobby first = startedLobbies.get(0);
+		assertEquals(4, first.getPlayerCount());
+		assertEquals(0, first.getNpcCount());
+		assertEquals(1, first.getPlayerId(0));
+		assertEquals(3, first.snakeIdOf(3));
+		assertSame(first, tickets.get(2).getNow(null));
+		assertSame(startedLobbies.get(1), tickets.get(7).getNow(null));
+		// the ninth player waits for more players
+		assertFalse(tickets.get(8).isDone());
+		assertEquals(1, testMatchmaker.getQueuedCount());
+	}
+
+	@Test
+	public void ratingBucketsKeptApart() {
+		for (int playerId = 1; playerId <= 3; playerId++) {
+			testMatchmaker.enqueue(playerId, 50);
+			testMatchmaker.enqueue(playerId + 10, 250);
+		}
+		testMatchmaker.enqueue(4, 99);
+
+		assertEquals(1, testMatchmaker.formLobbies(System.nanoTime()));
+
+		assertEquals(0, startedLobbies.get(0).getRatingBucket());
+		assertEquals(4, startedLobbies.get(0).snakeIdOf(4));
+		assertEquals(3, testMatchmaker.getQueuedCount());
+	}
+
+	@Test
+	public void longWaitingPlayersBackfilledWithNpcs() {
+		CompletableFuture<Lobby> left = testMatchmaker.enqueue(1, 50);
+		CompletableFuture<Lobby> waiting = testMatchmaker.enqueue(2, 50);
+		testMatchmaker.enqueue(3, 50);
+		left.cancel(false);
+		long now = System.nanoTime();
+		assertEquals(0, testMatchmaker.formLobbies(now));
+
+		// once the backfill time has passed
+		assertEquals(1, testMatchmaker.formLobbies(now + TimeUnit.SECONDS.toNanos(1)));
+
+		Lobby lobby = waiting.getNow(null);
+		assertNotNull(lobby);
+		assertEquals(2, lobby.getPlayerCount());
+		assertEquals(1, lobby.snakeIdOf(2));
+		assertEquals(-1, lobby.snakeIdOf(1));
+		assertEquals(2, lobby.getNpcCount());
+		assertEquals(3, lobby.getFirstNpcSnakeId());
+		assertEquals(4, lobby.getSize());
+		assertEquals(2, testMatchmaker.getNpcsBackfilled());
+		assertEquals(0, testMatchmaker.getQueuedCount());
+	}
+
+	@Test
+	public void playerLeavingFormedLobbyBackfilledWithNpc() {
+		List<CompletableFuture<Lobby>> tickets = new ArrayList<CompletableFuture<Lobby>>();
+		// the sixth player leaves while the first lobby of the pass is started
+		Matchmaker matchmaker = new Matchmaker(4, 100, 1000, lobby -> {
+			startedLobbies.add(lobby);
+			tickets.get(5).cancel(false);
+			return null;
+		});
+		for (int playerId = 1; playerId <= 8; playerId++) {
+			tickets.add(matchmaker.enqueue(playerId, 50));
+		}
+
+		assertEquals(2, matchmaker.formLobbies(System.nanoTime()));
+
+		Lobby second = tickets.get(7).getNow(null);
+		assertSame(startedLobbies.get(1), second);
+		assertEquals(3, second.getPlayerCount());
+		assertEquals(-1, second.snakeIdOf(6));
+		assertEquals(3, second.snakeIdOf(8));
+		assertEquals(1, second.getNpcCount());
+		assertEquals(1, matchmaker.getNpcsBackfilled());
+	}
+
+	@Test
+	public void lobbyDroppedWhenAllPlayersLeave() {
+		List<CompletableFuture<Lobby>> tickets = new ArrayList<CompletableFuture<Lobby>>();
+		// the second lobby empties while the first is started
+		Matchmaker matchmaker = new Matchmaker(2, 100, 1000, lobby -> {
+			startedLobbies.add(lobby);
+			tickets.get(2).cancel(false);
+			tickets.get(3).cancel(false);
+			return null;
+		});
+		for (int playerId = 1; playerId <= 4; playerId++) {
+			tickets.add(matchmaker.enqueue(playerId, 50));
+		}
+
+		assertEquals(1, matchmaker.formLobbies(System.nanoTime()));
+
+		assertEquals(1, startedLobbies.size());
+		assertEquals(1, matchmaker.getLobbiesFormed());
+		assertEquals(0, matchmaker.getNpcsBackfilled());
+	}
+
+	@Test
+	public void playerLeavingStartingGameGivesUpSeat() {
+		GameServer game = mock(GameServer.class);
+		List<CompletableFuture<Lobby>> tickets = new ArrayList<CompletableFuture<Lobby>>();
+		List<Integer> leftSnakeIds = new ArrayList<Integer>();
+		Matchmaker matchmaker = new Matchmaker(2, 100, 1000, new LobbyHandler() {
+			@Override
+			public GameServer startGame(Lobby lobby) {
+				// the second player leaves after the game was created for it
+				tickets.get(1).cancel(false);
+				return game;
+			}
+
+			@Override
+			public void playerLeft(Lobby lobby, int snakeId) {
+				leftSnakeIds.add(snakeId);
+			}
+		});
+		tickets.add(matchmaker.enqueue(1, 50));
+		tickets.add(matchmaker.enqueue(2, 50));
+
+		assertEquals(1, matchmaker.formLobbies(System.nanoTime()));
+
+		assertSame(game, tickets.get(0).getNow(null).getGame());
+		verify(game).releaseSeat();
+		assertEquals(List.of(2), leftSnakeIds);
+	}
+}
@@ -0,0 +1,162 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import abstractClasses.Snake.Direction;
+import client.NPCSnake;
+import server.GameServer;
+import server.GameState;
+import server.GameState.GameTile;
+import server.ScoreLedger;
+import server.ScoreLedger.Cause;
+
+public class ScoreLedgerTest {
+
+	// test variables
+	private GameState testGameState;
+	private ScoreLedger testLedger;
+
+	@BeforeEach
+	public void beforeEach() {
+		testGameState = new GameState();
+		testLedger = testGameState.getScoreLedger();
+	}
+
+	@AfterEach
+	public void afterEach() {
+		// ends the history subscription
+		testGameState.endGame();
+	}
+
+	@AfterAll
+	public static void ReportCard() {
+		System.out.println("Tests complete");
+	}
+
+	// =============================== TESTS =================================
+
+	@Test
+	public void changesRecordedWithTickAndCause() throws InterruptedException {
+		// snake 1 eats two bonus food then a malus food moving down its row
+		GameTile[][] board = new GameTile[GameState.GAME_SIZE][GameState.GAME_SIZE];
+		board[5][6] = GameTile.FOOD_BONUS;
+		board[5][7] = GameTile.FOOD_BONUS;
+		board[5][9] = GameTile.FOOD_MALUS;
+		testGameState.setGameBoard(board);
+		NPCSnake snake = new NPCSnake(null, 1);
+		testGameState.addSnakeModel(snake, 5, 5);
+
+		for (int tick = 0; tick < 4; tick++) {
+			moveDown(tick);
+		}
+
+		assertEquals(3, testLedger.getChangeCount(1));
+		awaitHistory(3);
+		assertEquals(3, testLedger.getEntryCount(1));
+		assertEquals(0, testLedger.getTick(1, 0));
+		assertEquals(Cause.BONUS, testLedger.getCause(1, 1));
+		assertEquals(2, testLedger.getScoreAfter(1, 1));
+		assertEquals(3, testLedger.getTick(1, 2));
+		assertEquals(Cause.MALUS, testLedger.getCause(1, 2));
+		assertEquals(1, testLedger.getScore(1));
+		assertEquals(snake.getScore(), testLedger.getScore(1));
+		assertThrows(IndexOutOfBoundsException.class, () -> testLedger.getTick(1, 3));
+	}
+
+	@Test
+	public void ratesAndRanking() {
+		GameTile[][] board = new GameTile[GameState.GAME_SIZE][GameState.GAME_SIZE];
+		board[5][6] = GameTile.FOOD_BONUS;
+		board[10][11] = GameTile.FOOD_BONUS;
+		board[10][12] = GameTile.FOOD_BONUS;
+		testGameState.setGameBoard(board);
+		testGameState.addSnakeModel(new NPCSnake(null, 1), 5, 5);
+		testGameState.addSnakeModel(new NPCSnake(null, 2), 10, 10);
+		testGameState.addSnakeModel(new NPCSnake(null, 3), 20, 20);
+
+		for (int tick = 0; tick < 2; tick++) {
+			moveDown(tick);
+		}
+
+		assertArrayEquals(new int[] { 2, 1 }, testLedger.getRanking());
+		assertEquals(2, testLedger.getScorePerMinute(2));
+
+		// a minute of ticks later the changes have left the window
+		int minute = 60_000 / GameServer.TICK_MILLIS;
+		testGameState.endTick(1 + minute);
+		assertEquals(0, testLedger.getScorePerMinute(2));
+		assertEquals(2, testLedger.getScore(2));
+	}
+
+	@Test
+	public void historyKeepsEveryChange() throws InterruptedException {
+		// snake 1 circles a square, growing to length 3 on bonus food then eating
+		// malus and bonus food in turn - more changes than a minute of ticks and than
+		// a chunk of the history
+		int[][] square = { { 5, 5 }, { 6, 5 }, { 6, 6 }, { 5, 6 } };
+		Direction[] turns = { Direction.RIGHT, Direction.DOWN, Direction.LEFT, Direction.UP };
+		testGameState.addSnakeModel(new NPCSnake(null, 1), 5, 5);
+		int changes = 1100;
+		int length = 1;
+		for (int tick = 0; tick < changes; tick++) {
+			GameTile[][] board = new GameTile[GameState.GAME_SIZE][GameState.GAME_SIZE];
+			for (int i = 0; i < length; i++) {
+				int[] body = square[(tick - i + 4) % 4];
+				board[body[0]][body[1]] = GameTile.SNAKE;
+			}
+			boolean bonus = length < 3;
+			int[] next = square[(tick + 1) % 4];
+			board[next[0]][next[1]] = bonus ? GameTile.FOOD_BONUS : GameTile.FOOD_MALUS;
+			length += bonus ? 1 : -1;
+			testGameState.setGameBoard(board);
+			TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+			moves.put(1, turns[tick % 4]);
+			testGameState.resolveMoves(moves);
+			testGameState.swapBuffers();
+			testGameState.endTick(tick);
+		}
+
+		awaitHistory(changes - 1);
+		assertEquals(changes, testLedger.getEntryCount(1));
+		assertEquals(0, testLedger.getTick(1, 0));
+		assertEquals(Cause.MALUS, testLedger.getCause(1, 2));
+		assertEquals(Cause.MALUS, testLedger.getCause(1, 1024));
+		assertEquals(1, testLedger.getScoreAfter(1, 1024));
+		assertEquals(changes - 1, testLedger.getTick(1, changes - 1));
+		assertEquals(Cause.BONUS, testLedger.getCause(1, changes - 1));
+		assertEquals(testLedger.getScore(1), testLedger.getScoreAfter(1, changes - 1));
+	}
+
+	// =========================== HELPER METHODS ============================
+
+	/**
+	 * Wait for the history to hold every change up to the end of a tick.
+	 */
+	private void awaitHistory(int tick) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (testLedger.getHistoryTick() < tick) {
+			assertTrue(System.currentTimeMillis() < deadline, "history did not reach tick " + tick);
+			Thread.sleep(1);
+		}
+	}
+
+	/**
+	 * Move every snake one tile down and end the tick.
+	 */
+	private void moveDown(int tick) {
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		for (int id = 1; id <= testGameState.getSnakeCount(); id++) {
+			moves.put(id, Direction.DOWN);
+		}
+		testGameState.resolveMoves(moves);
+		testGameState.swapBuffers();
+		testGameState.endTick(tick);
+	}
+}
@@ -0,0 +1,57 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import server.SessionCache;
+import server.SessionToken;
+
+public class SessionCacheTest {
+
+	// test variables
+	private SessionCache sessionCache;
+
+	@BeforeEach
+	public void beforeEach() {
+		sessionCache = new SessionCache(60_000);
+	}
+
+	@AfterAll
+	public static void ReportCard() {
+		System.out.println("Tests complete");
+	}
+
+	// =============================== TESTS =================================
+
+	@Test
+	public void issuedTokenValidates() {
+		SessionToken session = sessionCache.issue("Ryan");
+		assertEquals("Ryan", sessionCache.validate(session.getToken()).getUsername());
+	}
+
+	@Test
+	public void unknownTokenRejected() {
+		sessionCache.issue("Ryan");
+		assertNull(sessionCache.validate("not-a-token"));
+		assertNull(sessionCache.validate(null));
+	}
+
+	@Test
+	public void expiredTokenEvicted() throws InterruptedException {
+		sessionCache = new SessionCache(1);
+		SessionToken session = sessionCache.issue("Ryan");
+		Thread.sleep(5);
+		assertNull(sessionCache.validate(session.getToken()));
+		assertEquals(0, sessionCache.size());
+	}
+
+	@Test
+	public void invalidatedTokenRejected() {
+		SessionToken session = sessionCache.issue("Ryan");
+		sessionCache.invalidate(session.getToken());
+		assertNull(sessionCache.validate(session.getToken()));
+	}
+}
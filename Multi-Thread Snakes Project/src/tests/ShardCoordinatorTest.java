@@ -0,0 +1,125 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import server.GameHost;
+import server.Leaderboard;
+import server.ShardCoordinator;
+import server.ShardCoordinator.Placement;
+import server.ShardProtocol;
+import server.ShardWorker;
+import server.UserDatabase;
+
+public class ShardCoordinatorTest {
+
+	// test variables
+	private UserDatabase userDB;
+	private Leaderboard leaderboard;
+	private ShardCoordinator coordinator;
+	private ShardWorker firstWorker;
+	private ShardWorker secondWorker;
+
+	@BeforeEach
+	public void beforeEach() throws IOException {
+		userDB = new UserDatabase();
+		leaderboard = new Leaderboard();
+		coordinator = new ShardCoordinator(0);
+		coordinator.start();
+		firstWorker = startWorker();
+		secondWorker = startWorker();
+	}
+
+	@AfterEach
+	public void afterEach() {
+		stopWorker(firstWorker);
+		stopWorker(secondWorker);
+		coordinator.shutdown();
+		leaderboard.close();
+		userDB.close();
+	}
+
+	@AfterAll
+	public static void ReportCard() {
+		System.out.println("Tests complete");
+	}
+
+	// =============================== TESTS =================================
+
+	@Test
+	public void gamesSpreadOverWorkers() throws IOException {
+		assertEquals(2, coordinator.getWorkerCount());
+		assertEquals(1, firstWorker.getWorkerId());
+		assertEquals(2, secondWorker.getWorkerId());
+
+		// one player each, so the games wait in their lobbies
+		for (int i = 0; i < 4; i++) {
+			coordinator.assignGame(1, 0);
+		}
+
+		assertEquals(2, firstWorker.getGameHost().getGameCount());
+		assertEquals(2, secondWorker.getGameHost().getGameCount());
+		// every worker is full
+		assertThrows(IOException.class, () -> coordinator.assignGame(1, 0));
+		assertTrue(coordinator.getCapacityReport().startsWith("CAPACITY 2 4 4 "));
+	}
+
+	@Test
+	public void gamesRoutedToTheirWorker() throws IOException {
+		Placement first = coordinator.assignGame(1, 2);
+		Placement second = coordinator.assignGame(1, 0);
+
+		assertEquals(first.getClusterGameId(), coordinator.route(first.getClusterGameId()).getClusterGameId());
+		assertEquals(secondWorker.getPort(), coordinator.route(second.getClusterGameId()).getPort());
+		assertNull(coordinator.route(99));
+
+		// clients reach the coordinator and the workers over the protocol
+		String routed = ShardProtocol.request("localhost", coordinator.getPort(), "ROUTE " + first.getClusterGameId());
+		assertEquals(first.toString(), routed);
+		String status = ShardProtocol.request(first.getHost(), first.getPort(), "STATUS " + first.getGameId());
+		assertEquals("GAME " + first.getGameId() + " LOBBY 0 2", status);
+		assertThrows(IOException.class, () -> ShardProtocol.request("localhost", coordinator.getPort(), "ROUTE 99"));
+	}
+
+	@Test
+	public void workersRegisterWithRestartedCoordinator() throws IOException, InterruptedException {
+		int port = coordinator.getPort();
+		coordinator.shutdown();
+		// reports fail while the coordinator is down, and the workers keep their ids
+		Thread.sleep(2 * ShardWorker.REPORT_MILLIS);
+		assertEquals(1, firstWorker.getWorkerId());
+		assertEquals(2, secondWorker.getWorkerId());
+
+		// the restarted coordinator answers that it does not know the workers
+		coordinator = new ShardCoordinator(port);
+		coordinator.start();
+		long deadline = System.currentTimeMillis() + 10 * ShardWorker.REPORT_MILLIS;
+		while (coordinator.getWorkerCount() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+
+		assertEquals(2, coordinator.getWorkerCount());
+		assertEquals(3, firstWorker.getWorkerId() + secondWorker.getWorkerId());
+		assertNotNull(coordinator.assignGame(1, 0));
+	}
+
+	// =========================== HELPER METHODS ============================
+
+	private ShardWorker startWorker() throws IOException {
+		ShardWorker worker = new ShardWorker(new GameHost(userDB, leaderboard, 50, 1), 2, "localhost",
+				coordinator.getPort());
+		worker.start();
+		return worker;
+	}
+
+	private void stopWorker(ShardWorker worker) {
+		worker.shutdown();
+		worker.getGameHost().shutdown();
+	}
+}
@@ -0,0 +1,99 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import abstractClasses.Snake;
+import abstractClasses.Snake.Direction;
+import client.NPCSnake;
+import server.GameState;
+import server.SnakeRegistry;
+
+public class SnakeRegistryTest {
+
+	// test variables
+	private GameState testGameState;
+	private SnakeRegistry testRegistry;
+
+	@BeforeEach
+	public void beforeEach() {
+		testGameState = new GameState();
+		testRegistry = testGameState.getSnakeRegistry();
+	}
+
+	@AfterAll
+	public static void ReportCard() {
+		System.out.println("Tests complete");
+	}
+
+	// =============================== TESTS =================================
+
+	@Test
+	public void joiningSnakesGetDenseSlots() {
+		join(new NPCSnake(null, 40), 5, 5);
+		join(new NPCSnake(null, 7), 10, 10);
+
+		assertEquals(2, testRegistry.size());
+		assertEquals(0, testRegistry.slotOf(40));
+		assertEquals(1, testRegistry.slotOf(7));
+		assertEquals(-1, testRegistry.slotOf(8));
+		assertEquals(7, testRegistry.get(1).getSnakeId());
+		assertEquals(2, testRegistry.getLiveCount());
+	}
+
+	@Test
+	public void deathsClearAliveBits() {
+		// snakes 2 and 3 meet head on, snake 1 keeps moving
+		join(new NPCSnake(null, 1), 5, 5);
+		join(new NPCSnake(null, 2), 10, 10);
+		join(new NPCSnake(null, 3), 12, 10);
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		moves.put(1, Direction.DOWN);
+		moves.put(2, Direction.RIGHT);
+		moves.put(3, Direction.LEFT);
+		testGameState.resolveMoves(moves);
+
+		assertEquals(1, testRegistry.getLiveCount());
+		assertTrue(testRegistry.anyAlive());
+		assertEquals(0, testRegistry.nextLiveSlot(0));
+		assertEquals(-1, testRegistry.nextLiveSlot(1));
+		assertFalse(testRegistry.isAlive(2));
+
+		// respawning marks the snake alive again in its old slot
+		testGameState.addSnakeModel(testRegistry.get(2), 20, 20);
+		assertEquals(2, testRegistry.nextLiveSlot(1));
+		assertEquals(2, testRegistry.getLiveCount());
+	}
+
+	@Test
+	public void registryFollowsSnakeTable() {
+		join(new NPCSnake(null, 1), 5, 5);
+		join(new NPCSnake(null, 2), 10, 10);
+		Snake[] joined = testRegistry.getSnakes();
+
+		// respawning every snake keeps the slots and the shared array
+		testGameState.resetRound();
+		assertSame(joined, testRegistry.getSnakes());
+		assertEquals(2, testRegistry.getLiveCount());
+
+		// a copied game state has a view of its own over the copied slots
+		SnakeRegistry copied = new GameState(testGameState).getSnakeRegistry();
+		assertNotSame(testRegistry, copied);
+		assertEquals(1, copied.slotOf(2));
+		assertEquals(2, copied.getLiveCount());
+	}
+
+	// =========================== HELPER METHODS ============================
+
+	/**
+	 * Place a snake, the way GameServer adds a joining snake.
+	 */
+	private void join(Snake snake, int row, int column) {
+		testGameState.addSnakeModel(snake, row, column);
+	}
+}
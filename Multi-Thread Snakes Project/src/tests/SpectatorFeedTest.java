@@ -0,0 +1,153 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import abstractClasses.Snake.Direction;
+import client.NPCSnake;
+import server.GameState;
+import server.GameState.GameTile;
+import server.Spectator;
+import server.SpectatorFeed;
+import server.SpectatorFrame;
+
+public class SpectatorFeedTest {
+
+	// test variables
+	private GameState testGameState;
+	private ExecutorService feedExecutor;
+	private SpectatorFeed testFeed;
+
+	@BeforeEach
+	public void beforeEach() {
+		testGameState = new GameState();
+		feedExecutor = Executors.newSingleThreadExecutor();
+		testFeed = new SpectatorFeed(GameState.GAME_SIZE, feedExecutor);
+	}
+
+	@AfterEach
+	public void afterEach() {
+		feedExecutor.shutdownNow();
+	}
+
+	@AfterAll
+	public static void ReportCard() {
+		System.out.println("Tests complete");
+	}
+
+	// =============================== TESTS =================================
+
+	@Test
+	public void spectatorsShareOneFrame() throws Exception {
+		RecordingSpectator first = new RecordingSpectator(0);
+		RecordingSpectator second = new RecordingSpectator(0);
+		testFeed.addSpectator(first);
+		testFeed.addSpectator(second);
+		testGameState.addSnakeModel(new NPCSnake(null, 1), 5, 5);
+
+		for (int tick = 0; tick < 3; tick++) {
+			moveAndOffer(tick);
+		}
+
+		assertEquals(3, first.frames.size());
+		for (int i = 0; i < 3; i++) {
+			assertSame(first.frames.get(i), second.frames.get(i));
+		}
+		assertTrue(first.frames.get(0).isKeyframe());
+		assertFalse(first.frames.get(1).isKeyframe());
+		assertEquals(2, first.frames.get(2).getTick());
+	}
+
+	@Test
+	public void framesRebuildBoard() throws Exception {
+		RecordingSpectator spectator = new RecordingSpectator(0);
+		testFeed.addSpectator(spectator);
+		testGameState.addSnakeModel(new NPCSnake(null, 1), 5, 5);
+		GameTile[][] food = new GameTile[GameState.GAME_SIZE][GameState.GAME_SIZE];
+		food[5][9] = GameTile.FOOD_BONUS;
+		food[20][20] = GameTile.FOOD_MALUS;
+		food[5][5] = GameTile.SNAKE;
+		testGameState.setGameBoard(food);
+
+		GameTile[][] board = new GameTile[GameState.GAME_SIZE][GameState.GAME_SIZE];
+		for (int tick = 0; tick < 6; tick++) {
+			moveAndOffer(tick);
+		}
+		for (SpectatorFrame frame : spectator.frames) {
+			frame.applyTo(board);
+		}
+
+		// the snake ate the bonus food on the way
+		assertArrayEquals(testGameState.cloneGameBoard(), board);
+		assertEquals(GameTile.FOOD_MALUS, board[20][20]);
+	}
+
+	@Test
+	public void refusingSpectatorSkippedToKeyframe() throws Exception {
+		RecordingSpectator keeping = new RecordingSpectator(0);
+		RecordingSpectator refusing = new RecordingSpectator(1);
+		testFeed.addSpectator(keeping);
+		testFeed.addSpectator(refusing);
+		testGameState.addSnakeModel(new NPCSnake(null, 1), 5, 5);
+
+		for (int tick = 0; tick <= SpectatorFeed.KEYFRAME_FRAMES; tick++) {
+			moveAndOffer(tick);
+		}
+
+		// refused the first keyframe, then offered nothing until the next one
+		assertEquals(SpectatorFeed.KEYFRAME_FRAMES + 1, keeping.frames.size());
+		assertEquals(1, refusing.frames.size());
+		assertTrue(refusing.frames.get(0).isKeyframe());
+		assertEquals(SpectatorFeed.KEYFRAME_FRAMES, refusing.frames.get(0).getSequence());
+		assertEquals(SpectatorFeed.KEYFRAME_FRAMES, testFeed.getFramesSkipped());
+	}
+
+	// =========================== HELPER METHODS ============================
+
+	/**
+	 * Move snake 1 one tile down, publish the tick and wait for the feed to fan it out.
+	 */
+	private void moveAndOffer(int tick) throws InterruptedException, ExecutionException {
+		TreeMap<Integer, Direction> moves = new TreeMap<Integer, Direction>();
+		moves.put(1, Direction.DOWN);
+		testGameState.resolveMoves(moves);
+		testGameState.swapBuffers();
+		testGameState.endTick(tick);
+		testFeed.offer(testGameState, tick);
+		// single thread executor - the feed worker has run once this returns
+		feedExecutor.submit(() -> {
+		}).get();
+	}
+
+	/**
+	 * Spectator recording the frames it takes, refusing the first few.
+	 */
+	private static final class RecordingSpectator implements Spectator {
+		final List<SpectatorFrame> frames = new ArrayList<SpectatorFrame>();
+		private int refusals;
+
+		RecordingSpectator(int refusals) {
+			this.refusals = refusals;
+		}
+
+		public boolean offerFrame(SpectatorFrame frame) {
+			if (refusals > 0) {
+				refusals--;
+				return false;
+			}
+			frames.add(frame);
+			return true;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import client.NPCSnake;
+import client.StateMailbox;
+import server.GameSnapshot;
+import server.GameState;
+
+public class StateMailboxTest {
+
+	// test variables
+	private GameState testGameState;
+	private StateMailbox testMailbox;
+
+	@BeforeEach
+	public void beforeEach() {
+		testGameState = new GameState();
+		testMailbox = new StateMailbox();
+	}
+
+	@AfterAll
+	public static void ReportCard() {
+		System.out.println("Tests complete");
+	}
+
+	// =============================== TESTS =================================
+
+	@Test
+	public void pollTakesNewestState() {
+		GameSnapshot first = publish();
+		testMailbox.offer(first);
+		testMailbox.offer(publish());
+		GameSnapshot newest = publish();
+		testMailbox.offer(newest);
+
+		assertSame(newest, testMailbox.poll());
+		assertNull(testMailbox.poll());
+		assertEquals(2, testMailbox.getFramesSkipped());
+		newest.release();
+	}
+
+	@Test
+	public void stalledClientHoldsOneState() {
+		testGameState.addSnakeModel(new NPCSnake(null, 1), 5, 5);
+		int created = testGameState.getSnapshotsCreated();
+
+		// a client that never polls - overwritten states go back to the pool
+		for (int tick = 0; tick < 1000; tick++) {
+			testMailbox.offer(publish());
+		}
+
+		assertTrue(testGameState.getSnapshotsCreated() - created <= 2,
+				"snapshots created " + (testGameState.getSnapshotsCreated() - created));
+		assertEquals(999, testMailbox.getFramesSkipped());
+		testMailbox.clear();
+		assertNull(testMailbox.poll());
+	}
+
+	// =========================== HELPER METHODS ============================
+
+	/**
+	 * Publish a tick and retain its snapshot, as the server does for each client.
+	 */
+	private GameSnapshot publish() {
+		testGameState.swapBuffers();
+		return testGameState.acquireSnapshot();
+	}
+}
@@ -5,7 +5,12 @@ import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
 
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -27,7 +32,7 @@ class UserDatabaseTest {
 	private UserDatabase userDatabase;
 
 	@BeforeAll
-	public void beforeAll() {
+	public static void beforeAll() {
 
 	}
 
@@ -35,12 +40,16 @@ class UserDatabaseTest {
 	public void beforeEach() {
 		gameBoard = mock(GameState.class, RETURNS_DEEP_STUBS);
 		playerSnake = mock(PlayerSnake.class, RETURNS_DEEP_STUBS);
-		playerDetails = mock(PlayerDetails.class, RETURNS_DEEP_STUBS);
 		userDatabase = new UserDatabase();
 		playerDetails = new PlayerDetails("Ryan", "123");
 		
 	}
 
+	@AfterEach
+	public void afterEach() {
+		userDatabase.close();
+	}
+
 	@AfterAll
 	public static void ReportCard() {
 		System.out.println("Tests complete");
@@ -60,32 +69,52 @@ class UserDatabaseTest {
 	@Test
 	void correctLogin() {
 		int encryptionKey = 5;
-		userDatabase = new UserDatabase();
-		playerDetails = new PlayerDetails("Ryan", "123");
+		playerDetails = new PlayerDetails("Ryan", "[1, 2, 3]").encrypt(encryptionKey);
 		assertTrue(userDatabase.authenticate(playerDetails, encryptionKey));
 	}
 
 	@Test
 	void incorrectUser() {
 		int encryptionKey = 5;
-		userDatabase = new UserDatabase();
-		playerDetails = new PlayerDetails("Bryan", "123");
-		assertTrue(userDatabase.authenticate(playerDetails, encryptionKey));
+		playerDetails = new PlayerDetails("Bryan", "[1, 2, 3]").encrypt(encryptionKey);
+		assertFalse(userDatabase.authenticate(playerDetails, encryptionKey));
 	}
 
 	@Test
 	void incorrectPassword() {
 		int encryptionKey = 5;
-		userDatabase = new UserDatabase();
-		playerDetails = new PlayerDetails("Ryan", "abc");
-		assertTrue(userDatabase.authenticate(playerDetails, encryptionKey));
+		playerDetails = new PlayerDetails("Ryan", "abc").encrypt(encryptionKey);
+		assertFalse(userDatabase.authenticate(playerDetails, encryptionKey));
 	}
 	
 	@Test
 	void incorrectEncryptionKey() {
 		int encryptionKey = 5;
-		userDatabase = new UserDatabase();
-		playerDetails = new PlayerDetails("Ryan", "abc");
-		assertTrue(userDatabase.authenticate(playerDetails, 6));
+		playerDetails = new PlayerDetails("Ryan", "[1, 2, 3]").encrypt(encryptionKey);
+		assertFalse(userDatabase.authenticate(playerDetails, 6));
+	}
+
+	@Test
+	void importedPlayerLogin() {
+		int encryptionKey = 5;
+		userDatabase.importPlayers(Arrays.asList(new PlayerDetails("Alice", "[9]"),
+				new PlayerDetails("Bob", "[8]")).iterator());
+		assertTrue(userDatabase.authenticate(new PlayerDetails("Alice", "[9]").encrypt(encryptionKey), encryptionKey));
+		assertFalse(userDatabase.authenticate(new PlayerDetails("Bob", "[9]").encrypt(encryptionKey), encryptionKey));
+		assertEquals(6, userDatabase.size());
+	}
+
+	@Test
+	void persistedPlayerLogin(@TempDir Path tempDir) {
+		int encryptionKey = 5;
+		File dbFile = tempDir.resolve("userdb").toFile();
+		userDatabase.close();
+		userDatabase = new UserDatabase(dbFile);
+		userDatabase.addPlayer(new PlayerDetails("Alice", "[9]"));
+		userDatabase.close();
+
+		userDatabase = new UserDatabase(dbFile);
+		assertTrue(userDatabase.authenticate(new PlayerDetails("Alice", "[9]").encrypt(encryptionKey), encryptionKey));
+		userDatabase.close();
 	}
 }